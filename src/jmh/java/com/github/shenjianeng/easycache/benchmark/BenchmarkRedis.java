@@ -0,0 +1,69 @@
+package com.github.shenjianeng.easycache.benchmark;
+
+import com.github.shenjianeng.easycache.EasyCacheApplication;
+import org.springframework.data.redis.connection.RedisStandaloneConfiguration;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.core.RedisTemplate;
+import redis.embedded.RedisServer;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Serializable;
+import java.net.ServerSocket;
+
+/**
+ * 基准测试使用的 redis
+ * <p>
+ * 默认在随机端口启动 embedded redis;设置 benchmark.redis.host 时连接已有的 redis,端口通过 benchmark.redis.port 指定
+ * 这两个参数需要传给 JMH fork 出的 JVM,例如 -Djmh.args="-jvmArgsAppend -Dbenchmark.redis.host=127.0.0.1"
+ *
+ * @author shenjianeng
+ * @date 2026/10/18
+ */
+final class BenchmarkRedis implements Closeable {
+
+    private final RedisServer redisServer;
+
+    private final LettuceConnectionFactory connectionFactory;
+
+    private final RedisTemplate<String, Serializable> redisTemplate;
+
+    private BenchmarkRedis(RedisServer redisServer, String host, int port) {
+        this.redisServer = redisServer;
+        this.connectionFactory = new LettuceConnectionFactory(new RedisStandaloneConfiguration(host, port));
+        this.connectionFactory.afterPropertiesSet();
+        this.redisTemplate = new EasyCacheApplication().redisTemplate(connectionFactory);
+        this.redisTemplate.afterPropertiesSet();
+    }
+
+    static BenchmarkRedis start() throws IOException {
+        String host = System.getProperty("benchmark.redis.host");
+        if (host != null) {
+            return new BenchmarkRedis(null, host, Integer.getInteger("benchmark.redis.port", 6379));
+        }
+
+        int port;
+        try (ServerSocket socket = new ServerSocket(0)) {
+            port = socket.getLocalPort();
+        }
+        RedisServer redisServer = RedisServer.newRedisServer()
+                .port(port)
+                .setting("save \"\"")
+                .setting("appendonly no")
+                .build();
+        redisServer.start();
+        return new BenchmarkRedis(redisServer, "127.0.0.1", port);
+    }
+
+    RedisTemplate<String, Serializable> getRedisTemplate() {
+        return redisTemplate;
+    }
+
+    @Override
+    public void close() throws IOException {
+        connectionFactory.destroy();
+        if (redisServer != null) {
+            redisServer.stop();
+        }
+    }
+}
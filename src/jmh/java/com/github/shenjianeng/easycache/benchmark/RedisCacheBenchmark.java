@@ -0,0 +1,190 @@
+package com.github.shenjianeng.easycache.benchmark;
+
+import com.github.shenjianeng.easycache.core.MultiCacheLoader;
+import com.github.shenjianeng.easycache.core.RedisCache;
+import com.github.shenjianeng.easycache.core.RedisCacheConfig;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.LongStream;
+
+/**
+ * {@link RedisCache} 读写路径的基准测试
+ * <p>
+ * 同时输出吞吐量和延迟分位数,默认通过 -prof gc 输出内存分配速率:
+ * <pre>
+ * mvn -Pjmh test-compile exec:exec
+ * mvn -Pjmh test-compile exec:exec -Djmh.args="RedisCacheBenchmark.getOrLoadIfAbsentBatch -p hitRatio=0.9 -prof gc"
+ * </pre>
+ *
+ * @author shenjianeng
+ * @date 2026/10/18
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+@Threads(4)
+public class RedisCacheBenchmark {
+
+    private static final String KEY_PREFIX = "benchmark:redisCache";
+
+    /**
+     * 预先写入缓存的 key 数量,命中的 key 从其中随机选取
+     */
+    private static final int CACHED_KEYS = 100_000;
+
+    /**
+     * 所有基准测试共享的 redis 和缓存
+     */
+    @State(Scope.Benchmark)
+    public static class CacheState {
+
+        @Param({"20"})
+        private int batchSize;
+
+        private BenchmarkRedis redis;
+
+        private RedisCache<Long, String> cache;
+
+        private RedisCache<Long, String> evictAllCache;
+
+        /**
+         * 未命中的 key 从 CACHED_KEYS 之后递增,保证每次都不在缓存中
+         */
+        private final AtomicLong missedKeySequence = new AtomicLong(CACHED_KEYS);
+
+        @Setup(Level.Trial)
+        public void setUp() throws IOException {
+            redis = BenchmarkRedis.start();
+
+            RedisCacheConfig config = new RedisCacheConfig();
+            config.setBatchSize(batchSize);
+            MultiCacheLoader<Long, String> loader = keys -> keys.stream().collect(Collectors.toMap(Function.identity(), String::valueOf));
+
+            // 未命中的 key 会不断写入,缩短过期时间避免占用过多内存
+            cache = new RedisCache<>(KEY_PREFIX, redis.getRedisTemplate(), Duration.ofMinutes(2), loader,
+                    RedisCache.LongRedisKeyGenerator.LONG, false, config);
+            evictAllCache = new RedisCache<>(KEY_PREFIX + ":evictAll", redis.getRedisTemplate(), Duration.ofMinutes(2), loader,
+                    RedisCache.LongRedisKeyGenerator.LONG, true, config);
+
+            List<Long> cachedKeys = LongStream.range(0, CACHED_KEYS).boxed().collect(Collectors.toList());
+            for (int from = 0; from < CACHED_KEYS; from += 1000) {
+                cache.put(toMap(cachedKeys.subList(from, from + 1000)));
+            }
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() throws IOException {
+            redis.close();
+        }
+
+        private List<Long> nextMissedKeys(int count) {
+            long start = missedKeySequence.getAndAdd(count);
+            return LongStream.range(start, start + count).boxed().collect(Collectors.toList());
+        }
+    }
+
+    /**
+     * 读取操作的缓存命中率,只用于读取操作
+     */
+    @State(Scope.Benchmark)
+    public static class HitRatioState {
+
+        @Param({"0.0", "0.5", "0.9", "1.0"})
+        private double hitRatio;
+    }
+
+    /**
+     * 批量操作的 key 数量,只用于批量操作
+     */
+    @State(Scope.Benchmark)
+    public static class KeyCountState {
+
+        @Param({"1", "20", "100"})
+        private int keyCount;
+    }
+
+    @Benchmark
+    public String getIfPresent(CacheState state, HitRatioState hit) {
+        return state.cache.getIfPresent(nextKey(state, hit));
+    }
+
+    @Benchmark
+    public Map<Long, String> getIfPresentBatch(CacheState state, HitRatioState hit, KeyCountState batch) {
+        return state.cache.getIfPresent(nextKeys(state, hit, batch));
+    }
+
+    @Benchmark
+    public String getOrLoadIfAbsent(CacheState state, HitRatioState hit) {
+        return state.cache.getOrLoadIfAbsent(nextKey(state, hit));
+    }
+
+    @Benchmark
+    public Map<Long, String> getOrLoadIfAbsentBatch(CacheState state, HitRatioState hit, KeyCountState batch) {
+        return state.cache.getOrLoadIfAbsent(nextKeys(state, hit, batch));
+    }
+
+    @Benchmark
+    public void putMap(CacheState state, KeyCountState batch) {
+        state.cache.put(toMap(nextCachedKeys(batch)));
+    }
+
+    @Benchmark
+    public void evictIterable(CacheState state, KeyCountState batch) {
+        // 只删除未命中区间的 key,不影响读取操作的命中率
+        state.cache.evict(state.nextMissedKeys(batch.keyCount));
+    }
+
+    /**
+     * 包含写入 keyCount 个 key 的耗时
+     */
+    @Benchmark
+    @Threads(1)
+    public void evictAll(CacheState state, KeyCountState batch) {
+        state.evictAllCache.put(toMap(state.nextMissedKeys(batch.keyCount)));
+        state.evictAllCache.evictAll();
+    }
+
+    private static Long nextKey(CacheState state, HitRatioState hit) {
+        return ThreadLocalRandom.current().nextDouble() < hit.hitRatio
+                ? ThreadLocalRandom.current().nextLong(CACHED_KEYS) : state.missedKeySequence.getAndIncrement();
+    }
+
+    private static List<Long> nextKeys(CacheState state, HitRatioState hit, KeyCountState batch) {
+        return IntStream.range(0, batch.keyCount).mapToObj(i -> nextKey(state, hit)).collect(Collectors.toList());
+    }
+
+    private static List<Long> nextCachedKeys(KeyCountState batch) {
+        return IntStream.range(0, batch.keyCount)
+                .mapToObj(i -> ThreadLocalRandom.current().nextLong(CACHED_KEYS))
+                .collect(Collectors.toList());
+    }
+
+    private static Map<Long, String> toMap(List<Long> keys) {
+        return keys.stream().collect(Collectors.toMap(Function.identity(), String::valueOf, (a, b) -> a));
+    }
+}
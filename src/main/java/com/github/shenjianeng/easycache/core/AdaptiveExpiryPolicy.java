@@ -0,0 +1,78 @@
+package com.github.shenjianeng.easycache.core;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.checkerframework.checker.nullness.qual.NonNull;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+import java.time.Duration;
+import java.util.Objects;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * 根据访问次数调整缓存时间,并按缓存时间的比例增加随机时间,分散过期时间
+ * <p>
+ * 访问次数不小于 hotFrequency 的 key 缓存时间乘以 hotMultiplier,
+ * 访问次数不大于 coldFrequency 的 key 缓存时间乘以 coldMultiplier,
+ * null 值使用 nullValueTimeToLive
+ *
+ * @author shenjianeng
+ * @date 2026/10/18
+ */
+@Getter
+@Setter
+public class AdaptiveExpiryPolicy<K, V> implements ExpiryPolicy<K, V> {
+
+    private final Duration timeToLive;
+
+    /**
+     * 随机时间占缓存时间的比例,实际缓存时间在 [ttl, ttl * (1 + jitterRatio)) 之间
+     */
+    private double jitterRatio = 0.1;
+
+    private int hotFrequency = 16;
+
+    private double hotMultiplier = 2;
+
+    private int coldFrequency = 0;
+
+    private double coldMultiplier = 0.5;
+
+    private Duration nullValueTimeToLive = Duration.ofMinutes(1);
+
+    public AdaptiveExpiryPolicy(Duration timeToLive) {
+        this.timeToLive = Objects.requireNonNull(timeToLive);
+    }
+
+    @Override
+    public long expireAfterWrite(@NonNull K key, @Nullable V value, int frequency) {
+        double millis;
+        if (value == null) {
+            millis = nullValueTimeToLive.toMillis();
+        } else if (frequency >= hotFrequency) {
+            millis = timeToLive.toMillis() * hotMultiplier;
+        } else if (frequency <= coldFrequency) {
+            millis = timeToLive.toMillis() * coldMultiplier;
+        } else {
+            millis = timeToLive.toMillis();
+        }
+
+        if (jitterRatio > 0) {
+            millis += millis * jitterRatio * ThreadLocalRandom.current().nextDouble();
+        }
+        return Math.max(1, (long) millis);
+    }
+
+    @Override
+    public boolean recordsFrequency() {
+        return true;
+    }
+
+    @Override
+    @NonNull
+    public Duration maxExpiry() {
+        double multiplier = Math.max(1, Math.max(hotMultiplier, coldMultiplier)) * (1 + Math.max(jitterRatio, 0));
+        long millis = (long) (Math.max(timeToLive.toMillis(), nullValueTimeToLive.toMillis()) * multiplier);
+        return Duration.ofMillis(millis);
+    }
+}
@@ -0,0 +1,65 @@
+package com.github.shenjianeng.easycache.core;
+
+import org.checkerframework.checker.nullness.qual.NonNull;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * {@link Cache} 的异步版本
+ *
+ * @author shenjianeng
+ * @date 2026/10/18
+ */
+public interface AsyncCache<K, V> {
+
+    /**
+     * 根据 keys 缓存中获取,结果中不包含缓存中不存在的 key
+     */
+    @NonNull
+    CompletableFuture<Map<K, V>> getIfPresent(@NonNull Iterable<K> keys);
+
+    /**
+     * 根据 key 缓存中获取,缓存中不存在,则结果为null
+     */
+    @NonNull
+    CompletableFuture<V> getIfPresent(@NonNull K key);
+
+    /**
+     * 根据 keys 从缓存中获取,如果缓存中不存在,调用 {@link AsyncMultiCacheLoader#loadCache(java.util.Collection)} 加载数据,并添加到缓存中
+     */
+    @NonNull
+    CompletableFuture<Map<K, V>> getOrLoadIfAbsent(@NonNull Iterable<K> keys);
+
+    /**
+     * 根据 key 从缓存中获取
+     * 如果缓存中不存在,调用 {@link AsyncMultiCacheLoader#loadCache(java.util.Collection)} 加载数据,并添加到缓存中
+     */
+    @NonNull
+    CompletableFuture<V> getOrLoadIfAbsent(@NonNull K key);
+
+    /**
+     * 加入缓存中
+     */
+    @NonNull
+    CompletableFuture<Void> put(@NonNull K key, @Nullable V value);
+
+    /**
+     * 加入缓存中
+     */
+    @NonNull
+    CompletableFuture<Void> put(@NonNull Map<K, V> map);
+
+    /**
+     * 根据 key 清除缓存
+     */
+    @NonNull
+    CompletableFuture<Void> evict(@NonNull K key);
+
+    /**
+     * 根据 keys 清除缓存
+     */
+    @NonNull
+    CompletableFuture<Void> evict(@NonNull Iterable<K> keys);
+}
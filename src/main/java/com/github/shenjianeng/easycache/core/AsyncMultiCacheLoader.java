@@ -0,0 +1,31 @@
+package com.github.shenjianeng.easycache.core;
+
+import org.checkerframework.checker.nullness.qual.NonNull;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
+/**
+ * {@link MultiCacheLoader} 的异步版本
+ *
+ * @author shenjianeng
+ * @date 2026/10/18
+ */
+@FunctionalInterface
+public interface AsyncMultiCacheLoader<K, V> {
+
+    @NonNull
+    CompletableFuture<Map<K, V>> loadCache(@NonNull Collection<K> keys);
+
+    /**
+     * 在 executor 中执行同步的 {@link MultiCacheLoader}
+     */
+    static <K, V> AsyncMultiCacheLoader<K, V> from(MultiCacheLoader<K, V> multiCacheLoader, Executor executor) {
+        Objects.requireNonNull(multiCacheLoader);
+        Objects.requireNonNull(executor);
+        return keys -> CompletableFuture.supplyAsync(() -> multiCacheLoader.loadCache(keys), executor);
+    }
+}
@@ -0,0 +1,28 @@
+package com.github.shenjianeng.easycache.core;
+
+/**
+ * {@link RedisHashCache} 中缓存项的过期方式
+ *
+ * @author shenjianeng
+ * @date 2026/10/18
+ */
+public enum BucketExpiryMode {
+
+    /**
+     * 每个 field 的 value 之前保存过期时间,读取时忽略已过期的 field 并通过 HDEL 删除;
+     * 写入时通过 lua 脚本删除 bucket 中所有已过期的 field,并将 bucket 的过期时间设置为其中最晚的过期时间,
+     * 只被读取或者不再写入的 bucket 在所有 field 过期后被回收
+     * <p>
+     * 写入时需要遍历整个 bucket,bucket 应保持较小,见 {@link RedisHashCacheConfig#getExpectedEntryCount()}
+     * <p>
+     * 过期时间基于各节点的系统时钟
+     */
+    FIELD,
+
+    /**
+     * 只设置 bucket 的过期时间,每次写入都会重置为 timeToLive,同一个 bucket 中的缓存项一起过期
+     * <p>
+     * 不额外占用内存,但 bucket 持续有写入时其中的缓存项可能长时间不过期,只适合通过 evict 保证数据一致的场景
+     */
+    BUCKET
+}
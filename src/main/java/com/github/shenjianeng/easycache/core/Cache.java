@@ -3,6 +3,7 @@ package com.github.shenjianeng.easycache.core;
 import org.checkerframework.checker.nullness.qual.NonNull;
 import org.checkerframework.checker.nullness.qual.Nullable;
 
+import java.util.HashMap;
 import java.util.Map;
 
 /**
@@ -23,6 +24,27 @@ public interface Cache<K, V> {
     @Nullable
     V getIfPresent(@NonNull K key);
 
+    /**
+     * 根据 key 缓存中获取,缓存中不存在,则返回null
+     * 缓存了 null 值时,返回 {@link ValueWrapper#get()} 为 null 的 ValueWrapper
+     */
+    @Nullable
+    default ValueWrapper<V> getWrapperIfPresent(@NonNull K key) {
+        V value = getIfPresent(key);
+        return value == null ? null : ValueWrapper.of(value);
+    }
+
+    /**
+     * 根据 keys 缓存中获取,返回的 map 中只包含缓存中存在的 key(包括缓存了 null 值的 key)
+     */
+    @NonNull
+    default Map<K, ValueWrapper<V>> getWrapperIfPresent(@NonNull Iterable<K> keys) {
+        Map<K, V> values = getIfPresent(keys);
+        Map<K, ValueWrapper<V>> map = new HashMap<>(values.size() * 2);
+        values.forEach((k, v) -> map.put(k, ValueWrapper.of(v)));
+        return map;
+    }
+
     /**
      * 根据 key 从缓存中获取,如果缓存中不存在,调用 {@link MultiCacheLoader#loadCache(java.util.Collection)} 加载数据,并添加到缓存中
      */
@@ -37,9 +59,9 @@ public interface Cache<K, V> {
     V getOrLoadIfAbsent(@NonNull K key);
 
     /**
-     * 加入缓存中
+     * 加入缓存中,是否缓存 null 值由具体实现决定
      */
-    void put(@NonNull K key, V value);
+    void put(@NonNull K key, @Nullable V value);
 
     /**
      * 加入缓存中
@@ -0,0 +1,251 @@
+package com.github.shenjianeng.easycache.core;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.Closeable;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * 消费数据变更事件,使对应的缓存失效
+ * <p>
+ * 后台线程从 {@link ChangeEventSource} 批量读取事件,按 keyPrefix 找到注册的缓存,合并同一批事件中重复的 key 后
+ * 调用 {@link Cache#evict(Iterable)},或者 evict 后立即通过 {@link Cache#getOrLoadIfAbsent(Iterable)} 重新加载;
+ * 处理完成后才确认事件,处理失败时等待 retryInterval 后重新处理,因此缓存失效不会因为异常或者重启而丢失;
+ * 各个 keyPrefix 独立处理和确认,一个缓存处理失败不影响其他缓存,同一个事件处理 maxAttempts 次仍然失败时确认并丢弃
+ * <p>
+ * 没有注册的 keyPrefix 的事件直接确认,多个服务可以共用同一个事件来源
+ *
+ * @author shenjianeng
+ * @date 2026/10/18
+ */
+@Slf4j
+public class CacheInvalidator implements Closeable {
+
+    private final String name;
+
+    private final ChangeEventSource source;
+
+    private final CacheInvalidatorConfig config;
+
+    private final Map<String, Binding<?>> bindings = new ConcurrentHashMap<>();
+
+    private final AtomicLong processedEvents = new AtomicLong();
+
+    private final AtomicLong discardedEvents = new AtomicLong();
+
+    /**
+     * 处理失败的事件 id 和已经处理的次数,只在消费线程中访问
+     */
+    private final Map<String, Integer> attempts = Maps.newHashMap();
+
+    private final Thread consumer;
+
+    private volatile boolean closed;
+
+
+    public CacheInvalidator(String name, ChangeEventSource source, CacheInvalidatorConfig config) {
+        if (config.getBatchSize() <= 0) {
+            throw new IllegalArgumentException("batchSize 必须大于 0");
+        }
+        if (config.getMaxAttempts() <= 0) {
+            throw new IllegalArgumentException("maxAttempts 必须大于 0");
+        }
+        this.name = Objects.requireNonNull(name);
+        this.source = Objects.requireNonNull(source);
+        this.config = config;
+
+        this.consumer = new Thread(this::consumeLoop, "easy-cache-invalidator-" + name);
+        this.consumer.setDaemon(true);
+    }
+
+
+    /**
+     * @param keyMapper 将事件中的 key 转换为缓存的 key,转换失败的事件会被忽略
+     */
+    public <K> CacheInvalidator register(String keyPrefix, Cache<K, ?> cache, Function<String, K> keyMapper) {
+        Binding<K> binding = new Binding<>(Objects.requireNonNull(cache), Objects.requireNonNull(keyMapper));
+        if (bindings.putIfAbsent(Objects.requireNonNull(keyPrefix), binding) != null) {
+            throw new IllegalArgumentException("keyPrefix 已经注册: " + keyPrefix);
+        }
+        return this;
+    }
+
+    /**
+     * 开始消费事件,应在注册所有缓存之后调用
+     */
+    public void start() {
+        consumer.start();
+    }
+
+    /**
+     * @return 已经确认的事件数量,包括被丢弃的事件
+     */
+    public long getProcessedEvents() {
+        return processedEvents.get();
+    }
+
+    /**
+     * @return 处理 maxAttempts 次仍然失败而被丢弃的事件数量
+     */
+    public long getDiscardedEvents() {
+        return discardedEvents.get();
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        consumer.interrupt();
+        try {
+            consumer.join(config.getRetryInterval().toMillis() + 1000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        source.close();
+    }
+
+    private void consumeLoop() {
+        while (!closed) {
+            long waitMillis;
+            try {
+                List<ChangeEvent> events = source.poll(config.getBatchSize());
+                if (!events.isEmpty()) {
+                    List<ChangeEvent> completed = apply(events);
+                    source.acknowledge(completed);
+                    processedEvents.addAndGet(completed.size());
+                    if (completed.size() == events.size()) {
+                        continue;
+                    }
+                    waitMillis = config.getRetryInterval().toMillis();
+                } else {
+                    waitMillis = config.getPollInterval().toMillis();
+                }
+            } catch (RuntimeException e) {
+                if (closed) {
+                    return;
+                }
+                log.warn("consume change events failed, name: {}", name, e);
+                waitMillis = config.getRetryInterval().toMillis();
+            }
+
+            try {
+                TimeUnit.MILLISECONDS.sleep(waitMillis);
+            } catch (InterruptedException e) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * 同一批事件按 keyPrefix 分组处理,没有注册的 keyPrefix 的事件直接视为处理完成
+     *
+     * @return 可以确认的事件,包括处理成功和被丢弃的事件
+     */
+    private List<ChangeEvent> apply(List<ChangeEvent> events) {
+        List<ChangeEvent> completed = Lists.newArrayListWithExpectedSize(events.size());
+        Map<String, List<ChangeEvent>> groups = Maps.newLinkedHashMap();
+        for (ChangeEvent event : events) {
+            if (bindings.containsKey(event.getKeyPrefix())) {
+                groups.computeIfAbsent(event.getKeyPrefix(), prefix -> Lists.newArrayList()).add(event);
+            } else {
+                completed.add(event);
+            }
+        }
+
+        groups.forEach((keyPrefix, group) -> {
+            try {
+                apply(keyPrefix, group);
+            } catch (RuntimeException e) {
+                if (closed) {
+                    throw e;
+                }
+                log.warn("apply change events failed, name: {}, keyPrefix: {}", name, keyPrefix, e);
+                completed.addAll(discardExhausted(keyPrefix, group));
+                return;
+            }
+            group.forEach(event -> attempts.remove(event.getId()));
+            completed.addAll(group);
+        });
+        return completed;
+    }
+
+    /**
+     * 同一个 keyPrefix 中的 key 合并,需要重新加载的 key 不再单独 evict
+     */
+    private void apply(String keyPrefix, List<ChangeEvent> events) {
+        Set<String> evictKeys = Sets.newLinkedHashSet();
+        Set<String> reloadKeys = Sets.newLinkedHashSet();
+        for (ChangeEvent event : events) {
+            (event.getAction() == ChangeEvent.Action.RELOAD ? reloadKeys : evictKeys).add(event.getKey());
+        }
+        bindings.get(keyPrefix).apply(keyPrefix, Sets.difference(evictKeys, reloadKeys), reloadKeys);
+    }
+
+    /**
+     * 记录处理失败的次数
+     *
+     * @return 达到 maxAttempts 需要丢弃的事件
+     */
+    private List<ChangeEvent> discardExhausted(String keyPrefix, List<ChangeEvent> events) {
+        List<ChangeEvent> discarded = Lists.newArrayList();
+        for (ChangeEvent event : events) {
+            int attempt = attempts.merge(event.getId(), 1, Integer::sum);
+            if (attempt >= config.getMaxAttempts()) {
+                attempts.remove(event.getId());
+                discarded.add(event);
+            }
+        }
+        if (!discarded.isEmpty()) {
+            log.error("change events discarded after {} attempts, name: {}, keyPrefix: {}, events: {}",
+                    config.getMaxAttempts(), name, keyPrefix, discarded);
+            discardedEvents.addAndGet(discarded.size());
+        }
+        return discarded;
+    }
+
+    private static class Binding<K> {
+
+        private final Cache<K, ?> cache;
+
+        private final Function<String, K> keyMapper;
+
+        private Binding(Cache<K, ?> cache, Function<String, K> keyMapper) {
+            this.cache = cache;
+            this.keyMapper = keyMapper;
+        }
+
+        private void apply(String keyPrefix, Collection<String> evictKeys, Collection<String> reloadKeys) {
+            List<K> reload = map(keyPrefix, reloadKeys);
+            List<K> evict = map(keyPrefix, evictKeys);
+            evict.addAll(reload);
+            if (!evict.isEmpty()) {
+                cache.evict(evict);
+            }
+            if (!reload.isEmpty()) {
+                cache.getOrLoadIfAbsent(reload);
+            }
+        }
+
+        private List<K> map(String keyPrefix, Collection<String> keys) {
+            List<K> mapped = Lists.newArrayListWithExpectedSize(keys.size());
+            for (String key : keys) {
+                try {
+                    mapped.add(keyMapper.apply(key));
+                } catch (RuntimeException e) {
+                    log.warn("ignore change event with invalid key, keyPrefix: {}, key: {}", keyPrefix, key, e);
+                }
+            }
+            return mapped;
+        }
+    }
+}
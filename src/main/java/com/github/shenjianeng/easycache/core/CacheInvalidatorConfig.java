@@ -0,0 +1,36 @@
+package com.github.shenjianeng.easycache.core;
+
+import lombok.Data;
+
+import java.time.Duration;
+
+/**
+ * {@link CacheInvalidator} 的配置
+ *
+ * @author shenjianeng
+ * @date 2026/10/18
+ */
+@Data
+public class CacheInvalidatorConfig {
+
+    /**
+     * 每次从 {@link ChangeEventSource} 读取的最大事件数量,同一批事件中重复的 key 只处理一次
+     */
+    private int batchSize = 500;
+
+    /**
+     * 没有新事件时,下一次读取前等待的时间
+     */
+    private Duration pollInterval = Duration.ofMillis(100);
+
+    /**
+     * 读取或者处理事件失败后,重试前等待的时间
+     */
+    private Duration retryInterval = Duration.ofSeconds(1);
+
+    /**
+     * 同一个事件最多处理的次数,达到后确认并丢弃该事件,记录 error 日志,避免无法处理的事件一直阻塞后续事件
+     */
+    private int maxAttempts = 5;
+
+}
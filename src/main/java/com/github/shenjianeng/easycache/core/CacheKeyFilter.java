@@ -0,0 +1,42 @@
+package com.github.shenjianeng.easycache.core;
+
+import org.checkerframework.checker.nullness.qual.NonNull;
+
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * 缓存 key 的过滤器(如布隆过滤器),用于在访问 redis 和 {@link MultiCacheLoader} 之前拦截一定不存在的 key
+ * <p>
+ * 使用前需要通过 {@link #rebuild(Iterator)} 写入所有存在的 key,新增的数据需要通过 {@link Cache#put} 写入缓存
+ *
+ * @author shenjianeng
+ * @date 2026/10/18
+ */
+public interface CacheKeyFilter {
+
+    /**
+     * @return false 表示 key 一定不存在
+     */
+    boolean mightContain(@NonNull String key);
+
+    /**
+     * 批量判断,返回值与 keys 的顺序一致
+     */
+    @NonNull
+    default boolean[] mightContain(@NonNull List<String> keys) {
+        boolean[] result = new boolean[keys.size()];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = mightContain(keys.get(i));
+        }
+        return result;
+    }
+
+    void put(@NonNull Collection<String> keys);
+
+    /**
+     * 根据全量的 key 重建过滤器,用于清除已经删除的 key
+     */
+    void rebuild(@NonNull Iterator<String> keys);
+}
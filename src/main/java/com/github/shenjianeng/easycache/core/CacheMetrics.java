@@ -0,0 +1,86 @@
+package com.github.shenjianeng.easycache.core;
+
+import java.util.function.Supplier;
+
+/**
+ * 缓存的监控指标
+ * <p>
+ * 方法在读写缓存的线程中同步调用,实现类需要保证线程安全且开销足够小
+ *
+ * @author shenjianeng
+ * @date 2026/10/18
+ * @see MicrometerCacheMetrics
+ */
+public interface CacheMetrics {
+
+    /**
+     * 不记录任何指标
+     */
+    CacheMetrics NOOP = new CacheMetrics() {
+    };
+
+    /**
+     * @param hits   缓存命中的 key 数量,包括缓存了 null 值的 key
+     * @param misses 缓存未命中的 key 数量
+     */
+    default void recordGets(int hits, int misses) {
+    }
+
+    /**
+     * {@link MultiCacheLoader} 加载成功
+     *
+     * @param keys 本次加载的 key 数量
+     */
+    default void recordLoadSuccess(int keys, long nanos) {
+    }
+
+    /**
+     * {@link MultiCacheLoader} 抛出异常
+     */
+    default void recordLoadFailure(int keys, long nanos) {
+    }
+
+    /**
+     * 调用 {@link MultiCacheLoader} 并通过 {@link #recordLoadSuccess(int, long)} 或 {@link #recordLoadFailure(int, long)} 记录耗时,
+     * 各个 {@link Cache} 实现共用
+     *
+     * @param keys 本次加载的 key 数量
+     */
+    default <T> T recordLoad(int keys, Supplier<T> loader) {
+        long start = System.nanoTime();
+        T result;
+        try {
+            result = loader.get();
+        } catch (RuntimeException | Error e) {
+            recordLoadFailure(keys, System.nanoTime() - start);
+            throw e;
+        }
+        recordLoadSuccess(keys, System.nanoTime() - start);
+        return result;
+    }
+
+    /**
+     * @param keys 删除的 key 数量
+     */
+    default void recordEvictions(int keys) {
+    }
+
+    default void recordEvictAll() {
+    }
+
+    /**
+     * 批量操作的 key 数量
+     *
+     * @param operation get、put、evict
+     */
+    default void recordBatchSize(String operation, int size) {
+    }
+
+    /**
+     * 一次 redis 交互的耗时,pipeline 中的多条命令记为一次
+     *
+     * @param command 命令名称,例如 mget、set
+     */
+    default void recordCommand(String command, long nanos) {
+    }
+}
@@ -0,0 +1,54 @@
+package com.github.shenjianeng.easycache.core;
+
+import lombok.Getter;
+import lombok.ToString;
+
+import java.util.Objects;
+
+/**
+ * 数据源中的数据发生变化的事件,由 {@link CacheInvalidator} 转换为对应缓存的 evict 或者重新加载
+ *
+ * @author shenjianeng
+ * @date 2026/10/18
+ */
+@Getter
+@ToString
+public final class ChangeEvent {
+
+    /**
+     * 事件在 {@link ChangeEventSource} 中的 id,用于确认消费
+     */
+    private final String id;
+
+    /**
+     * 对应缓存的 keyPrefix
+     */
+    private final String keyPrefix;
+
+    /**
+     * 发生变化的 key,由注册缓存时的 keyMapper 转换为缓存的 key
+     */
+    private final String key;
+
+    private final Action action;
+
+    public ChangeEvent(String id, String keyPrefix, String key, Action action) {
+        this.id = Objects.requireNonNull(id);
+        this.keyPrefix = Objects.requireNonNull(keyPrefix);
+        this.key = Objects.requireNonNull(key);
+        this.action = Objects.requireNonNull(action);
+    }
+
+    public enum Action {
+
+        /**
+         * 删除缓存,下次读取时加载
+         */
+        EVICT,
+
+        /**
+         * 删除缓存后立即重新加载,适用于读取频繁的 key
+         */
+        RELOAD
+    }
+}
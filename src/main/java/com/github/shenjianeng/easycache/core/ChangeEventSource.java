@@ -0,0 +1,35 @@
+package com.github.shenjianeng.easycache.core;
+
+import org.checkerframework.checker.nullness.qual.NonNull;
+
+import java.util.List;
+
+/**
+ * {@link CacheInvalidator} 的事件来源
+ * <p>
+ * 事件在 {@link #acknowledge(List)} 之前视为未消费,未确认的事件在下一次 {@link #poll(int)} 或者重启后应当重新返回,
+ * 保证缓存失效不会丢失;同一个事件可能被处理多次
+ *
+ * @author shenjianeng
+ * @date 2026/10/18
+ * @see RedisStreamChangeEventSource
+ */
+public interface ChangeEventSource extends AutoCloseable {
+
+    /**
+     * 只在 {@link CacheInvalidator} 的消费线程中调用
+     *
+     * @return 最多 maxEvents 个事件,没有新事件时返回空列表
+     */
+    @NonNull
+    List<ChangeEvent> poll(int maxEvents);
+
+    /**
+     * 确认 {@link #poll(int)} 返回的事件已经处理完成
+     */
+    void acknowledge(@NonNull List<ChangeEvent> events);
+
+    @Override
+    default void close() {
+    }
+}
@@ -0,0 +1,117 @@
+package com.github.shenjianeng.easycache.core;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.Duration;
+import java.util.Objects;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * redis 的熔断器
+ * <p>
+ * 连续失败(包括耗时超过 slowCallThreshold 的调用)达到 failureThreshold 次后打开,打开期间不再访问 redis;
+ * 后台线程按 probeInterval 执行探测,探测成功且耗时未超过 slowCallThreshold 时关闭
+ *
+ * @author shenjianeng
+ * @date 2026/10/18
+ */
+@Slf4j
+class CircuitBreaker {
+
+    private final String name;
+
+    private final int failureThreshold;
+
+    private final long slowCallNanos;
+
+    private final Duration probeInterval;
+
+    private final Runnable probe;
+
+    private final AtomicInteger consecutiveFailures = new AtomicInteger();
+
+    private volatile boolean open;
+
+    private ScheduledExecutorService scheduler;
+
+    private ScheduledFuture<?> probeTask;
+
+    /**
+     * @param probe 访问一次 redis,失败时抛出异常
+     */
+    CircuitBreaker(String name, int failureThreshold, Duration slowCallThreshold, Duration probeInterval, Runnable probe) {
+        this.name = name;
+        this.failureThreshold = failureThreshold;
+        this.slowCallNanos = slowCallThreshold.toNanos();
+        this.probeInterval = Objects.requireNonNull(probeInterval);
+        this.probe = Objects.requireNonNull(probe);
+    }
+
+    boolean allowRequest() {
+        return !open;
+    }
+
+    void onSuccess(long elapsedNanos) {
+        if (elapsedNanos > slowCallNanos) {
+            onFailure();
+        } else if (consecutiveFailures.get() != 0) {
+            consecutiveFailures.set(0);
+        }
+    }
+
+    void onFailure() {
+        if (consecutiveFailures.incrementAndGet() >= failureThreshold && !open) {
+            open();
+        }
+    }
+
+    synchronized void shutdown() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
+    }
+
+    private synchronized void open() {
+        if (open) {
+            return;
+        }
+        if (scheduler == null) {
+            scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread thread = new Thread(r, "easy-cache-circuit-breaker-" + name);
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+        if (scheduler.isShutdown()) {
+            return;
+        }
+        open = true;
+        log.warn("circuit breaker opened, name: {}", name);
+        probeTask = scheduler.scheduleWithFixedDelay(this::probe, probeInterval.toNanos(), probeInterval.toNanos(),
+                TimeUnit.NANOSECONDS);
+    }
+
+    private void probe() {
+        long start = System.nanoTime();
+        try {
+            probe.run();
+        } catch (RuntimeException e) {
+            log.debug("circuit breaker probe failed, name: {}", name, e);
+            return;
+        }
+        if (System.nanoTime() - start <= slowCallNanos) {
+            close();
+        }
+    }
+
+    private synchronized void close() {
+        consecutiveFailures.set(0);
+        open = false;
+        probeTask.cancel(false);
+        log.info("circuit breaker closed, name: {}", name);
+    }
+}
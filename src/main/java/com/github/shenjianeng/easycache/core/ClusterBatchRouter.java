@@ -0,0 +1,277 @@
+package com.github.shenjianeng.easycache.core;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import io.lettuce.core.KeyValue;
+import io.lettuce.core.RedisFuture;
+import io.lettuce.core.ScriptOutputType;
+import io.lettuce.core.SetArgs;
+import io.lettuce.core.cluster.SlotHash;
+import io.lettuce.core.cluster.api.StatefulRedisClusterConnection;
+import io.lettuce.core.cluster.api.async.RedisAdvancedClusterAsyncCommands;
+import io.lettuce.core.cluster.api.async.RedisClusterAsyncCommands;
+import io.lettuce.core.cluster.models.partitions.RedisClusterNode;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.data.redis.RedisSystemException;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Function;
+
+/**
+ * redis cluster 下的批量操作
+ * <p>
+ * 按 hash slot 拆分 key,同一个 slot 的 key 通过一条 mget / del 命令发送到所属节点,set 和加载锁的命令逐个发送到所属节点;
+ * 同一个节点的命令在该节点的连接上以 pipeline 的方式发送,不同节点之间并行执行
+ * <p>
+ * 集群拓扑发生变化时,收到 MOVED / ASK 的命令改为通过集群连接重新发送,由 lettuce 处理重定向
+ *
+ * @author shenjianeng
+ * @date 2026/10/18
+ */
+class ClusterBatchRouter {
+
+    private final StatefulRedisClusterConnection<byte[], byte[]> connection;
+
+    private final int batchSize;
+
+    ClusterBatchRouter(StatefulRedisClusterConnection<byte[], byte[]> connection, int batchSize) {
+        this.connection = Objects.requireNonNull(connection);
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * @param ttlMillis 不为 null 时同时获取每个 key 剩余的过期时间
+     * @return Values are returned in the order of the requested keys.
+     */
+    byte[][] mget(byte[][] rawKeys, Long[] ttlMillis) {
+        List<SlotBatch> batches = groupBySlot(rawKeys);
+        List<RedisFuture<List<KeyValue<byte[], byte[]>>>> futures = Lists.newArrayListWithExpectedSize(batches.size());
+        List<List<RedisFuture<Long>>> ttlFutures = ttlMillis == null ? null : Lists.newArrayListWithExpectedSize(batches.size());
+        for (SlotBatch batch : batches) {
+            RedisClusterAsyncCommands<byte[], byte[]> commands = nodeCommands(batch);
+            futures.add(commands.mget(batch.keys));
+            if (ttlFutures != null) {
+                List<RedisFuture<Long>> batchTtlFutures = Lists.newArrayListWithExpectedSize(batch.keys.length);
+                for (byte[] key : batch.keys) {
+                    batchTtlFutures.add(commands.pttl(key));
+                }
+                ttlFutures.add(batchTtlFutures);
+            }
+        }
+
+        long deadline = deadline();
+        byte[][] values = new byte[rawKeys.length][];
+        for (int i = 0; i < batches.size(); i++) {
+            SlotBatch batch = batches.get(i);
+            List<KeyValue<byte[], byte[]>> keyValues = await(futures.get(i), deadline, cluster -> cluster.mget(batch.keys));
+            for (int j = 0; j < batch.indexes.length; j++) {
+                values[batch.indexes[j]] = keyValues.get(j).getValueOrElse(null);
+            }
+            if (ttlFutures != null) {
+                for (int j = 0; j < batch.indexes.length; j++) {
+                    byte[] key = batch.keys[j];
+                    ttlMillis[batch.indexes[j]] = await(ttlFutures.get(i).get(j), deadline, cluster -> cluster.pttl(key));
+                }
+            }
+        }
+        return values;
+    }
+
+    /**
+     * @param expireMillis 每个 key 的过期时间,单位毫秒
+     */
+    void set(List<byte[]> rawKeys, List<byte[]> rawValues, List<Long> expireMillis) {
+        byte[][] keys = rawKeys.toArray(new byte[0][]);
+        List<SlotBatch> batches = groupBySlot(keys);
+        List<List<RedisFuture<String>>> futures = Lists.newArrayListWithExpectedSize(batches.size());
+        for (SlotBatch batch : batches) {
+            RedisClusterAsyncCommands<byte[], byte[]> commands = nodeCommands(batch);
+            List<RedisFuture<String>> batchFutures = Lists.newArrayListWithExpectedSize(batch.keys.length);
+            for (int index : batch.indexes) {
+                batchFutures.add(commands.set(keys[index], rawValues.get(index), SetArgs.Builder.px(expireMillis.get(index))));
+            }
+            futures.add(batchFutures);
+        }
+
+        long deadline = deadline();
+        for (int i = 0; i < batches.size(); i++) {
+            SlotBatch batch = batches.get(i);
+            for (int j = 0; j < batch.indexes.length; j++) {
+                int index = batch.indexes[j];
+                await(futures.get(i).get(j), deadline,
+                        cluster -> cluster.set(keys[index], rawValues.get(index), SetArgs.Builder.px(expireMillis.get(index))));
+            }
+        }
+    }
+
+    void del(List<byte[]> rawKeys) {
+        List<SlotBatch> batches = groupBySlot(rawKeys.toArray(new byte[0][]));
+        List<RedisFuture<Long>> futures = Lists.newArrayListWithExpectedSize(batches.size());
+        for (SlotBatch batch : batches) {
+            futures.add(nodeCommands(batch).del(batch.keys));
+        }
+
+        long deadline = deadline();
+        for (int i = 0; i < batches.size(); i++) {
+            SlotBatch batch = batches.get(i);
+            await(futures.get(i), deadline, cluster -> cluster.del(batch.keys));
+        }
+    }
+
+    /**
+     * SET NX PX,用于获取加载锁
+     *
+     * @return 每个 key 是否设置成功,与请求的顺序相同
+     */
+    List<Object> setIfAbsent(byte[][] rawKeys, byte[] rawValue, long expireMillis) {
+        List<SlotBatch> batches = groupBySlot(rawKeys);
+        List<List<RedisFuture<String>>> futures = Lists.newArrayListWithExpectedSize(batches.size());
+        for (SlotBatch batch : batches) {
+            RedisClusterAsyncCommands<byte[], byte[]> commands = nodeCommands(batch);
+            List<RedisFuture<String>> batchFutures = Lists.newArrayListWithExpectedSize(batch.keys.length);
+            for (byte[] key : batch.keys) {
+                batchFutures.add(commands.set(key, rawValue, SetArgs.Builder.nx().px(expireMillis)));
+            }
+            futures.add(batchFutures);
+        }
+
+        long deadline = deadline();
+        Object[] acquired = new Object[rawKeys.length];
+        for (int i = 0; i < batches.size(); i++) {
+            SlotBatch batch = batches.get(i);
+            for (int j = 0; j < batch.indexes.length; j++) {
+                byte[] key = batch.keys[j];
+                String reply = await(futures.get(i).get(j), deadline,
+                        cluster -> cluster.set(key, rawValue, SetArgs.Builder.nx().px(expireMillis)));
+                acquired[batch.indexes[j]] = "OK".equals(reply);
+            }
+        }
+        return Arrays.asList(acquired);
+    }
+
+    /**
+     * 对每个 key 分别执行只访问该 key 的脚本
+     */
+    void evalEach(byte[][] rawKeys, String script, byte[] arg) {
+        List<SlotBatch> batches = groupBySlot(rawKeys);
+        List<List<RedisFuture<Long>>> futures = Lists.newArrayListWithExpectedSize(batches.size());
+        for (SlotBatch batch : batches) {
+            RedisClusterAsyncCommands<byte[], byte[]> commands = nodeCommands(batch);
+            List<RedisFuture<Long>> batchFutures = Lists.newArrayListWithExpectedSize(batch.keys.length);
+            for (byte[] key : batch.keys) {
+                batchFutures.add(commands.eval(script, ScriptOutputType.INTEGER, new byte[][]{key}, arg));
+            }
+            futures.add(batchFutures);
+        }
+
+        long deadline = deadline();
+        for (int i = 0; i < batches.size(); i++) {
+            SlotBatch batch = batches.get(i);
+            for (int j = 0; j < batch.keys.length; j++) {
+                byte[] key = batch.keys[j];
+                await(futures.get(i).get(j), deadline,
+                        cluster -> cluster.<Long>eval(script, ScriptOutputType.INTEGER, new byte[][]{key}, arg));
+            }
+        }
+    }
+
+    /**
+     * 按 slot 分组,每组最多 batchSize 个 key,同一个节点的分组相邻
+     */
+    private List<SlotBatch> groupBySlot(byte[][] rawKeys) {
+        Map<Integer, List<Integer>> slots = Maps.newHashMap();
+        for (int i = 0; i < rawKeys.length; i++) {
+            slots.computeIfAbsent(SlotHash.getSlot(rawKeys[i]), slot -> Lists.newArrayList()).add(i);
+        }
+
+        Map<String, List<SlotBatch>> nodes = Maps.newLinkedHashMap();
+        slots.forEach((slot, indexes) -> {
+            RedisClusterNode node = connection.getPartitions().getPartitionBySlot(slot);
+            // 拓扑信息中没有该 slot 时,交给集群连接处理
+            String nodeId = node == null ? null : node.getNodeId();
+            for (List<Integer> partition : Lists.partition(indexes, batchSize)) {
+                nodes.computeIfAbsent(nodeId, id -> Lists.newArrayList()).add(new SlotBatch(nodeId, rawKeys, partition));
+            }
+        });
+
+        List<SlotBatch> batches = Lists.newArrayListWithExpectedSize(slots.size());
+        nodes.values().forEach(batches::addAll);
+        return batches;
+    }
+
+    private RedisClusterAsyncCommands<byte[], byte[]> nodeCommands(SlotBatch batch) {
+        if (batch.nodeId == null) {
+            return connection.async();
+        }
+        return connection.getConnection(batch.nodeId).async();
+    }
+
+    private long deadline() {
+        return System.nanoTime() + connection.getTimeout().toNanos();
+    }
+
+    /**
+     * @param redirect 收到 MOVED / ASK 时,通过集群连接重新发送命令
+     */
+    private <T> T await(RedisFuture<T> future, long deadline,
+                        Function<RedisAdvancedClusterAsyncCommands<byte[], byte[]>, RedisFuture<T>> redirect) {
+        try {
+            return get(future, deadline);
+        } catch (ExecutionException e) {
+            String message = e.getCause() == null ? null : e.getCause().getMessage();
+            if (message != null && (message.startsWith("MOVED") || message.startsWith("ASK"))) {
+                try {
+                    return get(redirect.apply(connection.async()), deadline());
+                } catch (ExecutionException redirectFailure) {
+                    throw new RedisSystemException(redirectFailure.getCause().getMessage(), redirectFailure.getCause());
+                }
+            }
+            throw new RedisSystemException(message, e.getCause());
+        }
+    }
+
+    private static <T> T get(RedisFuture<T> future, long deadline) throws ExecutionException {
+        try {
+            return future.get(Math.max(deadline - System.nanoTime(), 0), TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            throw new QueryTimeoutException("redis cluster command timed out", e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RedisSystemException("interrupted while waiting for redis cluster command", e);
+        }
+    }
+
+    /**
+     * 同一个 slot 中的一组 key
+     */
+    private static class SlotBatch {
+
+        /**
+         * 为 null 时通过集群连接发送
+         */
+        private final String nodeId;
+
+        /**
+         * 每个 key 在请求中的位置
+         */
+        private final int[] indexes;
+
+        private final byte[][] keys;
+
+        private SlotBatch(String nodeId, byte[][] rawKeys, List<Integer> indexes) {
+            this.nodeId = nodeId;
+            this.indexes = new int[indexes.size()];
+            this.keys = new byte[indexes.size()][];
+            for (int i = 0; i < this.indexes.length; i++) {
+                this.indexes[i] = indexes.get(i);
+                this.keys[i] = rawKeys[this.indexes[i]];
+            }
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package com.github.shenjianeng.easycache.core;
+
+import org.checkerframework.checker.nullness.qual.NonNull;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+import java.time.Duration;
+import java.util.Objects;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 固定的缓存时间加上 [0, 60) 秒的随机时间,null 值使用单独的缓存时间
+ *
+ * @author shenjianeng
+ * @date 2026/10/18
+ */
+public class DefaultExpiryPolicy<K, V> implements ExpiryPolicy<K, V> {
+
+    private static final int RANDOM_BOUND = 60;
+
+    private final Duration timeToLive;
+
+    private final Duration nullValueTimeToLive;
+
+    public DefaultExpiryPolicy(Duration timeToLive, Duration nullValueTimeToLive) {
+        this.timeToLive = Objects.requireNonNull(timeToLive);
+        this.nullValueTimeToLive = Objects.requireNonNull(nullValueTimeToLive);
+    }
+
+    @Override
+    public long expireAfterWrite(@NonNull K key, @Nullable V value, int frequency) {
+        if (value == null) {
+            return nullValueTimeToLive.toMillis();
+        }
+        return TimeUnit.SECONDS.toMillis(timeToLive.getSeconds() + ThreadLocalRandom.current().nextInt(RANDOM_BOUND));
+    }
+
+    @Override
+    @NonNull
+    public Duration maxExpiry() {
+        return timeToLive.plusSeconds(RANDOM_BOUND);
+    }
+}
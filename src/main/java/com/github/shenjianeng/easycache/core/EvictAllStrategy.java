@@ -0,0 +1,44 @@
+package com.github.shenjianeng.easycache.core;
+
+import org.checkerframework.checker.nullness.qual.NonNull;
+import org.checkerframework.checker.nullness.qual.Nullable;
+import org.springframework.data.redis.connection.RedisConnection;
+
+import java.util.List;
+
+/**
+ * {@link RedisCache#evictAll()} 的实现策略
+ *
+ * @author shenjianeng
+ * @date 2026/10/18
+ * @see KnownKeysEvictAllStrategy
+ * @see GenerationEvictAllStrategy
+ * @see ScanEvictAllStrategy
+ */
+public interface EvictAllStrategy {
+
+    /**
+     * 构建 cache key 时追加在 keyPrefix 之后的命名空间,返回 null 时不追加
+     */
+    @Nullable
+    default String namespace() {
+        return null;
+    }
+
+    /**
+     * 写入缓存时调用,与写入命令在同一个 pipeline 中执行
+     */
+    default void afterPut(@NonNull RedisConnection connection, @NonNull List<byte[]> rawKeys) {
+    }
+
+    /**
+     * 清除缓存时调用,与删除命令在同一个 pipeline 中执行
+     */
+    default void afterEvict(@NonNull RedisConnection connection, @NonNull List<byte[]> rawKeys) {
+    }
+
+    /**
+     * 清除所有缓存
+     */
+    void evictAll();
+}
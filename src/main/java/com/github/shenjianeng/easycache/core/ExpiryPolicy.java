@@ -0,0 +1,37 @@
+package com.github.shenjianeng.easycache.core;
+
+import org.checkerframework.checker.nullness.qual.NonNull;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+import java.time.Duration;
+
+/**
+ * 计算每个缓存项的过期时间
+ *
+ * @author shenjianeng
+ * @date 2026/10/18
+ * @see DefaultExpiryPolicy
+ * @see AdaptiveExpiryPolicy
+ */
+public interface ExpiryPolicy<K, V> {
+
+    /**
+     * @param value     缓存 null 值时为 null
+     * @param frequency 当前节点最近对该 key 的访问次数估计值,{@link #recordsFrequency()} 为 false 时始终为 0
+     * @return 过期时间,单位毫秒
+     */
+    long expireAfterWrite(@NonNull K key, @Nullable V value, int frequency);
+
+    /**
+     * 是否需要统计 key 的访问次数,统计会在每次读取时产生少量开销
+     */
+    default boolean recordsFrequency() {
+        return false;
+    }
+
+    /**
+     * {@link #expireAfterWrite(Object, Object, int)} 可能返回的最大值,用于设置 {@link KnownKeysEvictAllStrategy} 的过期时间
+     */
+    @NonNull
+    Duration maxExpiry();
+}
@@ -0,0 +1,78 @@
+package com.github.shenjianeng.easycache.core;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Count-Min Sketch,估计每个 key 最近的访问次数
+ * <p>
+ * 累计记录 width * 10 次后所有计数减半,使估计值反映最近的访问情况;
+ * 计数器的更新没有加锁,并发时可能少记,只用于估计冷热程度
+ *
+ * @author shenjianeng
+ * @date 2026/10/18
+ */
+class FrequencySketch {
+
+    private static final int DEPTH = 4;
+
+    private static final int[] SEEDS = {0x97cb3127, 0xb6a4c9e1, 0x2b1f5a4d, 0x5c3e8f17};
+
+    private final int[][] table;
+
+    private final int mask;
+
+    private final int sampleSize;
+
+    private final AtomicInteger size = new AtomicInteger();
+
+    /**
+     * @param width 每一行的计数器数量,向上取整为 2 的幂
+     */
+    FrequencySketch(int width) {
+        int capacity = Integer.highestOneBit(Math.max(width, 16) - 1) << 1;
+        this.table = new int[DEPTH][capacity];
+        this.mask = capacity - 1;
+        this.sampleSize = capacity * 10;
+    }
+
+    void increment(Object key) {
+        int hash = spread(key.hashCode());
+        for (int i = 0; i < DEPTH; i++) {
+            table[i][index(hash, i)]++;
+        }
+        if (size.incrementAndGet() >= sampleSize) {
+            reset();
+        }
+    }
+
+    int frequency(Object key) {
+        int hash = spread(key.hashCode());
+        int frequency = Integer.MAX_VALUE;
+        for (int i = 0; i < DEPTH; i++) {
+            frequency = Math.min(frequency, table[i][index(hash, i)]);
+        }
+        return frequency;
+    }
+
+    private int index(int hash, int row) {
+        int h = (hash ^ SEEDS[row]) * SEEDS[row];
+        return (h ^ (h >>> 16)) & mask;
+    }
+
+    private synchronized void reset() {
+        if (size.get() < sampleSize) {
+            return;
+        }
+        for (int[] row : table) {
+            for (int i = 0; i < row.length; i++) {
+                row[i] >>>= 1;
+            }
+        }
+        size.set(0);
+    }
+
+    private static int spread(int hash) {
+        int h = hash * 0x9e3779b9;
+        return h ^ (h >>> 16);
+    }
+}
@@ -0,0 +1,126 @@
+package com.github.shenjianeng.easycache.core;
+
+import lombok.extern.slf4j.Slf4j;
+import org.checkerframework.checker.nullness.qual.NonNull;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.serializer.RedisSerializer;
+
+import java.io.Serializable;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Objects;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 在 cache key 中加入版本号,evictAll 时只需要递增版本号,旧版本的缓存等待自然过期
+ * <p>
+ * 版本号在本地缓存 refreshInterval 时间,其他节点最多延迟 refreshInterval 后感知到 evictAll。
+ * 只有第一次调用 {@link #namespace()} 时同步读取版本号,之后到期时由后台线程刷新,读取路径不等待 redis
+ *
+ * @author shenjianeng
+ * @date 2026/10/18
+ */
+@Slf4j
+@SuppressWarnings("unchecked")
+public class GenerationEvictAllStrategy implements EvictAllStrategy {
+
+    private static final String GENERATION_NAME_SUFFIX = "$$generation$$";
+    private static final String NAMESPACE_PREFIX = "g";
+
+    /**
+     * 所有实例共用的刷新线程,每次刷新只执行一条 get 命令
+     */
+    private static final Executor REFRESH_EXECUTOR = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "easy-cache-generation-refresh");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final RedisTemplate<String, Serializable> redisTemplate;
+
+    private final byte[] rawGenerationName;
+
+    private final long refreshIntervalNanos;
+
+    private volatile String namespace;
+
+    private volatile long nextRefreshNanos;
+
+    private final AtomicBoolean refreshing = new AtomicBoolean();
+
+    /**
+     * 当前节点执行 evictAll 的次数,evictAll 之前读取到的版本号不会覆盖 evictAll 之后的版本号
+     */
+    private final AtomicLong evictions = new AtomicLong();
+
+    public GenerationEvictAllStrategy(String keyPrefix, RedisTemplate<String, Serializable> redisTemplate) {
+        this(keyPrefix, redisTemplate, Duration.ofSeconds(1));
+    }
+
+    public GenerationEvictAllStrategy(String keyPrefix, RedisTemplate<String, Serializable> redisTemplate, Duration refreshInterval) {
+        this.redisTemplate = Objects.requireNonNull(redisTemplate);
+        RedisSerializer<String> keySerializer = (RedisSerializer<String>) redisTemplate.getKeySerializer();
+        this.rawGenerationName = keySerializer.serialize(Objects.requireNonNull(keyPrefix) + GENERATION_NAME_SUFFIX);
+        this.refreshIntervalNanos = refreshInterval.toNanos();
+    }
+
+    @Override
+    @NonNull
+    public String namespace() {
+        String current = namespace;
+        if (current == null) {
+            return refresh();
+        }
+        if (System.nanoTime() - nextRefreshNanos >= 0 && refreshing.compareAndSet(false, true)) {
+            try {
+                REFRESH_EXECUTOR.execute(() -> {
+                    try {
+                        refresh();
+                    } catch (RuntimeException e) {
+                        // 刷新失败时继续使用当前的版本号,refreshInterval 之后再次尝试
+                        nextRefreshNanos = System.nanoTime() + refreshIntervalNanos;
+                        log.warn("refresh generation failed", e);
+                    } finally {
+                        refreshing.set(false);
+                    }
+                });
+            } catch (RuntimeException e) {
+                refreshing.set(false);
+                throw e;
+            }
+        }
+        return current;
+    }
+
+    @Override
+    public void evictAll() {
+        Long generation = redisTemplate.execute((RedisCallback<Long>) connection -> connection.incr(rawGenerationName));
+        synchronized (this) {
+            evictions.incrementAndGet();
+            namespace = toNamespace(Objects.requireNonNull(generation));
+            nextRefreshNanos = System.nanoTime() + refreshIntervalNanos;
+        }
+    }
+
+    private String refresh() {
+        long evictionCount = evictions.get();
+        byte[] rawGeneration = redisTemplate.execute((RedisCallback<byte[]>) connection -> connection.get(rawGenerationName));
+        String current = toNamespace(rawGeneration == null ? 0 : Long.parseLong(new String(rawGeneration, StandardCharsets.UTF_8)));
+        synchronized (this) {
+            if (evictions.get() != evictionCount && namespace != null) {
+                return namespace;
+            }
+            namespace = current;
+            nextRefreshNanos = System.nanoTime() + refreshIntervalNanos;
+        }
+        return current;
+    }
+
+    private static String toNamespace(long generation) {
+        return NAMESPACE_PREFIX + generation;
+    }
+}
@@ -0,0 +1,27 @@
+package com.github.shenjianeng.easycache.core;
+
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * 当前节点检测到的热点 key
+ *
+ * @author shenjianeng
+ * @date 2026/10/18
+ */
+@Getter
+@ToString
+public final class HotKey<K> {
+
+    private final K key;
+
+    /**
+     * 最近的访问次数估计值
+     */
+    private final int frequency;
+
+    HotKey(K key, int frequency) {
+        this.key = key;
+        this.frequency = frequency;
+    }
+}
@@ -0,0 +1,105 @@
+package com.github.shenjianeng.easycache.core;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.google.common.collect.Lists;
+
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * 热点 key 的本地副本
+ * <p>
+ * 访问次数达到阈值的 key 从 redis 读取后保存在本地,在 timeToLive 内直接返回本地副本,不再访问 redis;
+ * 当前节点的 put / evict 在写入 redis 前后都会清除本地副本,其他节点的修改最多延迟 timeToLive 后可见
+ *
+ * @author shenjianeng
+ * @date 2026/10/18
+ */
+class HotKeyCache<K> {
+
+    private static final int INVALIDATION_STRIPES = 64;
+
+    private final FrequencySketch frequencySketch;
+
+    private final int threshold;
+
+    /**
+     * 值为 redis 中的值,缓存了 null 值时为 RedisCache 的 NULL_VALUE
+     */
+    private final com.github.benmanes.caffeine.cache.Cache<K, Object> localCache;
+
+    /**
+     * 按 key 的 hash 值分段记录的失效次数
+     */
+    private final AtomicLongArray invalidations = new AtomicLongArray(INVALIDATION_STRIPES);
+
+    private final AtomicLong clearInvalidations = new AtomicLong();
+
+    HotKeyCache(FrequencySketch frequencySketch, int threshold, int capacity, Duration timeToLive) {
+        this.frequencySketch = Objects.requireNonNull(frequencySketch);
+        this.threshold = threshold;
+        this.localCache = Caffeine.newBuilder().maximumSize(capacity).expireAfterWrite(timeToLive).build();
+    }
+
+    /**
+     * @return 本地副本,不存在时返回 null
+     */
+    Object get(K key) {
+        return localCache.getIfPresent(key);
+    }
+
+    /**
+     * 从 redis 读取之前调用,读取期间发生的失效会改变返回值
+     */
+    long stamp(K key) {
+        return invalidations.get(stripe(key)) + clearInvalidations.get();
+    }
+
+    /**
+     * 从 redis 读取到 value 后调用,访问次数达到阈值时保存本地副本
+     * <p>
+     * 写入本地副本后再检查失效次数:失效先增加失效次数再清除本地副本,
+     * 因此读取期间发生的 put / evict 要么在这里被发现,要么在写入之后清除本地副本
+     *
+     * @param stamp 读取之前的 {@link #stamp(Object)}
+     */
+    void offer(K key, Object value, long stamp) {
+        if (frequencySketch.frequency(key) >= threshold) {
+            localCache.put(key, value);
+            if (stamp(key) != stamp) {
+                localCache.invalidate(key);
+            }
+        }
+    }
+
+    void invalidate(Iterable<K> keys) {
+        keys.forEach(k -> invalidations.incrementAndGet(stripe(k)));
+        localCache.invalidateAll(keys);
+    }
+
+    void invalidateAll() {
+        clearInvalidations.incrementAndGet();
+        localCache.invalidateAll();
+    }
+
+    /**
+     * @return 按访问次数从高到低排列
+     */
+    List<HotKey<K>> hotKeys() {
+        List<HotKey<K>> hotKeys = Lists.newArrayList();
+        for (K key : localCache.asMap().keySet()) {
+            hotKeys.add(new HotKey<>(key, frequencySketch.frequency(key)));
+        }
+        hotKeys.sort(Comparator.comparingInt((HotKey<K> hotKey) -> hotKey.getFrequency()).reversed());
+        return hotKeys;
+    }
+
+    private static int stripe(Object key) {
+        int h = key.hashCode();
+        return (h ^ (h >>> 16)) & (INVALIDATION_STRIPES - 1);
+    }
+}
@@ -0,0 +1,101 @@
+package com.github.shenjianeng.easycache.core;
+
+import com.google.common.collect.Lists;
+import org.checkerframework.checker.nullness.qual.NonNull;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.data.redis.serializer.SerializationException;
+
+import java.io.Serializable;
+import java.time.Duration;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * 通过一个 zset 维护所有已知的 cache key
+ * <p>
+ * 每次写入都需要额外执行 zadd,key 数量很多时 zset 会成为热点 key,建议使用 {@link GenerationEvictAllStrategy} 或 {@link ScanEvictAllStrategy}
+ *
+ * @author shenjianeng
+ * @date 2026/10/18
+ */
+@SuppressWarnings("unchecked")
+public class KnownKeysEvictAllStrategy implements EvictAllStrategy {
+
+    private static final String KNOWN_KEYS_NAME_SUFFIX = "$$knownKeys$$";
+    private static final int RANDOM_BOUND = 60;
+    private static final int DELETE_BATCH_SIZE = 1000;
+
+    private final RedisTemplate<String, Serializable> redisTemplate;
+
+    private final byte[] rawKnownKeysName;
+
+    private final long expireSeconds;
+
+    public KnownKeysEvictAllStrategy(String keyPrefix, RedisTemplate<String, Serializable> redisTemplate, Duration timeToLive) {
+        this.redisTemplate = Objects.requireNonNull(redisTemplate);
+        RedisSerializer<String> keySerializer = (RedisSerializer<String>) redisTemplate.getKeySerializer();
+        this.rawKnownKeysName = keySerializer.serialize(Objects.requireNonNull(keyPrefix) + KNOWN_KEYS_NAME_SUFFIX);
+        this.expireSeconds = timeToLive.getSeconds() + RANDOM_BOUND;
+    }
+
+    @Override
+    public void afterPut(@NonNull RedisConnection connection, @NonNull List<byte[]> rawKeys) {
+        if (rawKeys.isEmpty()) {
+            return;
+        }
+        for (byte[] rawKey : rawKeys) {
+            connection.zAdd(rawKnownKeysName, 0, rawKey);
+        }
+        connection.expire(rawKnownKeysName, expireSeconds);
+    }
+
+    @Override
+    public void afterEvict(@NonNull RedisConnection connection, @NonNull List<byte[]> rawKeys) {
+        if (!rawKeys.isEmpty()) {
+            connection.zRem(rawKnownKeysName, rawKeys.toArray(new byte[0][]));
+        }
+    }
+
+    @Override
+    public void evictAll() {
+        redisTemplate.execute((RedisCallback<Object>) connection -> {
+            Set<byte[]> members = connection.zRangeByScore(rawKnownKeysName, 0, 0);
+            if (members != null && !members.isEmpty()) {
+                List<byte[]> rawKeys = Lists.newArrayListWithExpectedSize(members.size());
+                members.forEach(member -> rawKeys.add(toRawKey(member)));
+                for (List<byte[]> partition : Lists.partition(rawKeys, DELETE_BATCH_SIZE)) {
+                    connection.del(partition.toArray(new byte[0][]));
+                }
+            }
+            connection.del(rawKnownKeysName);
+            return null;
+        });
+    }
+
+    byte[] getRawKnownKeysName() {
+        return rawKnownKeysName;
+    }
+
+    long getExpireSeconds() {
+        return expireSeconds;
+    }
+
+    /**
+     * 旧版本使用 value 序列化方式保存 cache key,这里兼容处理
+     */
+    private byte[] toRawKey(byte[] member) {
+        try {
+            Object cacheKey = redisTemplate.getValueSerializer().deserialize(member);
+            if (cacheKey instanceof String) {
+                return ((RedisSerializer<String>) redisTemplate.getKeySerializer()).serialize((String) cacheKey);
+            }
+        } catch (SerializationException ignored) {
+            // 新版本直接保存序列化后的 cache key
+        }
+        return member;
+    }
+}
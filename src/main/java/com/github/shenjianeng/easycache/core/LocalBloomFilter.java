@@ -0,0 +1,93 @@
+package com.github.shenjianeng.easycache.core;
+
+import com.google.common.hash.BloomFilter;
+import com.google.common.hash.Funnels;
+import org.checkerframework.checker.nullness.qual.NonNull;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.Iterator;
+
+/**
+ * 基于 guava {@link BloomFilter} 的进程内布隆过滤器
+ * <p>
+ * 只记录当前进程写入的 key,仅适用于单节点部署:多个节点共享同一份缓存时,其他节点 put 或加载的 key
+ * 在当前节点会被误判为不存在,直接返回 null,也不会调用 {@link MultiCacheLoader}。
+ * 多节点部署或者与 {@link NearCache} 一起使用时应使用 {@link RedisBloomFilter}
+ *
+ * @author shenjianeng
+ * @date 2026/10/18
+ */
+public class LocalBloomFilter implements CacheKeyFilter {
+
+    private final long expectedInsertions;
+
+    private final double fpp;
+
+    /**
+     * 当前的过滤器和重建过程中的新过滤器作为一个整体替换,重建期间写入的 key 同时写入新旧两个过滤器
+     */
+    private volatile Filters filters;
+
+    /**
+     * @param expectedInsertions 预计写入的 key 数量
+     * @param fpp                期望的误判率
+     */
+    public LocalBloomFilter(long expectedInsertions, double fpp) {
+        this.expectedInsertions = expectedInsertions;
+        this.fpp = fpp;
+        this.filters = new Filters(newBloomFilter(), null);
+    }
+
+    @Override
+    public boolean mightContain(@NonNull String key) {
+        return filters.current.mightContain(key);
+    }
+
+    /**
+     * 写入期间过滤器被替换时再写入一次替换后的过滤器
+     */
+    @Override
+    public void put(@NonNull Collection<String> keys) {
+        Filters written;
+        do {
+            written = filters;
+            for (String key : keys) {
+                written.current.put(key);
+                if (written.rebuilding != null) {
+                    written.rebuilding.put(key);
+                }
+            }
+        } while (filters != written);
+    }
+
+    @Override
+    public synchronized void rebuild(@NonNull Iterator<String> keys) {
+        BloomFilter<String> rebuilding = newBloomFilter();
+        filters = new Filters(filters.current, rebuilding);
+        try {
+            keys.forEachRemaining(rebuilding::put);
+            filters = new Filters(rebuilding, null);
+        } finally {
+            if (filters.rebuilding != null) {
+                filters = new Filters(filters.current, null);
+            }
+        }
+    }
+
+    private BloomFilter<String> newBloomFilter() {
+        return BloomFilter.create(Funnels.stringFunnel(StandardCharsets.UTF_8), expectedInsertions, fpp);
+    }
+
+    private static final class Filters {
+
+        private final BloomFilter<String> current;
+
+        private final BloomFilter<String> rebuilding;
+
+        private Filters(BloomFilter<String> current, BloomFilter<String> rebuilding) {
+            this.current = current;
+            this.rebuilding = rebuilding;
+        }
+    }
+}
@@ -0,0 +1,97 @@
+package com.github.shenjianeng.easycache.core;
+
+import io.lettuce.core.ScriptOutputType;
+import io.lettuce.core.cluster.api.async.RedisClusterAsyncCommands;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.connection.ReturnType;
+import org.springframework.data.redis.core.script.DigestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * 通过 EVALSHA 执行的 lua 脚本
+ * <p>
+ * redis 重启或者主从切换后脚本缓存会丢失,调用方在出现 NOSCRIPT 错误时通过 {@link #load(RedisConnection)} 重新加载后重试,
+ * {@link #execute} 和 {@link #evalShaAsync} 自动处理
+ *
+ * @author shenjianeng
+ * @date 2026/10/18
+ */
+final class LuaScript {
+
+    private final byte[] script;
+
+    private final String sha1;
+
+    LuaScript(String script) {
+        this.script = script.getBytes(StandardCharsets.UTF_8);
+        this.sha1 = DigestUtils.sha1DigestAsHex(script);
+    }
+
+    /**
+     * 在 pipeline 中调用时返回 null
+     */
+    Object evalSha(RedisConnection connection, int numKeys, byte[]... keysAndArgs) {
+        return connection.evalSha(sha1, ReturnType.INTEGER, numKeys, keysAndArgs);
+    }
+
+    /**
+     * 不在 pipeline 中调用,脚本缓存中不存在时加载后重试一次
+     */
+    <T> T execute(RedisConnection connection, ReturnType returnType, int numKeys, byte[]... keysAndArgs) {
+        try {
+            return connection.evalSha(sha1, returnType, numKeys, keysAndArgs);
+        } catch (RuntimeException e) {
+            if (!isNoScript(e)) {
+                throw e;
+            }
+            load(connection);
+            return connection.evalSha(sha1, returnType, numKeys, keysAndArgs);
+        }
+    }
+
+    /**
+     * 通过 lettuce 异步连接执行,脚本缓存中不存在时加载后重试一次
+     */
+    CompletableFuture<Long> evalShaAsync(RedisClusterAsyncCommands<byte[], byte[]> commands, int numKeys, byte[]... keysAndArgs) {
+        byte[][] keys = Arrays.copyOf(keysAndArgs, numKeys);
+        byte[][] args = Arrays.copyOfRange(keysAndArgs, numKeys, keysAndArgs.length);
+        CompletableFuture<Long> future = new CompletableFuture<>();
+        commands.<Long>evalsha(sha1, ScriptOutputType.INTEGER, keys, args).whenComplete((result, e) -> {
+            if (e == null) {
+                future.complete(result);
+            } else if (!isNoScript(e)) {
+                future.completeExceptionally(e);
+            } else {
+                commands.scriptLoad(script)
+                        .thenCompose(ignored -> commands.<Long>evalsha(sha1, ScriptOutputType.INTEGER, keys, args))
+                        .whenComplete((retried, retryError) -> {
+                            if (retryError == null) {
+                                future.complete(retried);
+                            } else {
+                                future.completeExceptionally(retryError);
+                            }
+                        });
+            }
+        });
+        return future;
+    }
+
+    void load(RedisConnection connection) {
+        connection.scriptLoad(script);
+    }
+
+    /**
+     * @return 异常是否由脚本缓存中不存在该脚本引起
+     */
+    static boolean isNoScript(Throwable e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause.getMessage() != null && cause.getMessage().contains("NOSCRIPT")) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,132 @@
+package com.github.shenjianeng.easycache.core;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 基于 micrometer 的 {@link CacheMetrics},所有指标通过 cache 标签区分 keyPrefix
+ * <p>
+ * 引入 spring-boot-starter-actuator 后可以通过 /actuator/metrics 查看
+ *
+ * @author shenjianeng
+ * @date 2026/10/18
+ */
+public class MicrometerCacheMetrics implements CacheMetrics {
+
+    private static final String METRIC_PREFIX = "easycache.";
+
+    /**
+     * batch.size 直方图的桶,覆盖单个 key 到一次 warmUp 的批量大小;比 publishPercentileHistogram 生成的桶少得多
+     */
+    private static final long[] BATCH_SIZE_BUCKETS = {1, 10, 50, 100, 500, 1000, 5000, 10000};
+
+    private final MeterRegistry registry;
+
+    private final Tags tags;
+
+    private final Counter hits;
+
+    private final Counter misses;
+
+    private final Timer loadSuccess;
+
+    private final Timer loadFailure;
+
+    private final DistributionSummary loadBatchSize;
+
+    private final Counter evictions;
+
+    private final Counter evictAlls;
+
+    private final ConcurrentMap<String, DistributionSummary> batchSizes = new ConcurrentHashMap<>();
+
+    private final ConcurrentMap<String, Timer> commands = new ConcurrentHashMap<>();
+
+    public MicrometerCacheMetrics(MeterRegistry registry, String keyPrefix) {
+        this.registry = Objects.requireNonNull(registry);
+        this.tags = Tags.of("cache", Objects.requireNonNull(keyPrefix));
+
+        this.hits = Counter.builder(METRIC_PREFIX + "gets").tags(tags).tag("result", "hit")
+                .description("缓存命中的 key 数量").register(registry);
+        this.misses = Counter.builder(METRIC_PREFIX + "gets").tags(tags).tag("result", "miss")
+                .description("缓存未命中的 key 数量").register(registry);
+        this.loadSuccess = Timer.builder(METRIC_PREFIX + "loads").tags(tags).tag("result", "success")
+                .description("MultiCacheLoader 的耗时").register(registry);
+        this.loadFailure = Timer.builder(METRIC_PREFIX + "loads").tags(tags).tag("result", "failure")
+                .description("MultiCacheLoader 的耗时").register(registry);
+        this.loadBatchSize = batchSize("load");
+        this.evictions = Counter.builder(METRIC_PREFIX + "evictions").tags(tags)
+                .description("删除的 key 数量").register(registry);
+        this.evictAlls = Counter.builder(METRIC_PREFIX + "evict.all").tags(tags)
+                .description("evictAll 的调用次数").register(registry);
+    }
+
+    @Override
+    public void recordGets(int hits, int misses) {
+        if (hits > 0) {
+            this.hits.increment(hits);
+        }
+        if (misses > 0) {
+            this.misses.increment(misses);
+        }
+    }
+
+    @Override
+    public void recordLoadSuccess(int keys, long nanos) {
+        loadSuccess.record(nanos, TimeUnit.NANOSECONDS);
+        loadBatchSize.record(keys);
+    }
+
+    @Override
+    public void recordLoadFailure(int keys, long nanos) {
+        loadFailure.record(nanos, TimeUnit.NANOSECONDS);
+        loadBatchSize.record(keys);
+    }
+
+    @Override
+    public void recordEvictions(int keys) {
+        evictions.increment(keys);
+    }
+
+    @Override
+    public void recordEvictAll() {
+        evictAlls.increment();
+    }
+
+    @Override
+    public void recordBatchSize(String operation, int size) {
+        DistributionSummary summary = batchSizes.get(operation);
+        if (summary == null) {
+            summary = batchSizes.computeIfAbsent(operation, this::batchSize);
+        }
+        summary.record(size);
+    }
+
+    @Override
+    public void recordCommand(String command, long nanos) {
+        // 先 get 再 computeIfAbsent,避免 jdk8 中 computeIfAbsent 在 key 已存在时仍然加锁
+        Timer timer = commands.get(command);
+        if (timer == null) {
+            timer = commands.computeIfAbsent(command, c -> Timer.builder(METRIC_PREFIX + "redis.commands").tags(tags)
+                    .tag("command", c).description("redis 交互的耗时").register(registry));
+        }
+        timer.record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * 按 {@link #BATCH_SIZE_BUCKETS} 发布直方图,多个节点的数据可以聚合后计算分布
+     */
+    private DistributionSummary batchSize(String operation) {
+        return DistributionSummary.builder(METRIC_PREFIX + "batch.size").tags(tags).tag("operation", operation)
+                .sla(BATCH_SIZE_BUCKETS)
+                .description("批量操作的 key 数量").register(registry);
+    }
+}
@@ -0,0 +1,382 @@
+package com.github.shenjianeng.easycache.core;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.io.ByteArrayDataInput;
+import com.google.common.io.ByteArrayDataOutput;
+import com.google.common.io.ByteStreams;
+import lombok.extern.slf4j.Slf4j;
+import org.checkerframework.checker.nullness.qual.NonNull;
+import org.checkerframework.checker.nullness.qual.Nullable;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+
+import java.io.Closeable;
+import java.io.Serializable;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * 二级缓存: 本地缓存(L1) + 远程缓存(L2)
+ * <p>
+ * put / evict / evictAll 时通过 redis pub/sub 通知其他节点清除本地缓存
+ * <p>
+ * 从远程缓存读取到的值写入本地缓存之后,如果读取期间收到了同一个 key 的失效消息,则清除刚写入的值,避免本地缓存一直保留旧值
+ * <p>
+ * 本地缓存以 {@link RedisCache.RedisKeyGenerator} 生成的字符串作为 key,失效消息中同样只传递该字符串,
+ * 收到消息时不反序列化任何对象;同一个 name 的所有节点需要使用相同的 keyGenerator
+ *
+ * @author shenjianeng
+ * @date 2026/10/18
+ */
+@Slf4j
+@SuppressWarnings("unchecked")
+public class NearCache<K extends Serializable, V> implements Cache<K, V>, Closeable {
+
+    private static final String INVALIDATION_CHANNEL_SUFFIX = "$$invalidation$$";
+
+    private static final int INVALIDATION_STRIPES = 64;
+
+    /**
+     * 当前节点的唯一标识,忽略自己发出的失效消息
+     */
+    private final String nodeId = UUID.randomUUID().toString();
+
+    /**
+     * key 为 keyGenerator 生成的字符串
+     */
+    private final com.github.benmanes.caffeine.cache.Cache<String, V> localCache;
+
+    private final RedisCache.RedisKeyGenerator<K> keyGenerator;
+
+    private final Cache<K, V> remoteCache;
+
+    private final RedisTemplate<String, Serializable> redisTemplate;
+
+    private final RedisMessageListenerContainer listenerContainer;
+
+    private final String channel;
+
+    private final MessageListener invalidationListener = this::onInvalidation;
+
+    /**
+     * 按 key 的 hash 值分段记录的失效次数
+     */
+    private final AtomicLongArray invalidations = new AtomicLongArray(INVALIDATION_STRIPES);
+
+    /**
+     * 清除所有本地缓存的次数
+     */
+    private final AtomicLong clearInvalidations = new AtomicLong();
+
+
+    public NearCache(String name, Cache<K, V> remoteCache, RedisTemplate<String, Serializable> redisTemplate,
+                     RedisMessageListenerContainer listenerContainer, long maximumSize, Duration timeToLive) {
+
+        this(name, remoteCache, redisTemplate, listenerContainer,
+                Caffeine.newBuilder().maximumSize(maximumSize).expireAfterWrite(timeToLive));
+    }
+
+    /**
+     * remoteCache 为 {@link RedisCache} 时使用与其相同的 keyGenerator,否则使用 {@link RedisCache.DefaultRedisKeyGenerator}
+     *
+     * @param localCacheBuilder 本地缓存的构建器,可以自定义容量、权重等淘汰策略,key 为 keyGenerator 生成的字符串
+     */
+    public NearCache(String name, Cache<K, V> remoteCache, RedisTemplate<String, Serializable> redisTemplate,
+                     RedisMessageListenerContainer listenerContainer, Caffeine<Object, Object> localCacheBuilder) {
+
+        this(name, remoteCache, redisTemplate, listenerContainer, localCacheBuilder,
+                remoteCache instanceof RedisCache ? ((RedisCache<K, V>) remoteCache).getKeyGenerator()
+                        : RedisCache.DefaultRedisKeyGenerator.INSTANCE);
+    }
+
+    /**
+     * @param keyGenerator 生成本地缓存和失效消息中的 key,不同的 key 必须生成不同的字符串
+     */
+    public NearCache(String name, Cache<K, V> remoteCache, RedisTemplate<String, Serializable> redisTemplate,
+                     RedisMessageListenerContainer listenerContainer, Caffeine<Object, Object> localCacheBuilder,
+                     RedisCache.RedisKeyGenerator<K> keyGenerator) {
+
+        this.remoteCache = Objects.requireNonNull(remoteCache);
+        this.keyGenerator = Objects.requireNonNull(keyGenerator);
+        this.redisTemplate = Objects.requireNonNull(redisTemplate);
+        this.listenerContainer = Objects.requireNonNull(listenerContainer);
+        this.localCache = localCacheBuilder.build();
+        this.channel = Objects.requireNonNull(name) + INVALIDATION_CHANNEL_SUFFIX;
+
+        listenerContainer.addMessageListener(invalidationListener, new ChannelTopic(channel));
+    }
+
+
+    @Override
+    @NonNull
+    public Map<K, V> getIfPresent(@NonNull Iterable<K> keys) {
+        return doGet(keys, false);
+    }
+
+    @Override
+    @Nullable
+    public V getIfPresent(@NonNull K key) {
+        return doGet(key, false);
+    }
+
+    @Override
+    @Nullable
+    public ValueWrapper<V> getWrapperIfPresent(@NonNull K key) {
+        V value = localCache.getIfPresent(keyGenerator.generate(key));
+        if (value != null) {
+            return ValueWrapper.of(value);
+        }
+
+        long stamp = invalidationStamp(key);
+        ValueWrapper<V> wrapper = remoteCache.getWrapperIfPresent(key);
+        if (wrapper != null && wrapper.get() != null) {
+            putLocal(key, wrapper.get(), stamp);
+        }
+        return wrapper;
+    }
+
+    @Override
+    @NonNull
+    public Map<K, ValueWrapper<V>> getWrapperIfPresent(@NonNull Iterable<K> keys) {
+        List<K> missedKeys = Lists.newArrayList();
+        Map<K, V> localValues = getAllLocal(keys, missedKeys);
+
+        Map<K, ValueWrapper<V>> map = Maps.newHashMapWithExpectedSize(localValues.size() + missedKeys.size());
+        localValues.forEach((k, v) -> map.put(k, ValueWrapper.of(v)));
+        if (!missedKeys.isEmpty()) {
+            Map<K, Long> stamps = invalidationStamps(missedKeys);
+            remoteCache.getWrapperIfPresent(missedKeys).forEach((k, wrapper) -> {
+                if (wrapper.get() != null) {
+                    putLocal(k, wrapper.get(), stamps.get(k));
+                }
+                map.put(k, wrapper);
+            });
+        }
+        return map;
+    }
+
+    @Override
+    @NonNull
+    public Map<K, V> getOrLoadIfAbsent(@NonNull Iterable<K> keys) {
+        return doGet(keys, true);
+    }
+
+    @Override
+    @Nullable
+    public V getOrLoadIfAbsent(@NonNull K key) {
+        return doGet(key, true);
+    }
+
+    @Override
+    public void put(@NonNull K key, V value) {
+        remoteCache.put(key, value);
+        String localKey = keyGenerator.generate(key);
+        invalidateLocal(localKey);
+        if (value != null) {
+            localCache.put(localKey, value);
+        }
+        publish(ImmutableList.of(key));
+    }
+
+    @Override
+    public void put(@NonNull Map<K, V> map) {
+        if (map.isEmpty()) {
+            return;
+        }
+        remoteCache.put(map);
+        map.forEach((k, v) -> {
+            String localKey = keyGenerator.generate(k);
+            invalidateLocal(localKey);
+            if (v != null) {
+                localCache.put(localKey, v);
+            }
+        });
+        publish(Lists.newArrayList(map.keySet()));
+    }
+
+    @Override
+    public void evict(@NonNull K key) {
+        remoteCache.evict(key);
+        invalidateLocal(keyGenerator.generate(key));
+        publish(ImmutableList.of(key));
+    }
+
+    @Override
+    public void evict(@NonNull Iterable<K> keys) {
+        remoteCache.evict(keys);
+        keys.forEach(k -> invalidateLocal(keyGenerator.generate(k)));
+        publish(Lists.newArrayList(keys));
+    }
+
+    @Override
+    public void evictAll() {
+        remoteCache.evictAll();
+        invalidateAllLocal();
+        publish(null);
+    }
+
+    /**
+     * 取消订阅失效消息
+     */
+    @Override
+    public void close() {
+        listenerContainer.removeMessageListener(invalidationListener);
+    }
+
+    private V doGet(K key, boolean loadIfAbsent) {
+        V value = localCache.getIfPresent(keyGenerator.generate(key));
+        if (value != null) {
+            return value;
+        }
+
+        long stamp = invalidationStamp(key);
+        value = loadIfAbsent ? remoteCache.getOrLoadIfAbsent(key) : remoteCache.getIfPresent(key);
+        if (value != null) {
+            putLocal(key, value, stamp);
+        }
+        return value;
+    }
+
+    private Map<K, V> doGet(Iterable<K> keys, boolean loadIfAbsent) {
+        List<K> missedKeys = Lists.newArrayList();
+        Map<K, V> localValues = getAllLocal(keys, missedKeys);
+        if (missedKeys.isEmpty()) {
+            return localValues;
+        }
+
+        Map<K, Long> stamps = invalidationStamps(missedKeys);
+        Map<K, V> remoteValues = loadIfAbsent ? remoteCache.getOrLoadIfAbsent(missedKeys) : remoteCache.getIfPresent(missedKeys);
+        remoteValues.forEach((k, v) -> putLocal(k, v, stamps.get(k)));
+
+        Map<K, V> map = Maps.newHashMapWithExpectedSize(localValues.size() + remoteValues.size());
+        map.putAll(localValues);
+        map.putAll(remoteValues);
+        return map;
+    }
+
+    /**
+     * @param missedKeys 收集本地缓存中不存在的 key
+     */
+    private Map<K, V> getAllLocal(Iterable<K> keys, List<K> missedKeys) {
+        Map<K, V> localValues = Maps.newHashMap();
+        for (K key : keys) {
+            V value = localCache.getIfPresent(keyGenerator.generate(key));
+            if (value == null) {
+                missedKeys.add(key);
+            } else {
+                localValues.put(key, value);
+            }
+        }
+        return localValues;
+    }
+
+    /**
+     * 写入本地缓存后再检查失效次数:失效消息先增加失效次数再清除本地缓存,
+     * 因此读取期间发生的失效要么在这里被发现,要么在写入之后清除本地缓存
+     *
+     * @param stamp 读取远程缓存之前的 {@link #invalidationStamp(Object)}
+     */
+    private void putLocal(K key, V value, long stamp) {
+        String localKey = keyGenerator.generate(key);
+        localCache.put(localKey, value);
+        if (invalidationStamp(localKey) != stamp) {
+            localCache.invalidate(localKey);
+        }
+    }
+
+    private void invalidateLocal(String key) {
+        invalidations.incrementAndGet(stripe(key));
+        localCache.invalidate(key);
+    }
+
+    private void invalidateAllLocal() {
+        clearInvalidations.incrementAndGet();
+        localCache.invalidateAll();
+    }
+
+    private long invalidationStamp(K key) {
+        return invalidationStamp(keyGenerator.generate(key));
+    }
+
+    private long invalidationStamp(String key) {
+        return invalidations.get(stripe(key)) + clearInvalidations.get();
+    }
+
+    private Map<K, Long> invalidationStamps(Collection<K> keys) {
+        Map<K, Long> stamps = Maps.newHashMapWithExpectedSize(keys.size());
+        keys.forEach(k -> stamps.put(k, invalidationStamp(k)));
+        return stamps;
+    }
+
+    private static int stripe(Object key) {
+        int h = key.hashCode();
+        return (h ^ (h >>> 16)) & (INVALIDATION_STRIPES - 1);
+    }
+
+    /**
+     * 消息格式: nodeId、key 的数量(-1 表示清除所有本地缓存)、每个 key 的长度和 keyGenerator 生成的字符串按 UTF-8 编码的结果
+     *
+     * @param keys 为 null 时表示清除所有本地缓存
+     */
+    private void publish(List<K> keys) {
+        ByteArrayDataOutput out = ByteStreams.newDataOutput();
+        out.writeUTF(nodeId);
+        out.writeInt(keys == null ? -1 : keys.size());
+        if (keys != null) {
+            for (K key : keys) {
+                byte[] rawKey = keyGenerator.generate(key).getBytes(StandardCharsets.UTF_8);
+                out.writeInt(rawKey.length);
+                out.write(rawKey);
+            }
+        }
+
+        byte[] rawChannel = channel.getBytes(StandardCharsets.UTF_8);
+        byte[] body = out.toByteArray();
+        redisTemplate.execute((RedisCallback<Long>) connection -> connection.publish(rawChannel, body));
+    }
+
+    private void onInvalidation(Message message, byte[] pattern) {
+        List<String> keys;
+        try {
+            byte[] body = message.getBody();
+            ByteArrayDataInput in = ByteStreams.newDataInput(body);
+            if (nodeId.equals(in.readUTF())) {
+                return;
+            }
+            int size = in.readInt();
+            if (size < 0) {
+                invalidateAllLocal();
+                return;
+            }
+            // 长度不可能超过消息本身,避免按照错误的长度分配内存
+            keys = Lists.newArrayListWithCapacity(Math.min(size, body.length));
+            for (int i = 0; i < size; i++) {
+                int length = in.readInt();
+                if (length < 0 || length > body.length) {
+                    throw new IllegalStateException("key 的长度不合法: " + length);
+                }
+                byte[] rawKey = new byte[length];
+                in.readFully(rawKey);
+                keys.add(new String(rawKey, StandardCharsets.UTF_8));
+            }
+        } catch (RuntimeException e) {
+            log.warn("unknown invalidation message on channel {}", channel, e);
+            return;
+        }
+        keys.forEach(this::invalidateLocal);
+    }
+}
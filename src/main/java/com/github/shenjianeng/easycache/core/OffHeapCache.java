@@ -0,0 +1,352 @@
+package com.github.shenjianeng.easycache.core;
+
+import com.github.shenjianeng.easycache.core.codec.RedisSerializerValueCodec;
+import com.github.shenjianeng.easycache.core.codec.ValueCodec;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+import lombok.extern.slf4j.Slf4j;
+import org.checkerframework.checker.nullness.qual.NonNull;
+import org.checkerframework.checker.nullness.qual.Nullable;
+import org.springframework.data.redis.serializer.JdkSerializationRedisSerializer;
+import org.springframework.util.SerializationUtils;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.Serializable;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * 不依赖 redis 的本地缓存,序列化后的 value 保存在堆外内存中,适用于单节点部署和测试
+ * <p>
+ * 与 {@link RedisCache} 的批量语义相同,{@link #getOrLoadIfAbsent(Iterable)} 只加载未命中的 key;
+ * key 按 hash 值分配到多个 {@link OffHeapSegment},读取不加锁,容量满时淘汰最早写入的缓存项。
+ * 缓存项只有索引保存在堆内,大容量时不会增加 GC 的负担
+ *
+ * @author shenjianeng
+ * @date 2026/10/18
+ */
+@Slf4j
+@SuppressWarnings("unchecked")
+public class OffHeapCache<K extends Serializable, V> implements Cache<K, V>, Closeable {
+
+    private static final int PERSISTENCE_MAGIC = 0x45434f48;
+
+    private static final int PERSISTENCE_VERSION = 1;
+
+    /**
+     * 从分段中读取到 null 值时的占位对象
+     */
+    private static final Object NULL_VALUE = new Object();
+
+    private final Duration timeToLive;
+
+    private final MultiCacheLoader<K, V> multiCacheLoader;
+
+    private final OffHeapCacheConfig config;
+
+    private final ValueCodec<V> valueCodec;
+
+    private final CacheMetrics metrics;
+
+    private final OffHeapSegment<K>[] segments;
+
+    private final SingleFlight<K, V> singleFlight = new SingleFlight<>();
+
+
+    public OffHeapCache(Duration timeToLive, MultiCacheLoader<K, V> multiCacheLoader) {
+        this(timeToLive, multiCacheLoader, new OffHeapCacheConfig());
+    }
+
+    public OffHeapCache(Duration timeToLive, MultiCacheLoader<K, V> multiCacheLoader, OffHeapCacheConfig config) {
+        this.timeToLive = Objects.requireNonNull(timeToLive);
+        this.multiCacheLoader = Objects.requireNonNull(multiCacheLoader);
+        this.config = Objects.requireNonNull(config);
+        this.valueCodec = config.getValueCodec() != null ? (ValueCodec<V>) config.getValueCodec()
+                : new RedisSerializerValueCodec<>(new JdkSerializationRedisSerializer());
+        this.metrics = config.getMetrics() != null ? config.getMetrics() : CacheMetrics.NOOP;
+
+        if (config.getSegmentCount() <= 0) {
+            throw new IllegalArgumentException("segmentCount 必须大于 0");
+        }
+        long segmentCapacity = config.getMaxBytes() / config.getSegmentCount();
+        if (segmentCapacity <= 0 || segmentCapacity > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("每个分段的大小(maxBytes / segmentCount)必须大于 0 并且不超过 2GB");
+        }
+        this.segments = new OffHeapSegment[config.getSegmentCount()];
+        for (int i = 0; i < segments.length; i++) {
+            segments[i] = new OffHeapSegment<>((int) segmentCapacity);
+        }
+
+        if (config.getPersistenceFile() != null && Files.exists(config.getPersistenceFile())) {
+            restore(config.getPersistenceFile());
+        }
+    }
+
+
+    @Override
+    @NonNull
+    public Map<K, V> getIfPresent(@NonNull Iterable<K> keys) {
+        return doGetOrLoadIfAbsent(keys, false);
+    }
+
+    @Override
+    @Nullable
+    public V getIfPresent(@NonNull K key) {
+        return doGetOrLoadIfAbsent(Collections.singletonList(key), false).get(key);
+    }
+
+    @Override
+    @Nullable
+    public ValueWrapper<V> getWrapperIfPresent(@NonNull K key) {
+        return getWrapperIfPresent(Collections.singletonList(key)).get(key);
+    }
+
+    @Override
+    @NonNull
+    public Map<K, ValueWrapper<V>> getWrapperIfPresent(@NonNull Iterable<K> keys) {
+        List<K> keysList = Lists.newArrayList(keys);
+        Map<K, Object> values = read(keysList);
+        metrics.recordGets(values.size(), keysList.size() - values.size());
+
+        Map<K, ValueWrapper<V>> map = Maps.newHashMapWithExpectedSize(values.size());
+        values.forEach((k, v) -> map.put(k, ValueWrapper.of(v == NULL_VALUE ? null : (V) v)));
+        return map;
+    }
+
+    @Override
+    @NonNull
+    public Map<K, V> getOrLoadIfAbsent(@NonNull Iterable<K> keys) {
+        return doGetOrLoadIfAbsent(keys, true);
+    }
+
+    @Override
+    @Nullable
+    public V getOrLoadIfAbsent(@NonNull K key) {
+        return doGetOrLoadIfAbsent(Collections.singletonList(key), true).get(key);
+    }
+
+    @Override
+    public void put(@NonNull K key, @Nullable V value) {
+        if (value != null || config.isCacheNullValues()) {
+            put(Collections.singletonMap(key, value));
+        }
+    }
+
+    @Override
+    public void put(@NonNull Map<K, V> map) {
+        metrics.recordBatchSize("put", map.size());
+        long now = System.currentTimeMillis();
+        map.forEach((k, v) -> {
+            if (k != null && (v != null || config.isCacheNullValues())) {
+                write(k, v, now);
+            }
+        });
+    }
+
+    @Override
+    public void evict(@NonNull K key) {
+        segment(key).remove(key);
+        metrics.recordEvictions(1);
+    }
+
+    @Override
+    public void evict(@NonNull Iterable<K> keys) {
+        int count = 0;
+        for (K key : keys) {
+            segment(key).remove(key);
+            count++;
+        }
+        metrics.recordBatchSize("evict", count);
+        metrics.recordEvictions(count);
+    }
+
+    @Override
+    public void evictAll() {
+        for (OffHeapSegment<K> segment : segments) {
+            segment.clear();
+        }
+        metrics.recordEvictAll();
+    }
+
+    /**
+     * @return 缓存项的数量,可能包含已过期但还没有删除的缓存项
+     */
+    public long size() {
+        long size = 0;
+        for (OffHeapSegment<K> segment : segments) {
+            size += segment.size();
+        }
+        return size;
+    }
+
+    /**
+     * 配置了 persistenceFile 时,将未过期的缓存项写入文件
+     */
+    @Override
+    public void close() {
+        if (config.getPersistenceFile() != null) {
+            persist(config.getPersistenceFile());
+        }
+    }
+
+    private Map<K, V> doGetOrLoadIfAbsent(Iterable<K> keys, boolean loadIfAbsent) {
+        List<K> keysList = keys instanceof List ? (List<K>) keys : Lists.newArrayList(keys);
+        metrics.recordBatchSize("get", keysList.size());
+        Map<K, Object> values = read(keysList);
+        metrics.recordGets(values.size(), keysList.size() - values.size());
+
+        Map<K, V> map = Maps.newHashMapWithExpectedSize(keysList.size());
+        Set<K> missedKeys = null;
+        for (K k : keysList) {
+            Object v = values.get(k);
+            if (v == null) {
+                if (loadIfAbsent) {
+                    if (missedKeys == null) {
+                        missedKeys = Sets.newLinkedHashSet();
+                    }
+                    missedKeys.add(k);
+                }
+            } else if (v != NULL_VALUE) {
+                map.put(k, (V) v);
+            }
+        }
+
+        if (missedKeys != null) {
+            map.putAll(singleFlight.load(missedKeys, this::loadAndPut));
+        }
+        return map;
+    }
+
+    private Map<K, V> loadAndPut(Set<K> keys) {
+        Map<K, V> missValueMap = metrics.recordLoad(keys.size(), () -> multiCacheLoader.loadCache(keys));
+
+        long now = System.currentTimeMillis();
+        for (K k : keys) {
+            V v = missValueMap.get(k);
+            if (v != null || config.isCacheNullValues()) {
+                write(k, v, now);
+            }
+        }
+        return missValueMap;
+    }
+
+    /**
+     * @return 只包含缓存中存在的 key,缓存了 null 值的 key 对应的值为 {@link #NULL_VALUE}
+     */
+    private Map<K, Object> read(List<K> keys) {
+        if (keys.isEmpty()) {
+            return Collections.emptyMap();
+        }
+
+        long now = System.currentTimeMillis();
+        Map<K, Object> values = Maps.newHashMapWithExpectedSize(keys.size());
+        for (K key : keys) {
+            byte[] rawValue = segment(key).get(key, now);
+            if (rawValue == OffHeapSegment.NULL_VALUE) {
+                values.put(key, NULL_VALUE);
+            } else if (rawValue != null) {
+                V value = valueCodec.decode(rawValue);
+                if (value != null) {
+                    values.put(key, value);
+                }
+            }
+        }
+        return values;
+    }
+
+    private void write(K key, V value, long now) {
+        long expireAt = now + (value == null ? config.getNullValueTimeToLive() : timeToLive).toMillis();
+        if (!segment(key).put(key, value == null ? null : valueCodec.encode(value), expireAt)) {
+            log.debug("value is larger than segment capacity, key: {}", key);
+        }
+    }
+
+    private OffHeapSegment<K> segment(K key) {
+        int h = key.hashCode();
+        return segments[Math.floorMod(h ^ (h >>> 16), segments.length)];
+    }
+
+    /**
+     * 先写入临时文件,完成后替换原文件
+     */
+    private void persist(Path file) {
+        Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+        long now = System.currentTimeMillis();
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp)))) {
+            out.writeInt(PERSISTENCE_MAGIC);
+            out.writeInt(PERSISTENCE_VERSION);
+            for (OffHeapSegment<K> segment : segments) {
+                segment.forEach(now, (key, value, expireAt) -> {
+                    try {
+                        byte[] rawKey = SerializationUtils.serialize(key);
+                        out.writeInt(rawKey.length);
+                        out.write(rawKey);
+                        out.writeLong(expireAt);
+                        out.writeInt(value == null ? -1 : value.length);
+                        if (value != null) {
+                            out.write(value);
+                        }
+                    } catch (IOException e) {
+                        throw new IllegalStateException(e);
+                    }
+                });
+            }
+            out.writeInt(-1);
+        } catch (IOException | RuntimeException e) {
+            log.warn("persist off-heap cache failed, file: {}", file, e);
+            return;
+        }
+
+        try {
+            Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            log.warn("persist off-heap cache failed, file: {}", file, e);
+        }
+    }
+
+    /**
+     * 文件损坏或者版本不一致时放弃恢复,已经恢复的缓存项仍然保留
+     */
+    private void restore(Path file) {
+        long now = System.currentTimeMillis();
+        int restored = 0;
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            if (in.readInt() != PERSISTENCE_MAGIC || in.readInt() != PERSISTENCE_VERSION) {
+                log.warn("ignore unknown off-heap cache file, file: {}", file);
+                return;
+            }
+            for (int keyLength = in.readInt(); keyLength >= 0; keyLength = in.readInt()) {
+                byte[] rawKey = new byte[keyLength];
+                in.readFully(rawKey);
+                long expireAt = in.readLong();
+                int valueLength = in.readInt();
+                byte[] value = null;
+                if (valueLength >= 0) {
+                    value = new byte[valueLength];
+                    in.readFully(value);
+                }
+                if (expireAt > now) {
+                    K key = (K) SerializationUtils.deserialize(rawKey);
+                    segment(key).put(key, value, expireAt);
+                    restored++;
+                }
+            }
+        } catch (IOException | RuntimeException e) {
+            log.warn("restore off-heap cache failed, file: {}", file, e);
+        }
+        log.info("restored off-heap cache, file: {}, entries: {}", file, restored);
+    }
+}
@@ -0,0 +1,55 @@
+package com.github.shenjianeng.easycache.core;
+
+import com.github.shenjianeng.easycache.core.codec.ValueCodec;
+import lombok.Data;
+
+import java.nio.file.Path;
+import java.time.Duration;
+
+/**
+ * {@link OffHeapCache} 的可选配置
+ *
+ * @author shenjianeng
+ * @date 2026/10/18
+ */
+@Data
+public class OffHeapCacheConfig {
+
+    /**
+     * 堆外内存的总大小(字节),平均分配给各个分段,写满后淘汰最早写入的缓存项;
+     * 受 JVM 参数 -XX:MaxDirectMemorySize 限制
+     */
+    private long maxBytes = 256L * 1024 * 1024;
+
+    /**
+     * 分段数量,每个分段有独立的写锁,单个分段的大小不能超过 2GB
+     */
+    private int segmentCount = 16;
+
+    /**
+     * 是否缓存 null 值
+     */
+    private boolean cacheNullValues = false;
+
+    /**
+     * null 值的缓存时间
+     */
+    private Duration nullValueTimeToLive = Duration.ofMinutes(1);
+
+    /**
+     * value 的编解码方式,为 null 时使用 JDK 序列化
+     */
+    private ValueCodec<?> valueCodec;
+
+    /**
+     * 持久化文件,不为 null 时创建缓存时从该文件恢复未过期的缓存项,{@link OffHeapCache#close()} 时写入该文件;
+     * key 使用 JDK 序列化保存
+     */
+    private Path persistenceFile;
+
+    /**
+     * 监控指标,为 null 时不记录
+     */
+    private CacheMetrics metrics;
+
+}
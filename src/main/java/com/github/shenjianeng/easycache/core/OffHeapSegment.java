@@ -0,0 +1,241 @@
+package com.github.shenjianeng.easycache.core;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.StampedLock;
+
+/**
+ * {@link OffHeapCache} 的一个分段,value 按写入顺序追加到堆外的环形缓冲区中,索引保存在堆内
+ * <p>
+ * 缓冲区写满时从最早写入的记录开始覆盖(FIFO),被覆盖的记录同时从索引中删除;覆盖和删除不需要整理内存。
+ * 每条记录至少占用 {@link #MIN_RECORD_LENGTH} 字节,缓存项的数量受缓冲区大小限制,null 值和很小的 value 也会被淘汰。
+ * 写入持有写锁,读取使用 {@link StampedLock} 的乐观读,复制完成后校验期间没有写入,失败时再加读锁重试
+ *
+ * @author shenjianeng
+ * @date 2026/10/18
+ */
+final class OffHeapSegment<K> {
+
+    /**
+     * 缓存了 null 值时 {@link #get(Object, long)} 的返回值
+     */
+    static final byte[] NULL_VALUE = new byte[0];
+
+    /**
+     * 每条记录在缓冲区中至少占用的字节数,近似于索引中每个缓存项的开销
+     */
+    static final int MIN_RECORD_LENGTH = 32;
+
+    /**
+     * records 中失效的记录超过有效记录时整理 records,少量的失效记录不需要整理
+     */
+    private static final int COMPACT_THRESHOLD = 64;
+
+    private final ByteBuffer buffer;
+
+    private final int capacity;
+
+    private final StampedLock lock = new StampedLock();
+
+    private final ConcurrentHashMap<K, Entry<K>> index = new ConcurrentHashMap<>();
+
+    /**
+     * 按写入顺序保存缓冲区中的记录,可能包含已经被覆盖写入、删除或者过期的记录,数量过多时通过 {@link #compact()} 清理,需要持有写锁
+     */
+    private final ArrayDeque<Entry<K>> records = new ArrayDeque<>();
+
+    /**
+     * 下一条记录的逻辑位置,物理位置为对 capacity 取模,需要持有写锁
+     */
+    private long head;
+
+    /**
+     * 最早的未被覆盖的记录的逻辑位置,之前的数据可能已经被覆盖
+     */
+    private long tail;
+
+    OffHeapSegment(int capacity) {
+        this.capacity = capacity;
+        this.buffer = ByteBuffer.allocateDirect(capacity);
+    }
+
+    /**
+     * @return 不存在或者已过期时返回 null,缓存了 null 值时返回 {@link #NULL_VALUE}
+     */
+    byte[] get(K key, long now) {
+        long stamp = lock.tryOptimisticRead();
+        if (stamp != 0) {
+            byte[] value = read(key, now);
+            if (lock.validate(stamp)) {
+                return value;
+            }
+        }
+
+        stamp = lock.readLock();
+        try {
+            return read(key, now);
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * @param value 为 null 时表示缓存 null 值
+     * @return value 超过分段容量时不写入并返回 false
+     */
+    boolean put(K key, byte[] value, long expireAt) {
+        int length = value == null ? 0 : value.length;
+        if (length > capacity) {
+            index.remove(key);
+            return false;
+        }
+        int recordLength = Math.max(length, Math.min(MIN_RECORD_LENGTH, capacity));
+
+        long stamp = lock.writeLock();
+        try {
+            if (records.size() > 2 * index.size() + COMPACT_THRESHOLD) {
+                compact();
+            }
+
+            long start = head;
+            int offset = (int) (start % capacity);
+            // 记录在物理上保持连续,放不下时跳过缓冲区末尾的空间
+            if (offset + recordLength > capacity) {
+                start += capacity - offset;
+                offset = 0;
+            }
+            long end = start + recordLength;
+            while (end - tail > capacity) {
+                Entry<K> oldest = records.pollFirst();
+                if (oldest == null) {
+                    tail = start;
+                    break;
+                }
+                index.remove(oldest.key, oldest);
+                tail = records.isEmpty() ? start : records.peekFirst().start;
+            }
+
+            if (length > 0) {
+                ByteBuffer target = buffer.duplicate();
+                target.position(offset);
+                target.put(value);
+            }
+            Entry<K> entry = new Entry<>(key, start, value == null ? -1 : length, expireAt);
+            records.addLast(entry);
+            index.put(key, entry);
+            head = end;
+            return true;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    void remove(K key) {
+        index.remove(key);
+    }
+
+    void clear() {
+        long stamp = lock.writeLock();
+        try {
+            index.clear();
+            records.clear();
+            tail = head;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    int size() {
+        return index.size();
+    }
+
+    /**
+     * 删除 records 中已经失效的记录,同时删除已过期的缓存项,需要持有写锁
+     * <p>
+     * 最早的有效记录之前的空间可以直接覆盖
+     */
+    private void compact() {
+        long now = System.currentTimeMillis();
+        records.removeIf(entry -> {
+            if (index.get(entry.key) != entry) {
+                return true;
+            }
+            if (entry.expireAt <= now) {
+                index.remove(entry.key, entry);
+                return true;
+            }
+            return false;
+        });
+        tail = records.isEmpty() ? head : records.peekFirst().start;
+    }
+
+    /**
+     * 按写入顺序遍历未过期的缓存项,遍历期间阻塞写入
+     */
+    void forEach(long now, EntryConsumer<K> consumer) {
+        long stamp = lock.readLock();
+        try {
+            for (Entry<K> entry : records) {
+                if (index.get(entry.key) == entry && entry.expireAt > now) {
+                    consumer.accept(entry.key, entry.length < 0 ? null : copy(entry), entry.expireAt);
+                }
+            }
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * 乐观读时可能读取到正在写入的数据,调用方需要校验
+     */
+    private byte[] read(K key, long now) {
+        Entry<K> entry = index.get(key);
+        if (entry == null || entry.start < tail) {
+            return null;
+        }
+        if (entry.expireAt <= now) {
+            index.remove(key, entry);
+            return null;
+        }
+        return entry.length < 0 ? NULL_VALUE : copy(entry);
+    }
+
+    private byte[] copy(Entry<K> entry) {
+        byte[] value = new byte[entry.length];
+        ByteBuffer source = buffer.duplicate();
+        source.position((int) (entry.start % capacity));
+        source.get(value);
+        return value;
+    }
+
+    @FunctionalInterface
+    interface EntryConsumer<K> {
+
+        /**
+         * @param value 缓存了 null 值时为 null
+         */
+        void accept(K key, byte[] value, long expireAt);
+    }
+
+    private static final class Entry<K> {
+
+        private final K key;
+
+        private final long start;
+
+        /**
+         * 缓存了 null 值时为 -1
+         */
+        private final int length;
+
+        private final long expireAt;
+
+        private Entry(K key, long start, int length, long expireAt) {
+            this.key = key;
+            this.start = start;
+            this.length = length;
+            this.expireAt = expireAt;
+        }
+    }
+}
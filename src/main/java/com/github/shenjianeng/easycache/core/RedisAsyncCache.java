@@ -0,0 +1,290 @@
+package com.github.shenjianeng.easycache.core;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+import io.lettuce.core.KeyValue;
+import io.lettuce.core.SetArgs;
+import io.lettuce.core.cluster.api.async.RedisClusterAsyncCommands;
+import org.checkerframework.checker.nullness.qual.NonNull;
+import org.checkerframework.checker.nullness.qual.Nullable;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+
+import java.io.Closeable;
+import java.io.Serializable;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * 基于 lettuce 异步连接的 {@link AsyncCache} 实现
+ * <p>
+ * 与 {@link RedisCache} 使用相同的 key 和 value 格式,二者可以读写同一份缓存数据
+ * 支持 RedisCacheConfig 中的 batchSize、cacheNullValues 和 nullValueTimeToLive
+ * <p>
+ * 通过 connectionFactory 创建时持有一个 {@link RedisConnection},不再使用时需要调用 {@link #close()}
+ * <p>
+ * put 和 evict 与 {@link RedisCache} 经过相同的热点 key、keyFilter、write-behind、熔断器和删除标记的处理;
+ * 读取不使用熔断器和降级缓存,redis 不可用时返回的 future 在客户端超时后以异常结束
+ *
+ * @author shenjianeng
+ * @date 2026/10/18
+ */
+@SuppressWarnings("unchecked")
+public class RedisAsyncCache<K extends Serializable, V> implements AsyncCache<K, V>, Closeable {
+
+    private final RedisCache<K, V> redisCache;
+
+    /**
+     * 通过 connectionFactory 创建时获取的连接,其他情况下为 null
+     */
+    private final RedisConnection connection;
+
+    private final RedisClusterAsyncCommands<byte[], byte[]> commands;
+
+    private final AsyncMultiCacheLoader<K, V> asyncCacheLoader;
+
+    private final SingleFlight<K, V> singleFlight = new SingleFlight<>();
+
+    /**
+     * lettuce 异步连接无法使用 {@link EvictAllStrategy} 中基于 {@link org.springframework.data.redis.connection.RedisConnection} 的回调,
+     * 这里单独处理 {@link KnownKeysEvictAllStrategy}
+     */
+    private final KnownKeysEvictAllStrategy knownKeysStrategy;
+
+    /**
+     * 使用 connectionFactory 共享的 native 连接,需要开启 shareNativeConnection(默认开启)
+     */
+    public RedisAsyncCache(RedisCache<K, V> redisCache, LettuceConnectionFactory connectionFactory,
+                           AsyncMultiCacheLoader<K, V> asyncCacheLoader) {
+
+        this(redisCache, connectionFactory.getConnection(), asyncCacheLoader);
+    }
+
+    /**
+     * @param redisCache 提供 key 前缀、序列化方式和过期时间等配置
+     */
+    public RedisAsyncCache(RedisCache<K, V> redisCache, RedisClusterAsyncCommands<byte[], byte[]> commands,
+                           AsyncMultiCacheLoader<K, V> asyncCacheLoader) {
+
+        this(redisCache, null, commands, asyncCacheLoader);
+    }
+
+    private RedisAsyncCache(RedisCache<K, V> redisCache, RedisConnection connection, AsyncMultiCacheLoader<K, V> asyncCacheLoader) {
+        this(redisCache, connection, (RedisClusterAsyncCommands<byte[], byte[]>) connection.getNativeConnection(), asyncCacheLoader);
+    }
+
+    private RedisAsyncCache(RedisCache<K, V> redisCache, RedisConnection connection,
+                            RedisClusterAsyncCommands<byte[], byte[]> commands, AsyncMultiCacheLoader<K, V> asyncCacheLoader) {
+
+        this.redisCache = Objects.requireNonNull(redisCache);
+        this.connection = connection;
+        this.commands = Objects.requireNonNull(commands);
+        this.asyncCacheLoader = Objects.requireNonNull(asyncCacheLoader);
+        this.knownKeysStrategy = redisCache.getEvictAllStrategy() instanceof KnownKeysEvictAllStrategy
+                ? (KnownKeysEvictAllStrategy) redisCache.getEvictAllStrategy() : null;
+    }
+
+
+    @Override
+    @NonNull
+    public CompletableFuture<Map<K, V>> getIfPresent(@NonNull Iterable<K> keys) {
+        return doGetOrLoadIfAbsent(keys, false);
+    }
+
+    @Override
+    @NonNull
+    public CompletableFuture<V> getIfPresent(@NonNull K key) {
+        return doGetOrLoadIfAbsent(key, false);
+    }
+
+    @Override
+    @NonNull
+    public CompletableFuture<Map<K, V>> getOrLoadIfAbsent(@NonNull Iterable<K> keys) {
+        return doGetOrLoadIfAbsent(keys, true);
+    }
+
+    @Override
+    @NonNull
+    public CompletableFuture<V> getOrLoadIfAbsent(@NonNull K key) {
+        return doGetOrLoadIfAbsent(key, true);
+    }
+
+    @Override
+    @NonNull
+    public CompletableFuture<Void> put(@NonNull K key, @Nullable V value) {
+        if (value == null && !redisCache.getConfig().isCacheNullValues()) {
+            return CompletableFuture.completedFuture(null);
+        }
+        return put(Collections.singletonMap(key, value));
+    }
+
+    /**
+     * 与 {@link RedisCache#put(Map)} 一样清除热点 key 的本地副本、更新 keyFilter,经过 write-behind 队列和熔断器
+     */
+    @Override
+    @NonNull
+    public CompletableFuture<Void> put(@NonNull Map<K, V> map) {
+        return redisCache.putAsync(map, null, 0, this::write);
+    }
+
+    @Override
+    @NonNull
+    public CompletableFuture<Void> evict(@NonNull K key) {
+        return evict(Collections.singletonList(key));
+    }
+
+    /**
+     * 与 {@link RedisCache#evict(Iterable)} 一样清除热点 key 的本地副本、降级缓存和 write-behind 队列中的数据,
+     * 开启 luaScriptsEnabled 时写入删除标记
+     */
+    @Override
+    @NonNull
+    public CompletableFuture<Void> evict(@NonNull Iterable<K> keys) {
+        return redisCache.evictAsync(keys, this::delete);
+    }
+
+    /**
+     * @param tombstones 不为 null 时为加载结果,不覆盖读取之后 evict 写入的删除标记
+     */
+    private CompletableFuture<Void> write(Map<K, V> map, @Nullable Map<K, byte[]> tombstones) {
+        if (redisCache.isScriptedWrite()) {
+            return evalScripts(redisCache.writeScriptCalls(map, tombstones, Lists.newArrayListWithExpectedSize(map.size())));
+        }
+
+        List<CompletableFuture<?>> futures = Lists.newArrayListWithExpectedSize(map.size() * 2 + 1);
+        map.forEach((k, v) -> {
+            if (k != null && (v != null || redisCache.getConfig().isCacheNullValues())) {
+                byte[] rawKey = redisCache.rawCacheKey(k);
+                futures.add(commands.set(rawKey, redisCache.rawValue(v),
+                        SetArgs.Builder.px(redisCache.expireMillis(k, v))).toCompletableFuture());
+                if (knownKeysStrategy != null) {
+                    futures.add(commands.zadd(knownKeysStrategy.getRawKnownKeysName(), 0, rawKey).toCompletableFuture());
+                }
+            }
+        });
+
+        if (!futures.isEmpty() && knownKeysStrategy != null) {
+            futures.add(commands.expire(knownKeysStrategy.getRawKnownKeysName(), knownKeysStrategy.getExpireSeconds()).toCompletableFuture());
+        }
+        return CompletableFuture.allOf(futures.toArray(new CompletableFuture[0]));
+    }
+
+    private CompletableFuture<Void> delete(List<byte[]> rawKeys) {
+        if (redisCache.getConfig().isLuaScriptsEnabled()) {
+            return evalScripts(redisCache.evictScriptCalls(rawKeys));
+        }
+
+        List<CompletableFuture<?>> futures = Lists.newArrayListWithExpectedSize(2);
+        byte[][] keys = rawKeys.toArray(new byte[0][]);
+        futures.add(commands.del(keys).toCompletableFuture());
+        if (knownKeysStrategy != null) {
+            futures.add(commands.zrem(knownKeysStrategy.getRawKnownKeysName(), keys).toCompletableFuture());
+        }
+        return CompletableFuture.allOf(futures.toArray(new CompletableFuture[0]));
+    }
+
+    private CompletableFuture<Void> evalScripts(List<RedisCache.ScriptCall> calls) {
+        List<CompletableFuture<?>> futures = Lists.newArrayListWithExpectedSize(calls.size());
+        for (RedisCache.ScriptCall call : calls) {
+            futures.add(call.script.evalShaAsync(commands, call.numKeys, call.keysAndArgs));
+        }
+        return CompletableFuture.allOf(futures.toArray(new CompletableFuture[0]));
+    }
+
+    /**
+     * 关闭通过 connectionFactory 获取的连接,开启 shareNativeConnection 时共享的 native 连接不会被关闭
+     */
+    @Override
+    public void close() {
+        if (connection != null) {
+            connection.close();
+        }
+    }
+
+    private CompletableFuture<V> doGetOrLoadIfAbsent(K key, boolean loadIfAbsent) {
+        return doGetOrLoadIfAbsent(Collections.singletonList(key), loadIfAbsent).thenApply(map -> map.get(key));
+    }
+
+    private CompletableFuture<Map<K, V>> doGetOrLoadIfAbsent(Iterable<K> keys, boolean loadIfAbsent) {
+        List<K> keysList = keys instanceof List ? (List<K>) keys : Lists.newArrayList(keys);
+
+        Map<K, byte[]> tombstones = Maps.newConcurrentMap();
+        return multiGet(keysList, tombstones).thenCompose(values -> {
+            Map<K, V> map = Maps.newHashMapWithExpectedSize(keysList.size());
+            Set<K> missedKeys = Sets.newLinkedHashSet();
+            for (int i = 0; i < keysList.size(); i++) {
+                ValueWrapper<V> wrapper = values.get(i);
+                if (wrapper == null) {
+                    missedKeys.add(keysList.get(i));
+                } else if (wrapper.get() != null) {
+                    map.put(keysList.get(i), wrapper.get());
+                }
+            }
+
+            if (!loadIfAbsent || missedKeys.isEmpty()) {
+                return CompletableFuture.completedFuture(map);
+            }
+            return singleFlight.loadAsync(missedKeys, ks -> loadAndPut(ks, tombstones)).thenApply(missValueMap -> {
+                map.putAll(missValueMap);
+                return map;
+            });
+        });
+    }
+
+    /**
+     * 与 {@link RedisCache} 一样,加载结果不覆盖读取之后 evict 写入的删除标记
+     *
+     * @param tombstones 读取时看到的删除标记
+     */
+    private CompletableFuture<Map<K, V>> loadAndPut(Set<K> keys, Map<K, byte[]> tombstones) {
+        // 读取之后执行的 evict 写入的删除标记至少保存到该时间
+        long loadDeadline = System.nanoTime() + redisCache.getConfig().getEvictTombstoneTimeToLive().toNanos();
+        return asyncCacheLoader.loadCache(keys).thenCompose(missValueMap -> {
+            Map<K, V> map = missValueMap;
+            if (redisCache.getConfig().isCacheNullValues() && missValueMap.size() < keys.size()) {
+                map = Maps.newHashMapWithExpectedSize(keys.size());
+                for (K k : keys) {
+                    map.put(k, missValueMap.get(k));
+                }
+            }
+            return redisCache.putAsync(map, tombstones, loadDeadline, this::write).thenApply(ignored -> missValueMap);
+        });
+    }
+
+    /**
+     * 按 batchSize 拆分为多条 mget 命令,lettuce 异步连接会自动以 pipeline 的方式发送
+     *
+     * @param tombstones 收集读取到的删除标记
+     * @return 与 keys 的顺序一致,缓存中不存在的 key 对应 null
+     */
+    private CompletableFuture<List<ValueWrapper<V>>> multiGet(List<K> keys, Map<K, byte[]> tombstones) {
+        List<CompletableFuture<List<KeyValue<byte[], byte[]>>>> futures = Lists.newArrayList();
+        for (List<K> partition : Lists.partition(keys, redisCache.getConfig().getBatchSize())) {
+            byte[][] rawKeys = new byte[partition.size()][];
+            for (int i = 0; i < rawKeys.length; i++) {
+                rawKeys[i] = redisCache.rawCacheKey(partition.get(i));
+            }
+            futures.add(commands.mget(rawKeys).toCompletableFuture());
+        }
+
+        return CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).thenApply(ignored -> {
+            List<ValueWrapper<V>> values = Lists.newArrayListWithExpectedSize(keys.size());
+            for (CompletableFuture<List<KeyValue<byte[], byte[]>>> future : futures) {
+                for (KeyValue<byte[], byte[]> keyValue : future.join()) {
+                    byte[] rawValue = keyValue.getValueOrElse(null);
+                    byte[] tombstone = redisCache.tombstoneOf(rawValue);
+                    if (tombstone != null) {
+                        tombstones.put(keys.get(values.size()), tombstone);
+                    }
+                    values.add(redisCache.toValueWrapper(rawValue));
+                }
+            }
+            return values;
+        });
+    }
+}
@@ -0,0 +1,201 @@
+package com.github.shenjianeng.easycache.core;
+
+import com.google.common.collect.Iterators;
+import com.google.common.hash.HashCode;
+import com.google.common.hash.HashFunction;
+import com.google.common.hash.Hashing;
+import com.google.common.primitives.Longs;
+import org.checkerframework.checker.nullness.qual.NonNull;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.connection.ReturnType;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.serializer.RedisSerializer;
+
+import java.io.Serializable;
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * 基于 redis bitmap 的布隆过滤器,多个节点共享同一个过滤器
+ * <p>
+ * 重建期间临时的 bitmap 一直存在,{@link #put(Collection)} 通过 lua 脚本在同一次调用中判断并同时写入新旧两个 bitmap,
+ * 避免重建期间写入的 key 在替换后丢失。两个 bitmap 需要在同一个 slot 中
+ *
+ * @author shenjianeng
+ * @date 2026/10/18
+ */
+@SuppressWarnings("unchecked")
+public class RedisBloomFilter implements CacheKeyFilter {
+
+    private static final String REBUILDING_SUFFIX = "$$rebuilding$$";
+
+    /**
+     * redis bitmap 最大的 bit 数量
+     */
+    private static final long MAX_NUM_BITS = 1L << 32;
+
+    private static final int REBUILD_BATCH_SIZE = 1000;
+
+    private static final HashFunction HASH_FUNCTION = Hashing.murmur3_128();
+
+    /**
+     * KEYS: name, rebuildingName, ARGV: offset...
+     */
+    private static final LuaScript PUT_SCRIPT = new LuaScript(
+            "for i = 1, #ARGV do redis.call('setbit', KEYS[1], ARGV[i], 1) end "
+                    + "if redis.call('exists', KEYS[2]) == 1 then "
+                    + "for i = 1, #ARGV do redis.call('setbit', KEYS[2], ARGV[i], 1) end "
+                    + "end "
+                    + "return 1");
+
+    private final RedisTemplate<String, Serializable> redisTemplate;
+
+    private final byte[] rawName;
+
+    private final byte[] rawRebuildingName;
+
+    private final long numBits;
+
+    private final int numHashFunctions;
+
+    /**
+     * @param name               bitmap 在 redis 中的 key
+     * @param expectedInsertions 预计写入的 key 数量
+     * @param fpp                期望的误判率
+     */
+    public RedisBloomFilter(String name, RedisTemplate<String, Serializable> redisTemplate, long expectedInsertions, double fpp) {
+        if (expectedInsertions <= 0) {
+            throw new IllegalArgumentException("expectedInsertions 必须大于 0");
+        }
+        if (fpp <= 0 || fpp >= 1) {
+            throw new IllegalArgumentException("fpp 必须在 (0, 1) 之间");
+        }
+
+        this.redisTemplate = Objects.requireNonNull(redisTemplate);
+        RedisSerializer<String> keySerializer = (RedisSerializer<String>) redisTemplate.getKeySerializer();
+        this.rawName = keySerializer.serialize(Objects.requireNonNull(name));
+        this.rawRebuildingName = keySerializer.serialize(name + REBUILDING_SUFFIX);
+
+        // 与 guava BloomFilter 相同的计算方式
+        long bits = (long) (-expectedInsertions * Math.log(fpp) / (Math.log(2) * Math.log(2)));
+        if (bits > MAX_NUM_BITS) {
+            throw new IllegalArgumentException("expectedInsertions 过大,超过了 redis bitmap 的最大长度");
+        }
+        this.numBits = Math.max(bits, 1);
+        this.numHashFunctions = Math.max(1, (int) Math.round((double) numBits / expectedInsertions * Math.log(2)));
+    }
+
+    @Override
+    public boolean mightContain(@NonNull String key) {
+        return mightContain(Collections.singletonList(key))[0];
+    }
+
+    @Override
+    @NonNull
+    public boolean[] mightContain(@NonNull List<String> keys) {
+        List<Object> bits = redisTemplate.executePipelined(new RedisCallback<Object>() {
+            @Override
+            public Object doInRedis(RedisConnection connection) throws DataAccessException {
+                for (String key : keys) {
+                    for (long offset : offsets(key)) {
+                        connection.getBit(rawName, offset);
+                    }
+                }
+                return null;
+            }
+        });
+
+        boolean[] result = new boolean[keys.size()];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = true;
+            for (int j = 0; j < numHashFunctions; j++) {
+                if (!Boolean.TRUE.equals(bits.get(i * numHashFunctions + j))) {
+                    result[i] = false;
+                    break;
+                }
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public void put(@NonNull Collection<String> keys) {
+        if (keys.isEmpty()) {
+            return;
+        }
+
+        byte[][] keysAndArgs = new byte[2 + keys.size() * numHashFunctions][];
+        keysAndArgs[0] = rawName;
+        keysAndArgs[1] = rawRebuildingName;
+        int i = 2;
+        for (String key : keys) {
+            for (long offset : offsets(key)) {
+                keysAndArgs[i++] = String.valueOf(offset).getBytes(StandardCharsets.UTF_8);
+            }
+        }
+        redisTemplate.execute((RedisCallback<Object>) connection ->
+                PUT_SCRIPT.execute(connection, ReturnType.INTEGER, 2, keysAndArgs));
+    }
+
+    /**
+     * 先写入临时的 bitmap,完成后通过 rename 替换
+     */
+    @Override
+    public void rebuild(@NonNull Iterator<String> keys) {
+        // 一个字节的 0 即空的 bitmap,覆盖上次重建失败时遗留的数据;之后的 put 会同时写入临时的 bitmap
+        redisTemplate.execute((RedisCallback<Object>) connection -> connection.set(rawRebuildingName, new byte[1]));
+
+        try {
+            Iterator<List<String>> partitions = Iterators.partition(keys, REBUILD_BATCH_SIZE);
+            while (partitions.hasNext()) {
+                setBits(rawRebuildingName, partitions.next());
+            }
+        } catch (RuntimeException e) {
+            redisTemplate.execute((RedisCallback<Object>) connection -> connection.del(rawRebuildingName));
+            throw e;
+        }
+
+        redisTemplate.execute((RedisCallback<Object>) connection -> {
+            connection.rename(rawRebuildingName, rawName);
+            return null;
+        });
+    }
+
+    private void setBits(byte[] name, Collection<String> keys) {
+        if (keys.isEmpty()) {
+            return;
+        }
+        redisTemplate.executePipelined(new RedisCallback<Object>() {
+            @Override
+            public Object doInRedis(RedisConnection connection) throws DataAccessException {
+                for (String key : keys) {
+                    for (long offset : offsets(key)) {
+                        connection.setBit(name, offset, true);
+                    }
+                }
+                return null;
+            }
+        });
+    }
+
+    private long[] offsets(String key) {
+        HashCode hashCode = HASH_FUNCTION.hashString(key, StandardCharsets.UTF_8);
+        byte[] bytes = hashCode.asBytes();
+        long hash1 = Longs.fromBytes(bytes[7], bytes[6], bytes[5], bytes[4], bytes[3], bytes[2], bytes[1], bytes[0]);
+        long hash2 = Longs.fromBytes(bytes[15], bytes[14], bytes[13], bytes[12], bytes[11], bytes[10], bytes[9], bytes[8]);
+
+        long[] offsets = new long[numHashFunctions];
+        long combinedHash = hash1;
+        for (int i = 0; i < numHashFunctions; i++) {
+            offsets[i] = (combinedHash & Long.MAX_VALUE) % numBits;
+            combinedHash += hash2;
+        }
+        return offsets;
+    }
+}
@@ -1,48 +1,164 @@
 package com.github.shenjianeng.easycache.core;
 
-import com.google.common.collect.ImmutableMap;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.shenjianeng.easycache.core.codec.RedisSerializerValueCodec;
+import com.github.shenjianeng.easycache.core.codec.ValueCodec;
+import com.google.common.collect.Iterables;
+import com.google.common.collect.Iterators;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
 import com.google.common.collect.Sets;
+import com.google.common.primitives.Bytes;
+import com.google.common.primitives.Longs;
+import lombok.extern.slf4j.Slf4j;
 import org.checkerframework.checker.nullness.qual.NonNull;
 import org.checkerframework.checker.nullness.qual.Nullable;
 import org.springframework.dao.DataAccessException;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.data.redis.RedisConnectionFailureException;
 import org.springframework.data.redis.connection.RedisConnection;
 import org.springframework.data.redis.connection.RedisStringCommands;
+import org.springframework.data.redis.connection.ReturnType;
 import org.springframework.data.redis.core.RedisCallback;
 import org.springframework.data.redis.core.RedisTemplate;
 import org.springframework.data.redis.core.types.Expiration;
 import org.springframework.data.redis.serializer.RedisSerializer;
-import org.springframework.util.CollectionUtils;
+import org.springframework.data.redis.serializer.StringRedisSerializer;
 
+import java.io.Closeable;
 import java.io.Serializable;
+import java.nio.charset.StandardCharsets;
 import java.time.Duration;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.NoSuchElementException;
 import java.util.Objects;
 import java.util.Set;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
 import java.util.concurrent.ThreadLocalRandom;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.BiConsumer;
+import java.util.function.BiFunction;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 /**
  * @author shenjianeng
  * @date 2020/4/4
  */
+@Slf4j
 @SuppressWarnings("all")
-public class RedisCache<K extends Serializable, V extends Serializable> implements Cache<K, V> {
+public class RedisCache<K extends Serializable, V> implements Cache<K, V>, Closeable {
 
-    private static final int MAX_BATCH_KEY_SIZE = 20;
-    private static final int RANDOM_BOUND = 60;
-    private static final String KNOWN_KEYS_NAME_SUFFIX = "$$knownKeys$$";
+    private static final String LOAD_LOCK_SUFFIX = "$$lock$$";
+    private static final long LOAD_LOCK_RETRY_INTERVAL_MILLIS = 50;
+    /**
+     * 每次只释放一个锁,不同的锁可能不在同一个 slot
+     */
+    private static final String RELEASE_LOAD_LOCK_SCRIPT = "if redis.call('get', KEYS[1]) == ARGV[1] then "
+            + "return redis.call('del', KEYS[1]) end return 0";
+    private static final byte[] RAW_RELEASE_LOAD_LOCK_SCRIPT = RELEASE_LOAD_LOCK_SCRIPT.getBytes(StandardCharsets.UTF_8);
     private static final String SEPARATOR = ":";
+    private static final byte[] RAW_LOAD_LOCK_SUFFIX = LOAD_LOCK_SUFFIX.getBytes(StandardCharsets.UTF_8);
 
-    private final String knownKeysName;
+    /**
+     * 开启 luaScriptsEnabled 时 evict 写入的删除标记由该前缀和 8 个随机字节组成
+     */
+    private static final byte[] TOMBSTONE_PREFIX = "\0evict\0".getBytes(StandardCharsets.UTF_8);
 
-    private final byte[] knownKeysNameBytes;
+    /**
+     * evict 时在 key 加上该后缀的位置同时保存删除标记,保存时间与删除标记相同;
+     * 删除标记被新的加载结果覆盖之后,仍然可以阻止 evict 之前开始的加载写入旧数据
+     */
+    private static final byte[] EVICT_GUARD_SUFFIX = "$$evict$$".getBytes(StandardCharsets.UTF_8);
+    private static final byte[] NO_KNOWN_KEYS = "-1".getBytes(StandardCharsets.US_ASCII);
 
-    private final RedisTemplate<String, Serializable> redisTemplate;
+    /**
+     * 无条件写入,ARGV 依次为每个 key 的 value 和过期时间(毫秒)
+     */
+    private static final LuaScript SET_SCRIPT = new LuaScript("local n = #KEYS "
+            + "local knownKeysExpire = tonumber(ARGV[1]) "
+            + "if knownKeysExpire >= 0 then n = n - 1 end "
+            + "for i = 1, n do "
+            + "redis.call('set', KEYS[i], ARGV[2 * i], 'px', ARGV[2 * i + 1]) "
+            + "if knownKeysExpire >= 0 then redis.call('zadd', KEYS[#KEYS], 0, KEYS[i]) end "
+            + "end "
+            + "if knownKeysExpire >= 0 and n > 0 then redis.call('expire', KEYS[#KEYS], knownKeysExpire) end "
+            + "return n");
+
+    /**
+     * 写入加载结果,ARGV[2] 为删除标记的前缀,ARGV[3] 为 {@link #EVICT_GUARD_SUFFIX},
+     * 之后依次为每个 key 的 value、过期时间和读取时看到的删除标记(没有看到时为空);
+     * key 当前的值是其他的删除标记,或者读取之后执行过 evict(保存的删除标记与读取时看到的不同)时不写入
+     */
+    private static final LuaScript SET_LOADED_SCRIPT = new LuaScript("local n = #KEYS "
+            + "local knownKeysExpire = tonumber(ARGV[1]) "
+            + "if knownKeysExpire >= 0 then n = n - 1 end "
+            + "local prefix = ARGV[2] "
+            + "local written = 0 "
+            + "for i = 1, n do "
+            + "local base = 3 * i "
+            + "local expected = ARGV[base + 3] "
+            + "local current = redis.call('get', KEYS[i]) "
+            + "local guard = redis.call('get', KEYS[i] .. ARGV[3]) "
+            + "if (not current or string.sub(current, 1, #prefix) ~= prefix or current == expected) "
+            + "and (not guard or guard == expected) then "
+            + "redis.call('set', KEYS[i], ARGV[base + 1], 'px', ARGV[base + 2]) "
+            + "if knownKeysExpire >= 0 then redis.call('zadd', KEYS[#KEYS], 0, KEYS[i]) end "
+            + "written = written + 1 "
+            + "end "
+            + "end "
+            + "if knownKeysExpire >= 0 and written > 0 then redis.call('expire', KEYS[#KEYS], knownKeysExpire) end "
+            + "return written");
+
+    /**
+     * 写入删除标记,ARGV[2] 为删除标记,ARGV[3] 为删除标记的过期时间(毫秒),ARGV[4] 为 {@link #EVICT_GUARD_SUFFIX}
+     */
+    static final LuaScript EVICT_SCRIPT = new LuaScript("local n = #KEYS "
+            + "local hasKnownKeys = tonumber(ARGV[1]) >= 0 "
+            + "if hasKnownKeys then n = n - 1 end "
+            + "for i = 1, n do "
+            + "redis.call('set', KEYS[i], ARGV[2], 'px', ARGV[3]) "
+            + "redis.call('set', KEYS[i] .. ARGV[4], ARGV[2], 'px', ARGV[3]) "
+            + "if hasKnownKeys then redis.call('zrem', KEYS[#KEYS], KEYS[i]) end "
+            + "end "
+            + "return n");
+
+    private static final List<LuaScript> SCRIPTS = Arrays.asList(SET_SCRIPT, SET_LOADED_SCRIPT, EVICT_SCRIPT);
 
-    private final Duration timeToLive;
+    /**
+     * 用于检查 keySerializer 是否按 UTF-8 编码字符串
+     */
+    private static final String KEY_SERIALIZER_PROBE = "easy-cache:\u00e9\u4e2d";
+
+    /**
+     * 缓存 null 值时在 redis 中保存的内容
+     */
+    private static final byte[] NULL_VALUE_BYTES = new byte[]{0};
+
+    /**
+     * 从 redis 中读取到 null 值时的占位对象
+     */
+    private static final Object NULL_VALUE = new Object();
+
+    private final RedisTemplate<String, Serializable> redisTemplate;
 
     private final String keyPrefix;
 
@@ -51,9 +167,79 @@ public class RedisCache<K extends Serializable, V extends Serializable> implemen
     private final RedisKeyGenerator<K> keyGenerator;
 
     /**
-     * 是否需要维护已知的key
+     * 使用未指定 nestedKeyPrefixes 的 {@link ScanEvictAllStrategy} 时,写入前检查生成的 key 中不包含 ":"
+     */
+    private final boolean checkKeySeparator;
+
+    /**
+     * 为 null 时不支持 evictAll
+     */
+    private final EvictAllStrategy evictAllStrategy;
+
+    private final RedisCacheConfig config;
+
+    private final ValueCodec<V> valueCodec;
+
+    private final CacheMetrics metrics;
+
+    private final ExpiryPolicy<K, V> expiryPolicy;
+
+    /**
+     * 统计 key 的访问次数,{@link ExpiryPolicy#recordsFrequency()} 为 false 且未开启热点 key 检测时为 null
+     */
+    private final FrequencySketch frequencySketch;
+
+    /**
+     * 为 null 时不开启热点 key 检测
+     */
+    private final HotKeyCache<K> hotKeyCache;
+
+    /**
+     * 为 null 时不开启熔断
+     */
+    private final CircuitBreaker circuitBreaker;
+
+    /**
+     * 熔断时使用的降级缓存,值为 V 或者 {@link #NULL_VALUE};未开启熔断时为 null
+     */
+    private final com.github.benmanes.caffeine.cache.Cache<K, Object> fallbackCache;
+
+    /**
+     * 限制降级模式下同时调用 {@link MultiCacheLoader} 的线程数
+     */
+    private final Semaphore fallbackLoadPermits;
+
+    /**
+     * 限制通过 loaderExecutor 同时调用 {@link MultiCacheLoader} 的数量,未设置 loaderExecutor 时为 null
+     */
+    private final Semaphore loaderPermits;
+
+    /**
+     * 为 null 时不开启 write-behind
+     */
+    private final WriteBehindQueue<K, QueuedValue<V>> writeBehindQueue;
+
+    /**
+     * 为 null 时不是 redis cluster
+     */
+    private final ClusterBatchRouter clusterRouter;
+
+    /**
+     * keySerializer 按 UTF-8 编码字符串时,直接拼接编码后的 key 前缀,避免每次构建完整的 key 字符串
+     */
+    private final boolean rawKeyEnabled;
+
+    /**
+     * 编码后的 key 前缀,namespace 变化时重新编码
+     */
+    private volatile RawKeyPrefix rawKeyPrefix;
+
+    private final SingleFlight<K, V> singleFlight = new SingleFlight<>();
+
+    /**
+     * 正在异步刷新的 key
      */
-    private final boolean maintainKnownKeys;
+    private final Set<K> refreshingKeys = ConcurrentHashMap.newKeySet();
 
 
     public RedisCache(String keyPrefix, RedisTemplate<String, Serializable> redisTemplate,
@@ -72,16 +258,89 @@ public class RedisCache<K extends Serializable, V extends Serializable> implemen
                       Duration timeToLive, MultiCacheLoader<K, V> multiCacheLoader,
                       RedisKeyGenerator<K> keyGenerator, boolean maintainKnownKeys) {
 
+        this(keyPrefix, redisTemplate, timeToLive, multiCacheLoader, keyGenerator, maintainKnownKeys, new RedisCacheConfig());
+    }
+
+    public RedisCache(String keyPrefix, RedisTemplate<String, Serializable> redisTemplate,
+                      Duration timeToLive, MultiCacheLoader<K, V> multiCacheLoader,
+                      RedisKeyGenerator<K> keyGenerator, boolean maintainKnownKeys, RedisCacheConfig config) {
+
         this.redisTemplate = Objects.requireNonNull(redisTemplate);
-        this.timeToLive = Objects.requireNonNull(timeToLive);
         this.keyPrefix = Objects.requireNonNull(keyPrefix);
         this.multiCacheLoader = Objects.requireNonNull(multiCacheLoader);
         this.keyGenerator = Objects.requireNonNull(keyGenerator);
-        this.knownKeysName = keyPrefix + KNOWN_KEYS_NAME_SUFFIX;
+        this.config = Objects.requireNonNull(config);
+        this.expiryPolicy = config.getExpiryPolicy() != null ? (ExpiryPolicy<K, V>) config.getExpiryPolicy()
+                : new DefaultExpiryPolicy<>(Objects.requireNonNull(timeToLive), config.getNullValueTimeToLive());
+        this.frequencySketch = expiryPolicy.recordsFrequency() || config.isHotKeyDetectionEnabled()
+                ? new FrequencySketch(config.getFrequencySketchWidth()) : null;
+        this.hotKeyCache = config.isHotKeyDetectionEnabled() ? new HotKeyCache<>(frequencySketch,
+                config.getHotKeyThreshold(), config.getHotKeyCapacity(), config.getHotKeyLocalTimeToLive()) : null;
+        this.valueCodec = config.getValueCodec() != null ? (ValueCodec<V>) config.getValueCodec()
+                : new RedisSerializerValueCodec<>(redisTemplate.getValueSerializer());
+        this.metrics = config.getMetrics() != null ? config.getMetrics() : CacheMetrics.NOOP;
         RedisSerializer<String> keySerializer = (RedisSerializer<String>) redisTemplate.getKeySerializer();
-        this.knownKeysNameBytes = keySerializer.serialize(knownKeysName);
-        this.maintainKnownKeys = maintainKnownKeys;
+        this.rawKeyEnabled = keySerializer instanceof StringRedisSerializer
+                && Arrays.equals(keySerializer.serialize(KEY_SERIALIZER_PROBE), KEY_SERIALIZER_PROBE.getBytes(StandardCharsets.UTF_8));
+        if (config.getEvictAllStrategy() != null) {
+            this.evictAllStrategy = config.getEvictAllStrategy();
+        } else if (maintainKnownKeys) {
+            this.evictAllStrategy = new KnownKeysEvictAllStrategy(keyPrefix, redisTemplate, expiryPolicy.maxExpiry());
+        } else {
+            this.evictAllStrategy = null;
+        }
+
+        this.checkKeySeparator = evictAllStrategy instanceof ScanEvictAllStrategy
+                && ((ScanEvictAllStrategy) evictAllStrategy).isSeparatorNested()
+                && !(keyGenerator instanceof LongRedisKeyGenerator);
+        if (checkKeySeparator && keyGenerator instanceof HashTagRedisKeyGenerator) {
+            throw new IllegalArgumentException("HashTagRedisKeyGenerator 生成的 key 包含 \":\",使用 ScanEvictAllStrategy 时需要指定 nestedKeyPrefixes");
+        }
 
+        if (config.getBatchSize() <= 0) {
+            throw new IllegalArgumentException("batchSize 必须大于 0");
+        }
+        if (config.getPipelineParallelism() <= 0) {
+            throw new IllegalArgumentException("pipelineParallelism 必须大于 0");
+        }
+        if (config.getPipelineParallelism() > 1 && config.getPipelineExecutor() == null) {
+            throw new IllegalArgumentException("pipelineParallelism 大于 1 时必须设置 pipelineExecutor");
+        }
+        if (config.getRefreshAheadTime() != null && config.getRefreshExecutor() == null) {
+            throw new IllegalArgumentException("开启 refreshAheadTime 时必须设置 refreshExecutor");
+        }
+        if (config.isLuaScriptsEnabled() && config.getClusterConnection() != null) {
+            throw new IllegalArgumentException("luaScriptsEnabled 不支持 redis cluster");
+        }
+        if (config.getLoaderExecutor() != null && config.getLoaderParallelism() <= 0) {
+            throw new IllegalArgumentException("loaderParallelism 必须大于 0");
+        }
+        this.loaderPermits = config.getLoaderExecutor() == null ? null : new Semaphore(config.getLoaderParallelism());
+        this.clusterRouter = config.getClusterConnection() == null ? null
+                : new ClusterBatchRouter(config.getClusterConnection(), config.getBatchSize());
+        if (config.isCircuitBreakerEnabled()) {
+            if (config.getCircuitBreakerFailureThreshold() <= 0 || config.getFallbackLoadConcurrency() <= 0) {
+                throw new IllegalArgumentException("circuitBreakerFailureThreshold 和 fallbackLoadConcurrency 必须大于 0");
+            }
+            this.circuitBreaker = new CircuitBreaker(keyPrefix, config.getCircuitBreakerFailureThreshold(),
+                    config.getCircuitBreakerSlowCallThreshold(), config.getCircuitBreakerProbeInterval(), this::ping);
+            this.fallbackCache = Caffeine.newBuilder().maximumSize(config.getFallbackCacheCapacity())
+                    .expireAfterWrite(config.getFallbackTimeToLive()).build();
+            this.fallbackLoadPermits = new Semaphore(config.getFallbackLoadConcurrency());
+        } else {
+            this.circuitBreaker = null;
+            this.fallbackCache = null;
+            this.fallbackLoadPermits = null;
+        }
+        if (config.isWriteBehindEnabled()) {
+            if (config.getWriteBehindQueueCapacity() <= 0 || config.getWriteBehindBatchSize() <= 0) {
+                throw new IllegalArgumentException("writeBehindQueueCapacity 和 writeBehindBatchSize 必须大于 0");
+            }
+            this.writeBehindQueue = new WriteBehindQueue<>(keyPrefix, this::writeQueued, config.getWriteBehindQueueCapacity(),
+                    config.getWriteBehindBatchSize(), config.getWriteBehindFlushInterval(), config.getWriteBehindOverflowPolicy());
+        } else {
+            this.writeBehindQueue = null;
+        }
     }
 
 
@@ -98,6 +357,50 @@ public class RedisCache<K extends Serializable, V extends Serializable> implemen
         return doGetOrLoadIfAbsent(key, false);
     }
 
+    @Override
+    @Nullable
+    public ValueWrapper<V> getWrapperIfPresent(@NonNull K key) {
+        if (isFiltered(key)) {
+            return ValueWrapper.of(null);
+        }
+        recordAccess(key);
+        Object value = unwrapStale(key, readLatest(key), null);
+        if (value instanceof Tombstone) {
+            value = null;
+        }
+        metrics.recordGets(value == null ? 0 : 1, value == null ? 1 : 0);
+        return value == null ? null : ValueWrapper.of(value == NULL_VALUE ? null : (V) value);
+    }
+
+    @Override
+    @NonNull
+    public Map<K, ValueWrapper<V>> getWrapperIfPresent(@NonNull Iterable<K> keys) {
+        List<K> keysList = asList(keys);
+        Map<K, ValueWrapper<V>> map = Maps.newHashMapWithExpectedSize(keysList.size());
+
+        if (config.getKeyFilter() != null) {
+            List<K> filteredKeys = Lists.newArrayList();
+            keysList = filter(keysList, filteredKeys);
+            filteredKeys.forEach(k -> map.put(k, ValueWrapper.of(null)));
+        }
+
+        metrics.recordBatchSize("get", keysList.size());
+        recordAccess(keysList);
+        List<Object> valueList = readLatest(keysList);
+        List<K> staleKeys = Lists.newArrayList();
+        int hits = 0;
+        for (int i = 0; i < valueList.size(); i++) {
+            Object v = unwrapStale(keysList.get(i), valueList.get(i), staleKeys);
+            if (v != null && !(v instanceof Tombstone)) {
+                map.put(keysList.get(i), ValueWrapper.of(v == NULL_VALUE ? null : (V) v));
+                hits++;
+            }
+        }
+        metrics.recordGets(hits, valueList.size() - hits);
+        refreshAsync(staleKeys);
+        return map;
+    }
+
     @Override
     @NonNull
     public Map<K, V> getOrLoadIfAbsent(@NonNull Iterable<K> keys) {
@@ -112,146 +415,2012 @@ public class RedisCache<K extends Serializable, V extends Serializable> implemen
 
 
     @Override
-    public void put(@NonNull K key, V value) {
-        if (value != null) {
-            // todo support null value
-            put(ImmutableMap.of(key, value));
+    public void put(@NonNull K key, @Nullable V value) {
+        if (value != null || config.isCacheNullValues()) {
+            put(Collections.singletonMap(key, value));
         }
     }
 
 
     @Override
     public void put(@NonNull Map<K, V> map) {
-        RedisSerializer<Serializable> keySerializer = (RedisSerializer<Serializable>) redisTemplate.getKeySerializer();
-        RedisSerializer<Serializable> valueSerializer = (RedisSerializer<Serializable>) redisTemplate.getValueSerializer();
+        put(map, null, 0);
+    }
+
+    /**
+     * @param tombstones   为 null 时无条件写入,否则只在开启 luaScriptsEnabled 时生效,不覆盖读取之后 evict 写入的删除标记
+     * @param loadDeadline tombstones 不为 null 时有效,超过该时间({@link System#nanoTime()})之后删除标记可能已经过期,放弃写入
+     */
+    private void put(Map<K, V> map, @Nullable Map<K, byte[]> tombstones, long loadDeadline) {
+        put(map, tombstones, loadDeadline, (m, t) -> {
+            write(m, t);
+            return CompletableFuture.completedFuture(null);
+        });
+    }
+
+    /**
+     * 供 {@link RedisAsyncCache} 使用,与 {@link #put(Map)} 一样清除热点 key 的本地副本、更新 keyFilter,
+     * 经过 write-behind 队列、熔断器和删除标记的检查
+     *
+     * @param redisWrite 通过异步连接写入 redis,开启 write-behind 或者熔断器打开时不会调用
+     * @return 写入失败并且开启熔断时与同步写入一样只记录日志,正常结束
+     */
+    CompletableFuture<Void> putAsync(Map<K, V> map, @Nullable Map<K, byte[]> tombstones, long loadDeadline,
+                                     BiFunction<Map<K, V>, Map<K, byte[]>, CompletableFuture<Void>> redisWrite) {
+        try {
+            return put(map, tombstones, loadDeadline, (m, t) -> writeAsync(m, t, redisWrite));
+        } catch (RuntimeException e) {
+            return failedFuture(e);
+        }
+    }
+
+    /**
+     * @param write 未开启 write-behind 时调用
+     */
+    private CompletableFuture<Void> put(Map<K, V> map, @Nullable Map<K, byte[]> tombstones, long loadDeadline,
+                                        BiFunction<Map<K, V>, Map<K, byte[]>, CompletableFuture<Void>> write) {
+        metrics.recordBatchSize("put", map.size());
+        if (checkKeySeparator) {
+            for (K k : map.keySet()) {
+                String key = k == null ? null : keyGenerator.generate(k);
+                if (key != null && key.indexOf(':') >= 0) {
+                    throw new IllegalArgumentException("生成的 key 包含 \":\",ScanEvictAllStrategy 的 evictAll 会跳过该 key,"
+                            + "需要指定 nestedKeyPrefixes: " + key);
+                }
+            }
+        }
+        if (tombstones != null && config.isLuaScriptsEnabled() && System.nanoTime() - loadDeadline >= 0) {
+            log.debug("skip stale load result, keyPrefix: {}, size: {}", keyPrefix, map.size());
+            return CompletableFuture.completedFuture(null);
+        }
+        invalidateHotKeys(map.keySet());
+        CompletableFuture<Void> future = CompletableFuture.completedFuture(null);
+        if (writeBehindQueue == null) {
+            try {
+                future = write.apply(map, tombstones);
+            } catch (RuntimeException e) {
+                invalidateHotKeys(map.keySet());
+                throw e;
+            }
+            future = future.whenComplete((ignored, e) -> invalidateHotKeys(map.keySet()));
+        } else {
+            Map<K, QueuedValue<V>> entries = Maps.newHashMapWithExpectedSize(map.size());
+            map.forEach((k, v) -> {
+                if (k != null && (v != null || config.isCacheNullValues())) {
+                    entries.put(k, new QueuedValue<>(v, tombstones != null, tombstones == null ? null : tombstones.get(k), loadDeadline));
+                }
+            });
+            writeBehindQueue.offer(entries);
+        }
+
+        if (config.getKeyFilter() != null) {
+            List<String> filterKeys = Lists.newArrayListWithExpectedSize(map.size());
+            map.forEach((k, v) -> {
+                if (k != null && v != null) {
+                    filterKeys.add(keyGenerator.generate(k));
+                }
+            });
+            config.getKeyFilter().put(filterKeys);
+        }
+        return future;
+    }
+
+    /**
+     * 开启熔断时同时写入降级缓存,redis 不可用或者写入失败时只写入降级缓存
+     */
+    private void write(Map<K, V> map, @Nullable Map<K, byte[]> tombstones) {
+        if (circuitBreaker == null) {
+            writePipelined(map, tombstones);
+            return;
+        }
+
+        putFallback(map);
+        if (!circuitBreaker.allowRequest()) {
+            return;
+        }
+        try {
+            callRedis(() -> {
+                writePipelined(map, tombstones);
+                return null;
+            });
+        } catch (RuntimeException e) {
+            log.warn("write redis failed, keyPrefix: {}, cause: {}", keyPrefix, e.toString());
+        }
+    }
+
+    /**
+     * 与 {@link #write(Map, Map)} 相同的熔断处理,redis 写入通过 redisWrite 异步执行
+     */
+    private CompletableFuture<Void> writeAsync(Map<K, V> map, @Nullable Map<K, byte[]> tombstones,
+                                               BiFunction<Map<K, V>, Map<K, byte[]>, CompletableFuture<Void>> redisWrite) {
+        if (circuitBreaker != null) {
+            putFallback(map);
+            if (!circuitBreaker.allowRequest()) {
+                return CompletableFuture.completedFuture(null);
+            }
+        }
+
+        long start = System.nanoTime();
+        CompletableFuture<Void> future = callRedisAsync(() -> redisWrite.apply(map, tombstones))
+                .whenComplete((ignored, e) -> metrics.recordCommand("set", System.nanoTime() - start));
+        if (circuitBreaker == null) {
+            return future;
+        }
+        return future.exceptionally(e -> {
+            log.warn("write redis failed, keyPrefix: {}, cause: {}", keyPrefix, e.toString());
+            return null;
+        });
+    }
+
+    private void putFallback(Map<K, V> map) {
+        map.forEach((k, v) -> {
+            if (k != null && (v != null || config.isCacheNullValues())) {
+                fallbackCache.put(k, v == null ? NULL_VALUE : v);
+            }
+        });
+    }
+
+    /**
+     * 写入 write-behind 队列中的一批数据,与同步写入一样经过熔断和删除标记的检查
+     * <p>
+     * 与同步写入不同,熔断器打开或者写入失败时抛出异常,由 {@link WriteBehindQueue} 将这批数据放回队列重试
+     */
+    private void writeQueued(Map<K, QueuedValue<V>> batch) {
+        Map<K, V> values = null;
+        Map<K, V> loadedValues = null;
+        Map<K, byte[]> tombstones = null;
+        for (Map.Entry<K, QueuedValue<V>> entry : batch.entrySet()) {
+            QueuedValue<V> queued = entry.getValue();
+            if (!queued.loaded) {
+                if (values == null) {
+                    values = Maps.newHashMapWithExpectedSize(batch.size());
+                }
+                values.put(entry.getKey(), queued.value);
+                continue;
+            }
+            if (config.isLuaScriptsEnabled() && System.nanoTime() - queued.loadDeadline >= 0) {
+                continue;
+            }
+            if (loadedValues == null) {
+                loadedValues = Maps.newHashMap();
+                tombstones = Maps.newHashMap();
+            }
+            loadedValues.put(entry.getKey(), queued.value);
+            if (queued.tombstone != null) {
+                tombstones.put(entry.getKey(), queued.tombstone);
+            }
+        }
+
+        try {
+            if (values != null) {
+                writeOrThrow(values, null);
+            }
+            if (loadedValues != null) {
+                writeOrThrow(loadedValues, tombstones);
+            }
+        } finally {
+            invalidateHotKeys(batch.keySet());
+        }
+    }
+
+    private void writeOrThrow(Map<K, V> map, @Nullable Map<K, byte[]> tombstones) {
+        if (circuitBreaker != null) {
+            putFallback(map);
+        }
+        callRedis(() -> {
+            writePipelined(map, tombstones);
+            return null;
+        });
+    }
+
+    /**
+     * 通过 pipeline 写入 redis
+     */
+    private void writePipelined(Map<K, V> map, @Nullable Map<K, byte[]> tombstones) {
+        if (clusterRouter != null) {
+            writeCluster(map);
+            return;
+        }
+        if (config.isLuaScriptsEnabled()) {
+            writeScripted(map, tombstones);
+            return;
+        }
 
+        long start = System.nanoTime();
         redisTemplate.executePipelined(new RedisCallback<Object>() {
             @Override
             public Object doInRedis(RedisConnection connection) throws DataAccessException {
+                List<byte[]> rawKeys = Lists.newArrayListWithExpectedSize(map.size());
                 map.forEach((k, v) -> {
-                    if (v != null && k != null) {
-                        // todo support null value
-                        String cacheKey = buildCacheKey(k);
-                        connection.set(keySerializer.serialize(cacheKey), valueSerializer.serialize(v),
-                                Expiration.from(timeToLive.getSeconds() + ThreadLocalRandom.current().nextInt(RANDOM_BOUND), TimeUnit.SECONDS),
+                    if (k != null && (v != null || config.isCacheNullValues())) {
+                        byte[] rawKey = rawCacheKey(k);
+                        connection.set(rawKey, rawValue(v),
+                                Expiration.milliseconds(expireMillis(k, v)),
                                 RedisStringCommands.SetOption.UPSERT);
-                        if (maintainKnownKeys) {
-                            connection.zAdd(knownKeysNameBytes, 0, valueSerializer.serialize(cacheKey));
-                        }
+                        rawKeys.add(rawKey);
                     }
                 });
 
-                if (maintainKnownKeys) {
-                    connection.expire(knownKeysNameBytes, timeToLive.getSeconds() + RANDOM_BOUND);
+                if (evictAllStrategy != null) {
+                    evictAllStrategy.afterPut(connection, rawKeys);
                 }
                 return null;
             }
         });
+        metrics.recordCommand("set", System.nanoTime() - start);
     }
 
-    @Override
-    public void evict(@NonNull K key) {
-        String cacheKey = buildCacheKey(key);
-        redisTemplate.delete(cacheKey);
-        if (maintainKnownKeys) {
-            redisTemplate.opsForZSet().remove(knownKeysName, cacheKey);
+    /**
+     * 通过 lua 脚本写入,{@link KnownKeysEvictAllStrategy} 的 zset 在同一个脚本中维护
+     */
+    private void writeScripted(Map<K, V> map, @Nullable Map<K, byte[]> tombstones) {
+        List<byte[]> rawKeys = Lists.newArrayListWithExpectedSize(map.size());
+        List<ScriptCall> calls = writeScriptCalls(map, tombstones, rawKeys);
+        if (calls.isEmpty()) {
+            return;
         }
 
+        long start = System.nanoTime();
+        executeScripts(connection -> {
+            calls.forEach(call -> call.script.evalSha(connection, call.numKeys, call.keysAndArgs));
+            if (evictAllStrategy != null && knownKeysStrategy() == null) {
+                evictAllStrategy.afterPut(connection, rawKeys);
+            }
+        });
+        metrics.recordCommand("set", System.nanoTime() - start);
     }
 
-    @Override
-    public void evict(@NonNull Iterable<K> keys) {
-        List<String> cacheKeyList = buildCacheKey(keys);
+    /**
+     * @param tombstones 不为 null 时,key 当前的值是删除标记并且与读取时看到的不同,说明读取之后执行过 evict,放弃写入
+     * @param rawKeys    收集需要写入的 key
+     */
+    List<ScriptCall> writeScriptCalls(Map<K, V> map, @Nullable Map<K, byte[]> tombstones, List<byte[]> rawKeys) {
+        List<byte[][]> keyArgs = Lists.newArrayListWithExpectedSize(map.size());
+        map.forEach((k, v) -> {
+            if (k != null && (v != null || config.isCacheNullValues())) {
+                rawKeys.add(rawCacheKey(k));
+                byte[] ttl = asciiBytes(expireMillis(k, v));
+                if (tombstones == null) {
+                    keyArgs.add(new byte[][]{rawValue(v), ttl});
+                } else {
+                    byte[] expected = tombstones.get(k);
+                    keyArgs.add(new byte[][]{rawValue(v), ttl, expected == null ? new byte[0] : expected});
+                }
+            }
+        });
+        return tombstones == null ? scriptCalls(SET_SCRIPT, rawKeys, keyArgs)
+                : scriptCalls(SET_LOADED_SCRIPT, rawKeys, keyArgs, TOMBSTONE_PREFIX, EVICT_GUARD_SUFFIX);
+    }
+
+    private void writeCluster(Map<K, V> map) {
+        List<byte[]> rawKeys = Lists.newArrayListWithExpectedSize(map.size());
+        List<byte[]> rawValues = Lists.newArrayListWithExpectedSize(map.size());
+        List<Long> expireMillis = Lists.newArrayListWithExpectedSize(map.size());
+        map.forEach((k, v) -> {
+            if (k != null && (v != null || config.isCacheNullValues())) {
+                rawKeys.add(rawCacheKey(k));
+                rawValues.add(rawValue(v));
+                expireMillis.add(expireMillis(k, v));
+            }
+        });
+        if (rawKeys.isEmpty()) {
+            return;
+        }
 
-        redisTemplate.delete(cacheKeyList);
-        if (maintainKnownKeys) {
-            redisTemplate.opsForZSet().remove(knownKeysName, cacheKeyList);
+        long start = System.nanoTime();
+        clusterRouter.set(rawKeys, rawValues, expireMillis);
+        if (evictAllStrategy != null) {
+            redisTemplate.execute((RedisCallback<Object>) connection -> {
+                evictAllStrategy.afterPut(connection, rawKeys);
+                return null;
+            });
         }
+        metrics.recordCommand("set", System.nanoTime() - start);
     }
 
     @Override
-    public void evictAll() {
-        if (!maintainKnownKeys) {
-            throw new UnsupportedOperationException("evictAll 操作需要将 maintainKnownKeys 设置为 true");
+    public void evict(@NonNull K key) {
+        evict(Collections.singletonList(key));
+    }
+
+    @Override
+    public void evict(@NonNull Iterable<K> keys) {
+        invalidateHotKeys(keys);
+        if (fallbackCache != null) {
+            fallbackCache.invalidateAll(keys);
+        }
+        try {
+            if (writeBehindQueue == null) {
+                callRedis(() -> delete(keys));
+            } else {
+                writeBehindQueue.evict(keys, () -> callRedis(() -> delete(keys)));
+            }
+        } finally {
+            invalidateHotKeys(keys);
         }
+    }
 
-        Set<Serializable> serializables = redisTemplate.opsForZSet().rangeByScore(knownKeysName, 0, 0);
+    /**
+     * 供 {@link RedisAsyncCache} 使用,与 {@link #evict(Iterable)} 一样清除热点 key 的本地副本、降级缓存和 write-behind 队列中的数据,
+     * 经过熔断器的检查
+     *
+     * @param redisDelete 参数为编码后的 key,通过异步连接删除;开启 write-behind 时在持有队列的写锁期间调用,只发送命令,不等待结果
+     */
+    CompletableFuture<Void> evictAsync(Iterable<K> keys, Function<List<byte[]>, CompletableFuture<Void>> redisDelete) {
+        invalidateHotKeys(keys);
+        if (fallbackCache != null) {
+            fallbackCache.invalidateAll(keys);
+        }
+        List<byte[]> rawKeys = Lists.newArrayList();
+        keys.forEach(k -> rawKeys.add(rawCacheKey(k)));
+        if (rawKeys.isEmpty()) {
+            return CompletableFuture.completedFuture(null);
+        }
 
-        if (!CollectionUtils.isEmpty(serializables)) {
-            List<String> cacheKeys = Lists.newArrayListWithExpectedSize(serializables.size());
-            serializables.forEach(serializable -> {
-                if (serializable instanceof String) {
-                    cacheKeys.add((String) serializable);
+        metrics.recordBatchSize("evict", rawKeys.size());
+        Supplier<CompletableFuture<Void>> delete = () -> {
+            long start = System.nanoTime();
+            return callRedisAsync(() -> redisDelete.apply(rawKeys)).whenComplete((ignored, e) -> {
+                invalidateHotKeys(keys);
+                if (e == null) {
+                    metrics.recordCommand("del", System.nanoTime() - start);
+                    metrics.recordEvictions(rawKeys.size());
                 }
             });
-            redisTemplate.delete(cacheKeys);
-            redisTemplate.delete(knownKeysName);
+        };
+        if (writeBehindQueue == null) {
+            return delete.get();
         }
+        List<CompletableFuture<Void>> future = Lists.newArrayListWithCapacity(1);
+        writeBehindQueue.evict(keys, () -> future.add(delete.get()));
+        return future.get(0);
     }
 
-    private V doGetOrLoadIfAbsent(K key, boolean loadIfAbsent) {
-        String cacheKey = buildCacheKey(key);
-        V value = (V) redisTemplate.opsForValue().get(cacheKey);
-        if (loadIfAbsent && value == null) {
-            value = multiCacheLoader.loadCache(key);
-            put(key, value);
+    /**
+     * @return 始终返回 null
+     */
+    private Void delete(Iterable<K> keys) {
+        List<byte[]> rawKeys = Lists.newArrayList();
+        keys.forEach(k -> rawKeys.add(rawCacheKey(k)));
+        if (rawKeys.isEmpty()) {
+            return null;
         }
 
-        return value;
-    }
-
-    private Map<K, V> doGetOrLoadIfAbsent(Iterable<K> keys, boolean loadIfAbsent) {
-        List<String> cacheKeyList = buildCacheKey(keys);
-        List<List<String>> partitions = Lists.partition(cacheKeyList, MAX_BATCH_KEY_SIZE);
-
-        List<V> valueList = Lists.newArrayListWithExpectedSize(cacheKeyList.size());
-
-        for (List<String> partition : partitions) {
-            // Get multiple keys. Values are returned in the order of the requested keys.
-            List<V> values = (List<V>) redisTemplate.opsForValue().multiGet(partition);
-            valueList.addAll(values);
+        metrics.recordBatchSize("evict", rawKeys.size());
+        long start = System.nanoTime();
+        if (config.isLuaScriptsEnabled()) {
+            // 写入删除标记而不是直接删除
+            List<ScriptCall> calls = evictScriptCalls(rawKeys);
+            executeScripts(connection -> {
+                calls.forEach(call -> call.script.evalSha(connection, call.numKeys, call.keysAndArgs));
+                if (evictAllStrategy != null && knownKeysStrategy() == null) {
+                    evictAllStrategy.afterEvict(connection, rawKeys);
+                }
+            });
+            metrics.recordCommand("del", System.nanoTime() - start);
+            metrics.recordEvictions(rawKeys.size());
+            return null;
+        }
+        if (clusterRouter != null) {
+            clusterRouter.del(rawKeys);
+            if (evictAllStrategy != null) {
+                redisTemplate.execute((RedisCallback<Object>) connection -> {
+                    evictAllStrategy.afterEvict(connection, rawKeys);
+                    return null;
+                });
+            }
+            metrics.recordCommand("del", System.nanoTime() - start);
+            metrics.recordEvictions(rawKeys.size());
+            return null;
         }
 
-        List<K> keysList = Lists.newArrayList(keys);
-        Set<K> missedKeys = Sets.newLinkedHashSet();
-
-        Map<K, V> map = Maps.newHashMapWithExpectedSize(partitions.size());
-
+        redisTemplate.executePipelined(new RedisCallback<Object>() {
+            @Override
+            public Object doInRedis(RedisConnection connection) throws DataAccessException {
+                connection.del(rawKeys.toArray(new byte[0][]));
+                if (evictAllStrategy != null) {
+                    evictAllStrategy.afterEvict(connection, rawKeys);
+                }
+                return null;
+            }
+        });
+        metrics.recordCommand("del", System.nanoTime() - start);
+        metrics.recordEvictions(rawKeys.size());
+        return null;
+    }
 
-        for (int i = 0; i < valueList.size(); i++) {
-            V v = valueList.get(i);
-            K k = keysList.get(i);
-            if (v != null) {
-                map.put(k, v);
+    @Override
+    public void evictAll() {
+        if (evictAllStrategy == null) {
+            throw new UnsupportedOperationException("evictAll 操作需要将 maintainKnownKeys 设置为 true 或者配置 evictAllStrategy");
+        }
+        if (fallbackCache != null) {
+            fallbackCache.invalidateAll();
+        }
+        Runnable evictAll = () -> callRedis(() -> {
+            evictAllStrategy.evictAll();
+            return null;
+        });
+        try {
+            if (writeBehindQueue == null) {
+                evictAll.run();
             } else {
-                missedKeys.add(k);
+                writeBehindQueue.evictAll(evictAll);
+            }
+        } finally {
+            if (hotKeyCache != null) {
+                hotKeyCache.invalidateAll();
             }
         }
+        metrics.recordEvictAll();
+    }
 
-        if (loadIfAbsent && !missedKeys.isEmpty()) {
-            Map<K, V> missValueMap = multiCacheLoader.loadCache(missedKeys);
+    /**
+     * @return 当前节点保存了本地副本的热点 key,按访问次数从高到低排列;未开启热点 key 检测时返回空集合
+     * @see RedisCacheConfig#isHotKeyDetectionEnabled()
+     */
+    @NonNull
+    public List<HotKey<K>> hotKeys() {
+        return hotKeyCache == null ? Collections.emptyList() : hotKeyCache.hotKeys();
+    }
 
-            put(missValueMap);
+    /**
+     * @return 熔断器是否已打开,打开期间不访问 redis
+     * @see RedisCacheConfig#isCircuitBreakerEnabled()
+     */
+    public boolean isDegraded() {
+        return circuitBreaker != null && !circuitBreaker.allowRequest();
+    }
 
-            map.putAll(missValueMap);
+    /**
+     * 立即写入 write-behind 队列中的所有数据
+     */
+    public void flush() {
+        if (writeBehindQueue != null) {
+            writeBehindQueue.flush();
         }
-
-        return map;
     }
 
+    /**
+     * 停止 write-behind 的后台线程,并写入队列中剩余的数据
+     */
+    @Override
+    public void close() {
+        if (writeBehindQueue != null) {
+            writeBehindQueue.close();
+        }
+        if (circuitBreaker != null) {
+            circuitBreaker.shutdown();
+        }
+    }
+
+    /**
+     * 根据全量的 key 重建 {@link RedisCacheConfig#getKeyFilter()}
+     */
+    public void rebuildKeyFilter(@NonNull Iterator<K> keys) {
+        CacheKeyFilter keyFilter = config.getKeyFilter();
+        if (keyFilter == null) {
+            throw new IllegalStateException("未配置 keyFilter");
+        }
+        keyFilter.rebuild(Iterators.transform(keys, keyGenerator::generate));
+    }
+
+    /**
+     * 在后台线程中预热缓存,适用于发布或 redis 故障切换后缓存为空的场景
+     * <p>
+     * 通过 {@link MultiCacheLoader} 分批加载后写入 redis,与读取操作共用同一个 JVM 内的并发加载合并,
+     * 开启 loadLockEnabled 时同样通过分布式锁避免多个节点重复加载
+     *
+     * @param keys 需要预热的 key,只在预热线程中读取
+     */
+    @NonNull
+    public WarmUpTask warmUp(@NonNull Iterator<K> keys, @NonNull WarmUpConfig warmUpConfig) {
+        if (warmUpConfig.getBatchSize() <= 0) {
+            throw new IllegalArgumentException("batchSize 必须大于 0");
+        }
+        if (warmUpConfig.getParallelism() <= 0) {
+            throw new IllegalArgumentException("parallelism 必须大于 0");
+        }
+        if (warmUpConfig.getParallelism() > 1 && warmUpConfig.getExecutor() == null) {
+            throw new IllegalArgumentException("parallelism 大于 1 时必须设置 executor");
+        }
+        return new WarmUpTask(keyPrefix, Objects.requireNonNull(keys), warmUpConfig,
+                batch -> warmUpBatch(batch, warmUpConfig.isSkipExisting()));
+    }
+
+    /**
+     * @see #warmUp(Iterator, WarmUpConfig)
+     */
+    @NonNull
+    public WarmUpTask warmUp(@NonNull Stream<K> keys, @NonNull WarmUpConfig warmUpConfig) {
+        return warmUp(keys.iterator(), warmUpConfig);
+    }
+
+    /**
+     * 按窗口读取大量 key,未命中的 key 分批加载并写入缓存,每个窗口处理完成后依次交给 consumer
+     * <p>
+     * 与 {@link #getOrLoadIfAbsent(Iterable)} 不同,不会一次性持有所有的 key 和 value,内存占用只与 windowSize 有关;
+     * 设置 prefetchExecutor 时,加载当前窗口的同时从 redis 读取下一个窗口
+     *
+     * @param keys     只在调用线程中读取
+     * @param consumer 在调用线程中执行,加载后仍不存在的 key 不会传给 consumer
+     */
+    public void getOrLoadIfAbsent(@NonNull Iterator<K> keys, @NonNull StreamingLoadConfig streamingConfig,
+                                  @NonNull BiConsumer<? super K, ? super V> consumer) {
+        WindowIterator windows = new WindowIterator(keys, streamingConfig);
+        while (windows.hasNext()) {
+            windows.next().forEach(consumer);
+        }
+    }
+
+    /**
+     * 与 {@link #getOrLoadIfAbsent(Iterator, StreamingLoadConfig, BiConsumer)} 相同,返回的 Stream 被消费时才处理下一个窗口
+     */
+    @NonNull
+    public Stream<Map.Entry<K, V>> streamOrLoadIfAbsent(@NonNull Iterator<K> keys, @NonNull StreamingLoadConfig streamingConfig) {
+        WindowIterator windows = new WindowIterator(keys, streamingConfig);
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(windows, Spliterator.ORDERED | Spliterator.NONNULL), false)
+                .flatMap(map -> map.entrySet().stream());
+    }
+
+    /**
+     * @return 跳过的 key 数量
+     */
+    private int warmUpBatch(List<K> keys, boolean skipExisting) {
+        metrics.recordBatchSize("warmUp", keys.size());
+        Set<K> missedKeys = Sets.newLinkedHashSet();
+        Map<K, byte[]> tombstones = Maps.newHashMap();
+        if (skipExisting) {
+            byte[][] rawTombstones = new byte[keys.size()][];
+            boolean[] exists = callRedis(() -> exists(rawCacheKeys(keys), rawTombstones));
+            for (int i = 0; i < exists.length; i++) {
+                if (!exists[i] && getPending(keys.get(i)) == null) {
+                    missedKeys.add(keys.get(i));
+                    if (rawTombstones[i] != null) {
+                        tombstones.put(keys.get(i), rawTombstones[i]);
+                    }
+                }
+            }
+        } else {
+            missedKeys.addAll(keys);
+        }
+
+        if (!missedKeys.isEmpty()) {
+            singleFlight.load(missedKeys, ks -> loadAndPut(ks, tombstones));
+        }
+        return keys.size() - missedKeys.size();
+    }
+
+    /**
+     * 删除标记视为不存在
+     *
+     * @param tombstones 收集读取到的删除标记,加载结果只会覆盖这些删除标记
+     */
+    private boolean[] exists(byte[][] rawKeys, byte[][] tombstones) {
+        boolean[] exists = new boolean[rawKeys.length];
+        if (clusterRouter != null) {
+            List<Object> values = multiGet(rawKeys);
+            for (int i = 0; i < exists.length; i++) {
+                Object v = values.get(i);
+                if (v instanceof StaleValue) {
+                    v = ((StaleValue) v).value;
+                }
+                if (v instanceof Tombstone) {
+                    tombstones[i] = ((Tombstone) v).raw;
+                }
+                exists[i] = v != null && !(v instanceof Tombstone);
+            }
+            return exists;
+        }
+
+        long start = System.nanoTime();
+        if (config.isLuaScriptsEnabled()) {
+            // 只读取能够判断是否为删除标记的前缀,不读取完整的 value
+            int prefixLength = TOMBSTONE_PREFIX.length + Long.BYTES;
+            List<Object> prefixes = redisTemplate.executePipelined(new RedisCallback<Object>() {
+                @Override
+                public Object doInRedis(RedisConnection connection) throws DataAccessException {
+                    for (byte[] rawKey : rawKeys) {
+                        connection.getRange(rawKey, 0, prefixLength);
+                    }
+                    return null;
+                }
+            }, null);
+            metrics.recordCommand("exists", System.nanoTime() - start);
+            for (int i = 0; i < exists.length; i++) {
+                byte[] prefix = (byte[]) prefixes.get(i);
+                if (prefix != null && isTombstone(prefix)) {
+                    tombstones[i] = prefix;
+                }
+                exists[i] = prefix != null && prefix.length > 0 && tombstones[i] == null;
+            }
+            return exists;
+        }
+
+        List<Object> results = redisTemplate.executePipelined(new RedisCallback<Object>() {
+            @Override
+            public Object doInRedis(RedisConnection connection) throws DataAccessException {
+                for (byte[] rawKey : rawKeys) {
+                    connection.exists(rawKey);
+                }
+                return null;
+            }
+        });
+        metrics.recordCommand("exists", System.nanoTime() - start);
+        for (int i = 0; i < exists.length; i++) {
+            exists[i] = Boolean.TRUE.equals(results.get(i));
+        }
+        return exists;
+    }
+
+    private V doGetOrLoadIfAbsent(K key, boolean loadIfAbsent) {
+        if (isFiltered(key)) {
+            return null;
+        }
+        recordAccess(key);
+        Object value = unwrapStale(key, readLatest(key), null);
+        Map<K, byte[]> tombstones = Collections.emptyMap();
+        if (value instanceof Tombstone) {
+            tombstones = Collections.singletonMap(key, ((Tombstone) value).raw);
+            value = null;
+        }
+        metrics.recordGets(value == null ? 0 : 1, value == null ? 1 : 0);
+        if (value == NULL_VALUE) {
+            return null;
+        }
+        if (loadIfAbsent && value == null) {
+            Map<K, byte[]> observed = tombstones;
+            value = singleFlight.load(Collections.singleton(key), ks -> loadAndPut(ks, observed)).get(key);
+        }
+
+        return (V) value;
+    }
+
+    private Map<K, V> doGetOrLoadIfAbsent(Iterable<K> keys, boolean loadIfAbsent) {
+        List<K> keysList = prepareKeys(asList(keys));
+        return resolve(keysList, readLatest(keysList), loadIfAbsent, Integer.MAX_VALUE);
+    }
+
+    /**
+     * 过滤一定不存在的 key,并记录访问
+     */
+    private List<K> prepareKeys(List<K> keysList) {
+        if (config.getKeyFilter() != null) {
+            keysList = filter(keysList, null);
+        }
+
+        metrics.recordBatchSize("get", keysList.size());
+        recordAccess(keysList);
+        return keysList;
+    }
+
+    /**
+     * 处理从 redis 中读取到的值,未命中的 key 按 loaderBatchSize 分批加载
+     */
+    private Map<K, V> resolve(List<K> keysList, List<Object> valueList, boolean loadIfAbsent, int loaderBatchSize) {
+        // 只在出现未命中、需要刷新的 key 时才创建集合
+        Set<K> missedKeys = null;
+        List<K> staleKeys = null;
+        Map<K, byte[]> tombstones = null;
+        int misses = 0;
+
+        Map<K, V> map = Maps.newHashMapWithExpectedSize(keysList.size());
+
+
+        for (int i = 0; i < valueList.size(); i++) {
+            K k = keysList.get(i);
+            Object v = valueList.get(i);
+            if (v instanceof StaleValue) {
+                if (staleKeys == null) {
+                    staleKeys = Lists.newArrayList();
+                }
+                v = unwrapStale(k, v, staleKeys);
+            }
+            if (v instanceof Tombstone) {
+                if (tombstones == null) {
+                    tombstones = Maps.newHashMap();
+                }
+                tombstones.put(k, ((Tombstone) v).raw);
+                v = null;
+            }
+            if (v == null) {
+                misses++;
+                if (loadIfAbsent) {
+                    if (missedKeys == null) {
+                        missedKeys = Sets.newLinkedHashSet();
+                    }
+                    missedKeys.add(k);
+                }
+            } else if (v != NULL_VALUE) {
+                map.put(k, (V) v);
+            }
+        }
+        metrics.recordGets(valueList.size() - misses, misses);
+        if (staleKeys != null) {
+            refreshAsync(staleKeys);
+        }
+
+        if (missedKeys != null) {
+            Map<K, byte[]> observed = tombstones == null ? Collections.emptyMap() : tombstones;
+            if (missedKeys.size() <= loaderBatchSize) {
+                map.putAll(singleFlight.load(missedKeys, ks -> loadAndPut(ks, observed)));
+            } else {
+                for (List<K> batch : Iterables.partition(missedKeys, loaderBatchSize)) {
+                    map.putAll(singleFlight.load(Sets.newLinkedHashSet(batch), ks -> loadAndPut(ks, observed)));
+                }
+            }
+        }
+
+        return map;
+    }
+
+    /**
+     * 调用 {@link MultiCacheLoader} 加载数据,并添加到缓存中
+     */
+    private Map<K, V> loadAndPut(Set<K> keys) {
+        return loadAndPut(keys, Collections.emptyMap());
+    }
+
+    /**
+     * @param tombstones 读取时看到的删除标记,其他节点在读取之后执行的 evict 会阻止写入本次加载的结果
+     */
+    private Map<K, V> loadAndPut(Set<K> keys, Map<K, byte[]> tombstones) {
+        if (isDegraded()) {
+            return loadFallback(keys);
+        }
+        // 读取之后执行的 evict 写入的删除标记至少保存到该时间
+        long loadDeadline = System.nanoTime() + config.getEvictTombstoneTimeToLive().toNanos();
+        if (!config.isLoadLockEnabled()) {
+            LoadResult<K, V> loaded = loadCache(keys);
+            putLoaded(loaded.loadedKeys, loaded.values, tombstones, loadDeadline);
+            return loaded.values;
+        }
+
+        String token = UUID.randomUUID().toString();
+        List<K> keyList = Lists.newArrayList(keys);
+        List<byte[]> lockKeys = buildLoadLockKey(keyList);
+        List<Object> acquired;
+        try {
+            acquired = callRedis(() -> tryAcquireLoadLocks(lockKeys, token));
+        } catch (RuntimeException e) {
+            if (circuitBreaker == null) {
+                throw e;
+            }
+            log.warn("acquire load lock failed, keyPrefix: {}, cause: {}", keyPrefix, e.toString());
+            return loadFallback(keys);
+        }
+
+        Set<K> lockedKeys = Sets.newLinkedHashSet();
+        List<byte[]> lockedLockKeys = Lists.newArrayList();
+        List<K> waitingKeys = Lists.newArrayList();
+        for (int i = 0; i < keyList.size(); i++) {
+            if (Boolean.TRUE.equals(acquired.get(i))) {
+                lockedKeys.add(keyList.get(i));
+                lockedLockKeys.add(lockKeys.get(i));
+            } else {
+                waitingKeys.add(keyList.get(i));
+            }
+        }
+
+        Map<K, V> map = Maps.newHashMapWithExpectedSize(keys.size());
+        if (!lockedKeys.isEmpty()) {
+            try {
+                LoadResult<K, V> loaded = loadCache(lockedKeys);
+                putLoaded(loaded.loadedKeys, loaded.values, tombstones, loadDeadline);
+                map.putAll(loaded.values);
+            } finally {
+                releaseLoadLocksQuietly(lockedLockKeys, token);
+            }
+        }
+
+        if (!waitingKeys.isEmpty()) {
+            map.putAll(awaitLoadedByOthers(waitingKeys, tombstones, loadDeadline));
+        }
+        return map;
+    }
+
+    /**
+     * 按 loaderBatchSize 拆分后调用 {@link MultiCacheLoader},设置 loaderExecutor 时各个批次并行加载
+     */
+    private LoadResult<K, V> loadCache(Set<K> keys) {
+        int batchSize = config.getLoaderBatchSize();
+        if (loaderPermits == null && (batchSize <= 0 || keys.size() <= batchSize)) {
+            return new LoadResult<>(invokeLoader(keys), keys);
+        }
+
+        List<Set<K>> batches;
+        if (batchSize <= 0 || keys.size() <= batchSize) {
+            batches = Collections.singletonList(keys);
+        } else {
+            batches = Lists.newArrayListWithExpectedSize((keys.size() + batchSize - 1) / batchSize);
+            for (List<K> batch : Iterables.partition(keys, batchSize)) {
+                batches.add(Sets.newLinkedHashSet(batch));
+            }
+        }
+
+        Map<K, V> map = Maps.newHashMapWithExpectedSize(keys.size());
+        Set<K> failedKeys = null;
+        if (loaderPermits == null) {
+            for (Set<K> batch : batches) {
+                try {
+                    map.putAll(invokeLoader(batch));
+                } catch (RuntimeException e) {
+                    failedKeys = onLoadBatchFailure(batch, e, failedKeys);
+                }
+            }
+        } else {
+            List<Future<Map<K, V>>> futures = Lists.newArrayListWithExpectedSize(batches.size());
+            long[] deadlines = new long[batches.size()];
+            try {
+                for (int i = 0; i < batches.size(); i++) {
+                    deadlines[i] = config.getLoaderTimeout() == null ? Long.MAX_VALUE
+                            : System.nanoTime() + config.getLoaderTimeout().toNanos();
+                    futures.add(submitLoader(batches.get(i), deadlines[i]));
+                }
+                for (int i = 0; i < batches.size(); i++) {
+                    try {
+                        map.putAll(awaitLoader(futures.get(i), deadlines[i]));
+                    } catch (RuntimeException e) {
+                        failedKeys = onLoadBatchFailure(batches.get(i), e, failedKeys);
+                    }
+                }
+            } catch (RuntimeException | Error e) {
+                futures.forEach(future -> future.cancel(true));
+                throw e;
+            }
+        }
+
+        return new LoadResult<>(map, failedKeys == null ? keys : Sets.difference(keys, failedKeys));
+    }
+
+    /**
+     * @return 开启 loaderPartialResultsEnabled 时返回所有失败的 key,否则直接抛出异常
+     */
+    private Set<K> onLoadBatchFailure(Set<K> batch, RuntimeException e, Set<K> failedKeys) {
+        if (!config.isLoaderPartialResultsEnabled()) {
+            throw e;
+        }
+        log.warn("load cache batch failed, keyPrefix: {}, size: {}", keyPrefix, batch.size(), e);
+        if (failedKeys == null) {
+            failedKeys = Sets.newHashSet();
+        }
+        failedKeys.addAll(batch);
+        return failedKeys;
+    }
+
+    /**
+     * 超时后通过 {@link Future#cancel(boolean)} 中断正在执行的 {@link MultiCacheLoader},
+     * 并发许可在 loader 返回后释放,不响应中断的 loader 会一直占用许可直到返回
+     */
+    private Future<Map<K, V>> submitLoader(Set<K> batch, long deadline) {
+        CompletableFuture<Map<K, V>> future = new CompletableFuture<>();
+        boolean acquired;
+        try {
+            if (deadline == Long.MAX_VALUE) {
+                loaderPermits.acquire();
+                acquired = true;
+            } else {
+                acquired = loaderPermits.tryAcquire(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            future.completeExceptionally(new QueryTimeoutException("等待加载数据时被中断,keyPrefix: " + keyPrefix, e));
+            return future;
+        }
+        if (!acquired) {
+            future.completeExceptionally(new QueryTimeoutException("等待加载数据的并发许可超时,keyPrefix: " + keyPrefix));
+            return future;
+        }
+
+        FutureTask<Map<K, V>> task = new FutureTask<>(() -> invokeLoader(batch));
+        try {
+            config.getLoaderExecutor().execute(() -> {
+                try {
+                    // 在开始执行之前被取消时直接返回
+                    task.run();
+                } finally {
+                    loaderPermits.release();
+                    if (task.isCancelled()) {
+                        // 清除取消时设置的中断状态,避免影响线程池中的下一个任务
+                        Thread.interrupted();
+                    }
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            loaderPermits.release();
+            future.completeExceptionally(e);
+            return future;
+        }
+        return task;
+    }
+
+    private Map<K, V> awaitLoader(Future<Map<K, V>> future, long deadline) {
+        try {
+            if (deadline == Long.MAX_VALUE) {
+                return future.get();
+            }
+            return future.get(Math.max(deadline - System.nanoTime(), 0), TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            future.cancel(true);
+            throw new QueryTimeoutException("加载数据超时,keyPrefix: " + keyPrefix, e);
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new QueryTimeoutException("等待加载数据时被中断,keyPrefix: " + keyPrefix, e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            if (e.getCause() instanceof Error) {
+                throw (Error) e.getCause();
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    private Map<K, V> invokeLoader(Set<K> keys) {
+        return metrics.recordLoad(keys.size(), () -> {
+            if (keys.size() == 1) {
+                K key = keys.iterator().next();
+                V value = multiCacheLoader.loadCache(key);
+                return value == null ? Collections.<K, V>emptyMap() : Collections.singletonMap(key, value);
+            }
+            return multiCacheLoader.loadCache(keys);
+        });
+    }
+
+    /**
+     * 轮询等待其他节点加载完成,超时后由当前节点自行加载剩余的 key
+     */
+    private Map<K, V> awaitLoadedByOthers(List<K> keys, Map<K, byte[]> tombstones, long loadDeadline) {
+        Map<K, V> map = Maps.newHashMapWithExpectedSize(keys.size());
+        List<K> remainingKeys = keys;
+        long deadline = System.nanoTime() + config.getLoadLockWaitTimeout().toNanos();
+
+        while (!remainingKeys.isEmpty() && System.nanoTime() < deadline) {
+            try {
+                TimeUnit.MILLISECONDS.sleep(LOAD_LOCK_RETRY_INTERVAL_MILLIS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+
+            List<Object> values;
+            try {
+                List<K> waitingKeys = remainingKeys;
+                values = callRedis(() -> multiGet(rawCacheKeys(waitingKeys)));
+            } catch (RuntimeException e) {
+                if (circuitBreaker == null) {
+                    throw e;
+                }
+                // redis 不可用时不再等待,直接加载剩余的 key
+                break;
+            }
+            List<K> stillMissedKeys = Lists.newArrayList();
+            for (int i = 0; i < values.size(); i++) {
+                Object v = values.get(i);
+                if (v instanceof StaleValue) {
+                    v = ((StaleValue) v).value;
+                }
+                if (v == null || v instanceof Tombstone) {
+                    stillMissedKeys.add(remainingKeys.get(i));
+                } else if (v != NULL_VALUE) {
+                    map.put(remainingKeys.get(i), (V) v);
+                }
+            }
+            remainingKeys = stillMissedKeys;
+        }
+
+        if (!remainingKeys.isEmpty()) {
+            Set<K> missedKeys = Sets.newLinkedHashSet(remainingKeys);
+            LoadResult<K, V> loaded = loadCache(missedKeys);
+            putLoaded(loaded.loadedKeys, loaded.values, tombstones, loadDeadline);
+            map.putAll(loaded.values);
+        }
+        return map;
+    }
+
+    /**
+     * @return write-behind 队列中等待写入的值,不存在时返回 null,值为 null 时返回 {@link #NULL_VALUE}
+     */
+    private Object getPending(K key) {
+        if (writeBehindQueue == null) {
+            return null;
+        }
+        ValueWrapper<QueuedValue<V>> wrapper = writeBehindQueue.get(key);
+        if (wrapper == null) {
+            return null;
+        }
+        V value = wrapper.get().value;
+        return value == null ? NULL_VALUE : value;
+    }
+
+    /**
+     * write-behind 队列中等待写入的值优先于 redis 中的值
+     * <p>
+     * 队列中的值写入 redis 成功之后才会移除,先读取队列再读取 redis 不会同时错过二者
+     */
+    private Object readLatest(K key) {
+        Object pending = getPending(key);
+        return pending != null ? pending : read(key);
+    }
+
+    /**
+     * Values are returned in the order of the requested keys.
+     *
+     * @see #readLatest(Object)
+     */
+    private List<Object> readLatest(List<K> keys) {
+        if (writeBehindQueue == null) {
+            return read(keys);
+        }
+        Object[] pending = new Object[keys.size()];
+        boolean anyPending = false;
+        for (int i = 0; i < pending.length; i++) {
+            pending[i] = getPending(keys.get(i));
+            anyPending |= pending[i] != null;
+        }
+        List<Object> values = read(keys);
+        if (!anyPending) {
+            return values;
+        }
+
+        List<Object> latest = Lists.newArrayList(values);
+        for (int i = 0; i < pending.length; i++) {
+            if (pending[i] != null) {
+                latest.set(i, pending[i]);
+            }
+        }
+        return latest;
+    }
+
+    /**
+     * 拆开 {@link StaleValue},并收集需要异步刷新的 key
+     *
+     * @param staleKeys 为 null 时直接提交刷新
+     */
+    private Object unwrapStale(K key, Object value, List<K> staleKeys) {
+        if (!(value instanceof StaleValue)) {
+            return value;
+        }
+        if (staleKeys != null) {
+            staleKeys.add(key);
+        } else {
+            refreshAsync(Collections.singletonList(key));
+        }
+        return ((StaleValue) value).value;
+    }
+
+    /**
+     * 异步重新加载即将过期的 key,同一个 key 同时只会有一个刷新任务
+     */
+    private void refreshAsync(List<K> keys) {
+        if (keys.isEmpty() || isDegraded()) {
+            return;
+        }
+
+        Set<K> refreshKeys = Sets.newLinkedHashSet();
+        for (K key : keys) {
+            if (refreshingKeys.add(key)) {
+                refreshKeys.add(key);
+            }
+        }
+        if (refreshKeys.isEmpty()) {
+            return;
+        }
+
+        try {
+            config.getRefreshExecutor().execute(() -> {
+                try {
+                    singleFlight.load(refreshKeys, this::loadAndPut);
+                } catch (RuntimeException e) {
+                    log.warn("refresh cache failed, keyPrefix: {}", keyPrefix, e);
+                } finally {
+                    refreshingKeys.removeAll(refreshKeys);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            refreshingKeys.removeAll(refreshKeys);
+        }
+    }
+
+    /**
+     * 降级模式下加载数据,只写入降级缓存
+     */
+    private Map<K, V> loadFallback(Set<K> keys) {
+        boolean acquired;
+        try {
+            acquired = fallbackLoadPermits.tryAcquire(config.getFallbackLoadTimeout().toNanos(), TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            acquired = false;
+        }
+        if (!acquired) {
+            throw new RedisConnectionFailureException("redis 不可用,并且降级加载的线程数已达到 fallbackLoadConcurrency,keyPrefix: " + keyPrefix);
+        }
+
+        try {
+            LoadResult<K, V> loaded = loadCache(keys);
+            Map<K, V> missValueMap = loaded.values;
+            for (K k : loaded.loadedKeys) {
+                V v = missValueMap.get(k);
+                if (v != null) {
+                    fallbackCache.put(k, v);
+                } else if (config.isCacheNullValues()) {
+                    fallbackCache.put(k, NULL_VALUE);
+                }
+            }
+            return missValueMap;
+        } finally {
+            fallbackLoadPermits.release();
+        }
+    }
+
+    /**
+     * 将加载结果添加到缓存中,开启 cacheNullValues 时同时缓存未加载到的 key
+     *
+     * @param tombstones 读取时看到的删除标记,只在开启 luaScriptsEnabled 时使用
+     * @see #put(Map, Map, long)
+     */
+    private void putLoaded(Set<K> keys, Map<K, V> missValueMap, Map<K, byte[]> tombstones, long loadDeadline) {
+        if (!config.isCacheNullValues() || missValueMap.size() >= keys.size()) {
+            put(missValueMap, tombstones, loadDeadline);
+            return;
+        }
+
+        Map<K, V> map = Maps.newHashMapWithExpectedSize(keys.size());
+        keys.forEach(k -> map.put(k, missValueMap.get(k)));
+        put(map, tombstones, loadDeadline);
+    }
+
+    private List<Object> tryAcquireLoadLocks(List<byte[]> lockKeys, String token) {
+        byte[] rawToken = token.getBytes(StandardCharsets.UTF_8);
+        Expiration lease = Expiration.from(config.getLoadLockLease().toMillis(), TimeUnit.MILLISECONDS);
+
+        long start = System.nanoTime();
+        if (clusterRouter != null) {
+            List<Object> acquired = clusterRouter.setIfAbsent(lockKeys.toArray(new byte[0][]), rawToken,
+                    config.getLoadLockLease().toMillis());
+            metrics.recordCommand("lock", System.nanoTime() - start);
+            return acquired;
+        }
+        List<Object> acquired = redisTemplate.executePipelined(new RedisCallback<Object>() {
+            @Override
+            public Object doInRedis(RedisConnection connection) throws DataAccessException {
+                for (byte[] lockKey : lockKeys) {
+                    connection.set(lockKey, rawToken, lease, RedisStringCommands.SetOption.SET_IF_ABSENT);
+                }
+                return null;
+            }
+        });
+        metrics.recordCommand("lock", System.nanoTime() - start);
+        return acquired;
+    }
+
+    /**
+     * 开启熔断时释放失败只记录日志,锁在 loadLockLease 之后自动过期
+     */
+    private void releaseLoadLocksQuietly(List<byte[]> lockKeys, String token) {
+        try {
+            callRedis(() -> {
+                releaseLoadLocks(lockKeys, token);
+                return null;
+            });
+        } catch (RuntimeException e) {
+            if (circuitBreaker == null) {
+                throw e;
+            }
+            log.warn("release load lock failed, keyPrefix: {}, cause: {}", keyPrefix, e.toString());
+        }
+    }
+
+    private void releaseLoadLocks(List<byte[]> lockKeys, String token) {
+        byte[] rawToken = token.getBytes(StandardCharsets.UTF_8);
+
+        long start = System.nanoTime();
+        if (clusterRouter != null) {
+            clusterRouter.evalEach(lockKeys.toArray(new byte[0][]), RELEASE_LOAD_LOCK_SCRIPT, rawToken);
+            metrics.recordCommand("unlock", System.nanoTime() - start);
+            return;
+        }
+        redisTemplate.executePipelined(new RedisCallback<Object>() {
+            @Override
+            public Object doInRedis(RedisConnection connection) throws DataAccessException {
+                for (byte[] lockKey : lockKeys) {
+                    connection.eval(RAW_RELEASE_LOAD_LOCK_SCRIPT, ReturnType.INTEGER, 1, lockKey, rawToken);
+                }
+                return null;
+            }
+        });
+        metrics.recordCommand("unlock", System.nanoTime() - start);
+    }
+
+    /**
+     * 缓存中不存在的 key 对应的值为 null,缓存了 null 值的 key 对应的值为 {@link #NULL_VALUE}
+     * 按 batchSize 拆分为多条 mget 命令,通过 pipeline 发送
+     * Values are returned in the order of the requested keys.
+     */
+    private List<Object> multiGet(byte[][] rawKeys) {
+        if (rawKeys.length == 0) {
+            return Collections.emptyList();
+        }
+
+        if (clusterRouter != null) {
+            return clusterMultiGet(rawKeys);
+        }
+
+        int batchSize = config.getBatchSize();
+        int partitions = (rawKeys.length + batchSize - 1) / batchSize;
+        int parallelism = Math.min(config.getPipelineParallelism(), partitions);
+        if (parallelism <= 1) {
+            return pipelinedMultiGet(rawKeys, 0, rawKeys.length);
+        }
+
+        // 每个 pipeline 负责连续的若干个 partition,合并结果时保持 key 的顺序
+        int groupSize = (partitions + parallelism - 1) / parallelism * batchSize;
+        List<CompletableFuture<List<Object>>> futures = Lists.newArrayListWithExpectedSize(parallelism);
+        for (int from = 0; from < rawKeys.length; from += groupSize) {
+            int start = from;
+            int end = Math.min(from + groupSize, rawKeys.length);
+            futures.add(CompletableFuture.supplyAsync(() -> pipelinedMultiGet(rawKeys, start, end), config.getPipelineExecutor()));
+        }
+
+        List<Object> valueList = Lists.newArrayListWithExpectedSize(rawKeys.length);
+        for (CompletableFuture<List<Object>> future : futures) {
+            try {
+                valueList.addAll(future.join());
+            } catch (CompletionException e) {
+                if (e.getCause() instanceof RuntimeException) {
+                    throw (RuntimeException) e.getCause();
+                }
+                throw e;
+            }
+        }
+        return valueList;
+    }
+
+    /**
+     * 不同节点之间并行执行,不使用 pipelineParallelism
+     */
+    private List<Object> clusterMultiGet(byte[][] rawKeys) {
+        boolean refreshAhead = config.getRefreshAheadTime() != null;
+        Long[] ttlMillis = refreshAhead ? new Long[rawKeys.length] : null;
+
+        long start = System.nanoTime();
+        byte[][] rawValues = clusterRouter.mget(rawKeys, ttlMillis);
+        metrics.recordCommand("mget", System.nanoTime() - start);
+
+        List<Object> valueList = Lists.newArrayListWithExpectedSize(rawKeys.length);
+        for (int i = 0; i < rawValues.length; i++) {
+            Object value = deserializeValue(rawValues[i]);
+            valueList.add(refreshAhead ? markStale(value, ttlMillis[i]) : value);
+        }
+        return valueList;
+    }
+
+    /**
+     * 获取 rawKeys 中 [from, to) 范围内的 key
+     */
+    private List<Object> pipelinedMultiGet(byte[][] rawKeys, int from, int to) {
+        int batchSize = config.getBatchSize();
+        int partitions = (to - from + batchSize - 1) / batchSize;
+        boolean refreshAhead = config.getRefreshAheadTime() != null;
+
+        long start = System.nanoTime();
+        List<Object> results = redisTemplate.executePipelined(new RedisCallback<Object>() {
+            @Override
+            public Object doInRedis(RedisConnection connection) throws DataAccessException {
+                for (int i = from; i < to; i += batchSize) {
+                    int end = Math.min(i + batchSize, to);
+                    connection.mGet(i == 0 && end == rawKeys.length ? rawKeys : Arrays.copyOfRange(rawKeys, i, end));
+                }
+                // 同一个 pipeline 中获取剩余的过期时间,用于判断是否需要异步刷新
+                if (refreshAhead) {
+                    for (int i = from; i < to; i++) {
+                        connection.pTtl(rawKeys[i]);
+                    }
+                }
+                return null;
+            }
+        }, null);
+        metrics.recordCommand("mget", System.nanoTime() - start);
+
+        List<Object> valueList = Lists.newArrayListWithExpectedSize(to - from);
+        for (int i = 0; i < partitions; i++) {
+            // Get multiple keys. Values are returned in the order of the requested keys.
+            for (byte[] rawValue : (List<byte[]>) results.get(i)) {
+                Object value = deserializeValue(rawValue);
+                if (refreshAhead) {
+                    value = markStale(value, (Long) results.get(partitions + valueList.size()));
+                }
+                valueList.add(value);
+            }
+        }
+        return valueList;
+    }
+
+    /**
+     * 优先返回热点 key 的本地副本,返回值与 {@link #get(byte[])} 相同
+     */
+    private Object read(K key) {
+        if (hotKeyCache == null) {
+            return readRemote(key);
+        }
+        Object value = hotKeyCache.get(key);
+        if (value == null) {
+            long stamp = hotKeyCache.stamp(key);
+            value = readRemote(key);
+            offerHotKey(key, value, stamp);
+        }
+        return value;
+    }
+
+    /**
+     * 优先返回热点 key 的本地副本,只从 redis 读取其余的 key,返回值按 keys 的顺序排列
+     */
+    private List<Object> read(List<K> keys) {
+        if (hotKeyCache == null) {
+            return readRemote(keys);
+        }
+
+        Object[] values = new Object[keys.size()];
+        List<K> remoteKeys = null;
+        int[] remoteIndexes = null;
+        for (int i = 0; i < values.length; i++) {
+            values[i] = hotKeyCache.get(keys.get(i));
+            if (values[i] == null) {
+                if (remoteKeys == null) {
+                    remoteKeys = Lists.newArrayListWithExpectedSize(values.length - i);
+                    remoteIndexes = new int[values.length - i];
+                }
+                remoteIndexes[remoteKeys.size()] = i;
+                remoteKeys.add(keys.get(i));
+            }
+        }
+
+        if (remoteKeys != null) {
+            long[] stamps = new long[remoteKeys.size()];
+            for (int i = 0; i < stamps.length; i++) {
+                stamps[i] = hotKeyCache.stamp(remoteKeys.get(i));
+            }
+            List<Object> remoteValues = readRemote(remoteKeys);
+            for (int i = 0; i < remoteValues.size(); i++) {
+                values[remoteIndexes[i]] = remoteValues.get(i);
+                offerHotKey(remoteKeys.get(i), remoteValues.get(i), stamps[i]);
+            }
+        }
+        return Arrays.asList(values);
+    }
+
+    /**
+     * 开启熔断时,redis 不可用或者读取失败时返回降级缓存中的值,读取成功时更新降级缓存
+     */
+    private Object readRemote(K key) {
+        if (circuitBreaker == null) {
+            return get(rawCacheKey(key));
+        }
+        if (!circuitBreaker.allowRequest()) {
+            return fallbackCache.getIfPresent(key);
+        }
+
+        Object value;
+        try {
+            value = callRedis(() -> get(rawCacheKey(key)));
+        } catch (RuntimeException e) {
+            log.warn("read redis failed, keyPrefix: {}, cause: {}", keyPrefix, e.toString());
+            return fallbackCache.getIfPresent(key);
+        }
+        keepFallback(key, value);
+        return value;
+    }
+
+    /**
+     * @see #readRemote(Serializable)
+     */
+    private List<Object> readRemote(List<K> keys) {
+        if (circuitBreaker == null) {
+            return multiGet(rawCacheKeys(keys));
+        }
+
+        List<Object> values = null;
+        if (circuitBreaker.allowRequest()) {
+            try {
+                values = callRedis(() -> multiGet(rawCacheKeys(keys)));
+            } catch (RuntimeException e) {
+                log.warn("read redis failed, keyPrefix: {}, cause: {}", keyPrefix, e.toString());
+            }
+        }
+        if (values == null) {
+            values = Lists.newArrayListWithExpectedSize(keys.size());
+            for (K k : keys) {
+                values.add(fallbackCache.getIfPresent(k));
+            }
+            return values;
+        }
+
+        for (int i = 0; i < values.size(); i++) {
+            keepFallback(keys.get(i), values.get(i));
+        }
+        return values;
+    }
+
+    private void keepFallback(K key, Object value) {
+        if (value instanceof StaleValue) {
+            value = ((StaleValue) value).value;
+        }
+        if (value != null && !(value instanceof Tombstone)) {
+            fallbackCache.put(key, value);
+        }
+    }
+
+    /**
+     * 开启熔断时记录调用结果,熔断器打开时直接抛出异常
+     */
+    private <T> T callRedis(Supplier<T> call) {
+        if (circuitBreaker == null) {
+            return call.get();
+        }
+        if (!circuitBreaker.allowRequest()) {
+            throw new RedisConnectionFailureException("redis 熔断中,keyPrefix: " + keyPrefix);
+        }
+
+        long start = System.nanoTime();
+        T result;
+        try {
+            result = call.get();
+        } catch (RuntimeException e) {
+            circuitBreaker.onFailure();
+            throw e;
+        }
+        circuitBreaker.onSuccess(System.nanoTime() - start);
+        return result;
+    }
+
+    /**
+     * 与 {@link #callRedis(Supplier)} 相同,根据异步调用的结果记录成功或者失败
+     */
+    private CompletableFuture<Void> callRedisAsync(Supplier<CompletableFuture<Void>> call) {
+        if (circuitBreaker != null && !circuitBreaker.allowRequest()) {
+            return failedFuture(new RedisConnectionFailureException("redis 熔断中,keyPrefix: " + keyPrefix));
+        }
+
+        long start = System.nanoTime();
+        CompletableFuture<Void> future;
+        try {
+            future = call.get();
+        } catch (RuntimeException e) {
+            future = failedFuture(e);
+        }
+        if (circuitBreaker == null) {
+            return future;
+        }
+        return future.whenComplete((ignored, e) -> {
+            if (e == null) {
+                circuitBreaker.onSuccess(System.nanoTime() - start);
+            } else {
+                circuitBreaker.onFailure();
+            }
+        });
+    }
+
+    private static <T> CompletableFuture<T> failedFuture(Throwable e) {
+        CompletableFuture<T> future = new CompletableFuture<>();
+        future.completeExceptionally(e);
+        return future;
+    }
+
+    private void ping() {
+        redisTemplate.execute((RedisCallback<String>) RedisConnection::ping);
+    }
+
+    /**
+     * 即将过期、需要异步刷新的值不保存本地副本
+     */
+    private void offerHotKey(K key, Object value, long stamp) {
+        if (value != null && !(value instanceof StaleValue) && !(value instanceof Tombstone)) {
+            hotKeyCache.offer(key, value, stamp);
+        }
+    }
+
+    /**
+     * 写入 redis 前后各调用一次:写入前清除避免继续返回旧的本地副本,
+     * 写入后清除使写入完成之前开始的读取无法保存读到的旧值
+     */
+    private void invalidateHotKeys(Iterable<K> keys) {
+        if (hotKeyCache != null) {
+            hotKeyCache.invalidate(keys);
+        }
+    }
+
+    /**
+     * @return 缓存中不存在时返回 null,缓存了 null 值时返回 {@link #NULL_VALUE},需要异步刷新时返回 {@link StaleValue}
+     */
+    private Object get(byte[] rawKey) {
+        long start = System.nanoTime();
+        if (config.getRefreshAheadTime() == null) {
+            byte[] rawValue = redisTemplate.execute((RedisCallback<byte[]>) connection -> connection.get(rawKey));
+            metrics.recordCommand("get", System.nanoTime() - start);
+            return deserializeValue(rawValue);
+        }
+
+        List<Object> results = redisTemplate.executePipelined(new RedisCallback<Object>() {
+            @Override
+            public Object doInRedis(RedisConnection connection) throws DataAccessException {
+                connection.get(rawKey);
+                connection.pTtl(rawKey);
+                return null;
+            }
+        }, null);
+        metrics.recordCommand("get", System.nanoTime() - start);
+        return markStale(deserializeValue((byte[]) results.get(0)), (Long) results.get(1));
+    }
+
+    /**
+     * 在 pipeline 中执行脚本,脚本缓存中不存在时加载所有脚本后重试一次
+     */
+    private void executeScripts(Consumer<RedisConnection> action) {
+        RedisCallback<Object> callback = connection -> {
+            action.accept(connection);
+            return null;
+        };
+        try {
+            redisTemplate.executePipelined(callback);
+        } catch (RuntimeException e) {
+            if (!LuaScript.isNoScript(e)) {
+                throw e;
+            }
+            redisTemplate.execute((RedisCallback<Object>) connection -> {
+                SCRIPTS.forEach(script -> script.load(connection));
+                return null;
+            });
+            redisTemplate.executePipelined(callback);
+        }
+    }
+
+    /**
+     * 按 batchSize 拆分为多次脚本调用
+     * <p>
+     * KEYS 为 cache key,维护 known keys 时最后一个 KEY 为 zset;
+     * ARGV[1] 为 zset 的过期时间(秒),不维护时为 -1,之后依次为 headerArgs 和每个 key 的 keyArgs
+     *
+     * @param keyArgs 为 null 时没有每个 key 的参数
+     */
+    private List<ScriptCall> scriptCalls(LuaScript script, List<byte[]> rawKeys,
+                                         @Nullable List<byte[][]> keyArgs, byte[]... headerArgs) {
+        KnownKeysEvictAllStrategy knownKeys = knownKeysStrategy();
+        byte[] knownKeysExpire = knownKeys == null ? NO_KNOWN_KEYS : asciiBytes(knownKeys.getExpireSeconds());
+        int batchSize = config.getBatchSize();
+        List<ScriptCall> calls = Lists.newArrayListWithExpectedSize(rawKeys.size() / batchSize + 1);
+        for (int from = 0; from < rawKeys.size(); from += batchSize) {
+            int to = Math.min(from + batchSize, rawKeys.size());
+            List<byte[]> keysAndArgs = Lists.newArrayList(rawKeys.subList(from, to));
+            if (knownKeys != null) {
+                keysAndArgs.add(knownKeys.getRawKnownKeysName());
+            }
+            int numKeys = keysAndArgs.size();
+            keysAndArgs.add(knownKeysExpire);
+            Collections.addAll(keysAndArgs, headerArgs);
+            if (keyArgs != null) {
+                for (int i = from; i < to; i++) {
+                    Collections.addAll(keysAndArgs, keyArgs.get(i));
+                }
+            }
+            calls.add(new ScriptCall(script, numKeys, keysAndArgs.toArray(new byte[0][])));
+        }
+        return calls;
+    }
+
+    /**
+     * 每次调用生成新的删除标记,阻止 evict 之前开始的加载写入旧数据
+     */
+    List<ScriptCall> evictScriptCalls(List<byte[]> rawKeys) {
+        byte[] ttl = asciiBytes(config.getEvictTombstoneTimeToLive().toMillis());
+        return scriptCalls(EVICT_SCRIPT, rawKeys, null, newTombstone(), ttl, EVICT_GUARD_SUFFIX);
+    }
+
+    private KnownKeysEvictAllStrategy knownKeysStrategy() {
+        return evictAllStrategy instanceof KnownKeysEvictAllStrategy ? (KnownKeysEvictAllStrategy) evictAllStrategy : null;
+    }
+
+    private static byte[] newTombstone() {
+        return Bytes.concat(TOMBSTONE_PREFIX, Longs.toByteArray(ThreadLocalRandom.current().nextLong()));
+    }
+
+    private static boolean isTombstone(byte[] rawValue) {
+        if (rawValue.length != TOMBSTONE_PREFIX.length + Long.BYTES) {
+            return false;
+        }
+        for (int i = 0; i < TOMBSTONE_PREFIX.length; i++) {
+            if (rawValue[i] != TOMBSTONE_PREFIX[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static byte[] asciiBytes(long value) {
+        return String.valueOf(value).getBytes(StandardCharsets.US_ASCII);
+    }
+
+    private Object markStale(Object value, Long ttlMillis) {
+        if (value == null || value == NULL_VALUE || value instanceof Tombstone || ttlMillis == null || ttlMillis < 0) {
+            return value;
+        }
+        return ttlMillis < config.getRefreshAheadTime().toMillis() ? new StaleValue(value) : value;
+    }
+
+    RedisCacheConfig getConfig() {
+        return config;
+    }
+
+    RedisKeyGenerator<K> getKeyGenerator() {
+        return keyGenerator;
+    }
+
+    EvictAllStrategy getEvictAllStrategy() {
+        return evictAllStrategy;
+    }
+
+    byte[] rawCacheKey(K key) {
+        if (!rawKeyEnabled) {
+            RedisSerializer<String> keySerializer = (RedisSerializer<String>) redisTemplate.getKeySerializer();
+            return keySerializer.serialize(buildCacheKey(key));
+        }
+
+        byte[] prefix = rawKeyPrefix();
+        if (keyGenerator instanceof RawRedisKeyGenerator) {
+            return ((RawRedisKeyGenerator<K>) keyGenerator).generate(prefix, key);
+        }
+        return concat(prefix, keyGenerator.generate(key));
+    }
+
+    /**
+     * Values are returned in the order of the requested keys.
+     */
+    private byte[][] rawCacheKeys(List<K> keys) {
+        byte[][] rawKeys = new byte[keys.size()][];
+        for (int i = 0; i < rawKeys.length; i++) {
+            rawKeys[i] = rawCacheKey(keys.get(i));
+        }
+        return rawKeys;
+    }
+
+    /**
+     * @return prefix:[namespace:] 按 UTF-8 编码后的内容
+     */
+    private byte[] rawKeyPrefix() {
+        String namespace = evictAllStrategy == null ? null : evictAllStrategy.namespace();
+        RawKeyPrefix current = rawKeyPrefix;
+        if (current == null || !Objects.equals(current.namespace, namespace)) {
+            String prefix = namespace == null ? keyPrefix + SEPARATOR : keyPrefix + SEPARATOR + namespace + SEPARATOR;
+            current = new RawKeyPrefix(namespace, prefix.getBytes(StandardCharsets.UTF_8));
+            rawKeyPrefix = current;
+        }
+        return current.bytes;
+    }
+
+    /**
+     * value 为 null 时返回 null 值的占位内容
+     */
+    byte[] rawValue(V value) {
+        if (value == null) {
+            return NULL_VALUE_BYTES;
+        }
+        return valueCodec.encode(value);
+    }
+
+    long expireMillis(K key, V value) {
+        return expiryPolicy.expireAfterWrite(key, value, frequencySketch == null ? 0 : frequencySketch.frequency(key));
+    }
+
+    private void recordAccess(K key) {
+        if (frequencySketch != null) {
+            frequencySketch.increment(key);
+        }
+    }
+
+    private void recordAccess(List<K> keys) {
+        if (frequencySketch != null) {
+            keys.forEach(frequencySketch::increment);
+        }
+    }
+
+    /**
+     * @return 与 {@link #put(Map)} 一样通过 lua 脚本写入时返回 true,此时使用 {@link #writeScriptCalls(Map, Map, List)}
+     */
+    boolean isScriptedWrite() {
+        return config.isLuaScriptsEnabled() && clusterRouter == null;
+    }
+
+    /**
+     * @return 开启 luaScriptsEnabled 并且 rawValue 是删除标记时返回 rawValue,否则返回 null
+     */
+    @Nullable
+    byte[] tombstoneOf(@Nullable byte[] rawValue) {
+        return rawValue != null && config.isLuaScriptsEnabled() && isTombstone(rawValue) ? rawValue : null;
+    }
+
+    /**
+     * @return 缓存中不存在时返回 null
+     */
+    ValueWrapper<V> toValueWrapper(byte[] rawValue) {
+        Object value = deserializeValue(rawValue);
+        return value == null || value instanceof Tombstone ? null : ValueWrapper.of(value == NULL_VALUE ? null : (V) value);
+    }
+
+    /**
+     * valueCodec 无法识别的数据视为缓存中不存在,重新加载后覆盖
+     *
+     * @return 开启 luaScriptsEnabled 时,删除标记返回 {@link Tombstone}
+     */
+    private Object deserializeValue(byte[] rawValue) {
+        if (rawValue == null) {
+            return null;
+        }
+        if (Arrays.equals(rawValue, NULL_VALUE_BYTES)) {
+            return NULL_VALUE;
+        }
+        if (config.isLuaScriptsEnabled() && isTombstone(rawValue)) {
+            return new Tombstone(rawValue);
+        }
+        return valueCodec.decode(rawValue);
+    }
+
+
+    private boolean isFiltered(K key) {
+        return config.getKeyFilter() != null && !config.getKeyFilter().mightContain(keyGenerator.generate(key));
+    }
+
+    /**
+     * @param filteredKeys 不为 null 时,收集被过滤掉的 key
+     * @return 未被过滤的 key
+     */
+    private List<K> filter(List<K> keys, List<K> filteredKeys) {
+        List<String> filterKeys = Lists.newArrayListWithExpectedSize(keys.size());
+        keys.forEach(k -> filterKeys.add(keyGenerator.generate(k)));
+        boolean[] mightContain = config.getKeyFilter().mightContain(filterKeys);
+
+        List<K> result = Lists.newArrayListWithExpectedSize(keys.size());
+        for (int i = 0; i < mightContain.length; i++) {
+            if (mightContain[i]) {
+                result.add(keys.get(i));
+            } else if (filteredKeys != null) {
+                filteredKeys.add(keys.get(i));
+            }
+        }
+        return result;
+    }
 
     private String buildCacheKey(K key) {
+        String namespace = evictAllStrategy == null ? null : evictAllStrategy.namespace();
+        if (namespace != null) {
+            return keyPrefix + SEPARATOR + namespace + SEPARATOR + keyGenerator.generate(key);
+        }
         return keyPrefix + SEPARATOR + keyGenerator.generate(key);
     }
 
+    private List<byte[]> buildLoadLockKey(List<K> keys) {
+        List<byte[]> lockKeys = Lists.newArrayListWithExpectedSize(keys.size());
+        keys.forEach(k -> {
+            byte[] rawKey = rawCacheKey(k);
+            byte[] lockKey = Arrays.copyOf(rawKey, rawKey.length + RAW_LOAD_LOCK_SUFFIX.length);
+            System.arraycopy(RAW_LOAD_LOCK_SUFFIX, 0, lockKey, rawKey.length, RAW_LOAD_LOCK_SUFFIX.length);
+            lockKeys.add(lockKey);
+        });
+        return lockKeys;
+    }
 
     /**
-     * Values are returned in the order of the requested keys.
+     * 传入的 keys 本身是 List 时不再复制
+     */
+    private static <K> List<K> asList(Iterable<K> keys) {
+        return keys instanceof List ? (List<K>) keys : Lists.newArrayList(keys);
+    }
+
+    /**
+     * 将 key 按 UTF-8 编码后拼接在 prefix 之后,key 只包含 ASCII 字符时不产生中间对象
      */
-    private List<String> buildCacheKey(Iterable<K> keys) {
-        List<String> cacheKeys = Lists.newArrayList();
-        keys.forEach(k -> cacheKeys.add(buildCacheKey(k)));
-        return cacheKeys;
+    static byte[] concat(byte[] prefix, String key) {
+        int length = key.length();
+        byte[] rawKey = new byte[prefix.length + length];
+        System.arraycopy(prefix, 0, rawKey, 0, prefix.length);
+        for (int i = 0; i < length; i++) {
+            char c = key.charAt(i);
+            if (c >= 0x80) {
+                byte[] encoded = key.getBytes(StandardCharsets.UTF_8);
+                rawKey = Arrays.copyOf(rawKey, prefix.length + encoded.length);
+                System.arraycopy(encoded, 0, rawKey, prefix.length, encoded.length);
+                return rawKey;
+            }
+            rawKey[prefix.length + i] = (byte) c;
+        }
+        return rawKey;
+    }
+
+    /**
+     * 开启 luaScriptsEnabled 时 evict 写入的删除标记,读取时视为缓存中不存在
+     */
+    private static class Tombstone {
+
+        private final byte[] raw;
+
+        private Tombstone(byte[] raw) {
+            this.raw = raw;
+        }
+    }
+
+    /**
+     * 即将过期、需要异步刷新的值
+     */
+    private static class StaleValue {
+
+        private final Object value;
+
+        private StaleValue(Object value) {
+            this.value = value;
+        }
+    }
+
+    /**
+     * {@link MultiCacheLoader} 的加载结果
+     */
+    private static class LoadResult<K, V> {
+
+        private final Map<K, V> values;
+
+        /**
+         * 成功调用了 {@link MultiCacheLoader} 的 key,不包含加载失败的批次,只有这些 key 会缓存 null 值
+         */
+        private final Set<K> loadedKeys;
+
+        private LoadResult(Map<K, V> values, Set<K> loadedKeys) {
+            this.values = values;
+            this.loadedKeys = loadedKeys;
+        }
+    }
+
+    /**
+     * 依次返回每个窗口的结果,返回当前窗口之前先开始读取下一个窗口
+     */
+    private class WindowIterator implements Iterator<Map<K, V>> {
+
+        private final Iterator<K> keys;
+
+        private final StreamingLoadConfig streamingConfig;
+
+        private List<K> nextKeys;
+
+        private CompletableFuture<List<Object>> nextValues;
+
+        private WindowIterator(Iterator<K> keys, StreamingLoadConfig streamingConfig) {
+            if (streamingConfig.getWindowSize() <= 0) {
+                throw new IllegalArgumentException("windowSize 必须大于 0");
+            }
+            if (streamingConfig.getLoaderBatchSize() <= 0) {
+                throw new IllegalArgumentException("loaderBatchSize 必须大于 0");
+            }
+            this.keys = Objects.requireNonNull(keys);
+            this.streamingConfig = streamingConfig;
+            prefetch();
+        }
+
+        @Override
+        public boolean hasNext() {
+            return nextKeys != null;
+        }
+
+        @Override
+        public Map<K, V> next() {
+            if (nextKeys == null) {
+                throw new NoSuchElementException();
+            }
+
+            List<K> windowKeys = nextKeys;
+            CompletableFuture<List<Object>> windowValues = nextValues;
+            prefetch();
+
+            List<Object> valueList;
+            if (windowValues == null) {
+                valueList = readLatest(windowKeys);
+            } else {
+                try {
+                    valueList = windowValues.join();
+                } catch (CompletionException e) {
+                    if (e.getCause() instanceof RuntimeException) {
+                        throw (RuntimeException) e.getCause();
+                    }
+                    throw e;
+                }
+            }
+            return resolve(windowKeys, valueList, true, streamingConfig.getLoaderBatchSize());
+        }
+
+        /**
+         * 取出下一个窗口的 key,没有设置 prefetchExecutor 时等到 {@link #next()} 时再读取
+         */
+        private void prefetch() {
+            List<K> window = Collections.emptyList();
+            while (window.isEmpty() && keys.hasNext()) {
+                List<K> batch = Lists.newArrayListWithCapacity(streamingConfig.getWindowSize());
+                while (batch.size() < streamingConfig.getWindowSize() && keys.hasNext()) {
+                    batch.add(keys.next());
+                }
+                window = prepareKeys(batch);
+            }
+
+            if (window.isEmpty()) {
+                nextKeys = null;
+                nextValues = null;
+                return;
+            }
+            List<K> windowKeys = window;
+            nextKeys = windowKeys;
+            nextValues = streamingConfig.getPrefetchExecutor() == null ? null
+                    : CompletableFuture.supplyAsync(() -> readLatest(windowKeys), streamingConfig.getPrefetchExecutor());
+        }
+    }
+
+    /**
+     * write-behind 队列中等待写入的值
+     */
+    private static final class QueuedValue<V> {
+
+        private final V value;
+
+        /**
+         * 是否为加载结果,加载结果写入时不覆盖读取之后 evict 写入的删除标记
+         */
+        private final boolean loaded;
+
+        /**
+         * 加载前读取到的删除标记,不存在时为 null
+         */
+        private final byte[] tombstone;
+
+        /**
+         * 加载结果的写入期限,见 {@link #put(Map, Map, long)}
+         */
+        private final long loadDeadline;
+
+        private QueuedValue(V value, boolean loaded, byte[] tombstone, long loadDeadline) {
+            this.value = value;
+            this.loaded = loaded;
+            this.tombstone = tombstone;
+            this.loadDeadline = loadDeadline;
+        }
+    }
+
+    /**
+     * 按 batchSize 拆分之后的一次脚本调用
+     */
+    static final class ScriptCall {
+
+        final LuaScript script;
+
+        final int numKeys;
+
+        final byte[][] keysAndArgs;
+
+        private ScriptCall(LuaScript script, int numKeys, byte[][] keysAndArgs) {
+            this.script = script;
+            this.numKeys = numKeys;
+            this.keysAndArgs = keysAndArgs;
+        }
+    }
+
+    /**
+     * 编码后的 key 前缀
+     */
+    private static class RawKeyPrefix {
+
+        private final String namespace;
+
+        private final byte[] bytes;
+
+        private RawKeyPrefix(String namespace, byte[] bytes) {
+            this.namespace = namespace;
+            this.bytes = bytes;
+        }
     }
 
     @FunctionalInterface
@@ -260,6 +2429,99 @@ public class RedisCache<K extends Serializable, V extends Serializable> implemen
         String generate(@NonNull K key);
     }
 
+    /**
+     * 直接生成编码后的 redis key,生成的内容必须与 prefix 加上 {@link #generate(Object)} 按 UTF-8 编码的结果相同
+     * <p>
+     * 仅在 RedisTemplate 的 keySerializer 按 UTF-8 编码字符串时生效
+     */
+    public interface RawRedisKeyGenerator<K> extends RedisKeyGenerator<K> {
+
+        /**
+         * @param prefix 编码后的 key 前缀,不能修改
+         */
+        @NonNull
+        byte[] generate(@NonNull byte[] prefix, @NonNull K key);
+    }
+
+    /**
+     * 在 key 前加入 hash tag,使相关的 key 位于 redis cluster 的同一个 slot 中,生成的 key 为 {tag}:key
+     */
+    public static class HashTagRedisKeyGenerator<K> implements RedisKeyGenerator<K> {
+
+        private final Function<K, String> hashTag;
+
+        private final RedisKeyGenerator<K> delegate;
+
+        /**
+         * @param hashTag 相同 hash tag 的 key 位于同一个 slot
+         */
+        public HashTagRedisKeyGenerator(Function<K, String> hashTag, RedisKeyGenerator<K> delegate) {
+            this.hashTag = Objects.requireNonNull(hashTag);
+            this.delegate = Objects.requireNonNull(delegate);
+        }
+
+        @Override
+        @NonNull
+        public String generate(@NonNull K key) {
+            return "{" + hashTag.apply(key) + "}" + SEPARATOR + delegate.generate(key);
+        }
+    }
+
+    /**
+     * 整数类型 key 的生成器,直接写入十进制数字,不需要调用 toString
+     * 生成的 key 与 {@link DefaultRedisKeyGenerator} 相同。只支持 {@link #LONG}、{@link #INTEGER}、{@link #SHORT} 和 {@link #BYTE},
+     * 浮点数等其他 {@link Number} 通过 longValue 转换后不同的 key 会冲突
+     */
+    public static final class LongRedisKeyGenerator<K extends Number> implements RawRedisKeyGenerator<K> {
+
+        public static final LongRedisKeyGenerator<Long> LONG = new LongRedisKeyGenerator<>();
+
+        public static final LongRedisKeyGenerator<Integer> INTEGER = new LongRedisKeyGenerator<>();
+
+        public static final LongRedisKeyGenerator<Short> SHORT = new LongRedisKeyGenerator<>();
+
+        public static final LongRedisKeyGenerator<Byte> BYTE = new LongRedisKeyGenerator<>();
+
+        private LongRedisKeyGenerator() {
+        }
+
+        @Override
+        @NonNull
+        public String generate(@NonNull K key) {
+            return Long.toString(key.longValue());
+        }
+
+        @Override
+        @NonNull
+        public byte[] generate(@NonNull byte[] prefix, @NonNull K key) {
+            return generate(prefix, key.longValue());
+        }
+
+        private static byte[] generate(byte[] prefix, long key) {
+            if (key == Long.MIN_VALUE) {
+                return concat(prefix, Long.toString(key));
+            }
+
+            boolean negative = key < 0;
+            long value = negative ? -key : key;
+            int digits = 1;
+            for (long n = value; n >= 10; n /= 10) {
+                digits++;
+            }
+
+            int length = prefix.length + digits + (negative ? 1 : 0);
+            byte[] rawKey = Arrays.copyOf(prefix, length);
+            if (negative) {
+                rawKey[prefix.length] = '-';
+            }
+            for (int i = length - 1; i >= length - digits; i--) {
+                rawKey[i] = (byte) ('0' + value % 10);
+                value /= 10;
+            }
+            return rawKey;
+        }
+    }
+
 
     public static class DefaultRedisKeyGenerator<K> implements RedisKeyGenerator<K> {
 
@@ -0,0 +1,270 @@
+package com.github.shenjianeng.easycache.core;
+
+import com.github.shenjianeng.easycache.core.codec.ValueCodec;
+import io.lettuce.core.cluster.api.StatefulRedisClusterConnection;
+import lombok.Data;
+
+import java.time.Duration;
+import java.util.concurrent.Executor;
+
+/**
+ * {@link RedisCache} 的可选配置
+ *
+ * @author shenjianeng
+ * @date 2026/10/18
+ */
+@Data
+public class RedisCacheConfig {
+
+    /**
+     * 单条 mget 命令最多获取的 key 数量
+     */
+    private int batchSize = 20;
+
+    /**
+     * 批量读取时并行执行的 pipeline 数量
+     * 为 1 时所有 mget 命令在同一个 pipeline 中发送
+     */
+    private int pipelineParallelism = 1;
+
+    /**
+     * 执行并行 pipeline 的线程池,pipelineParallelism 大于 1 时必须设置
+     */
+    private Executor pipelineExecutor;
+
+    /**
+     * 是否通过 redis 分布式锁保证集群中只有一个节点加载同一个 key
+     */
+    private boolean loadLockEnabled = false;
+
+    /**
+     * 分布式锁的过期时间,应大于 {@link MultiCacheLoader#loadCache(java.util.Collection)} 的最大耗时
+     */
+    private Duration loadLockLease = Duration.ofSeconds(10);
+
+    /**
+     * 未获取到分布式锁时,等待其他节点加载完成的最长时间,超时后由当前节点自行加载
+     */
+    private Duration loadLockWaitTimeout = Duration.ofSeconds(3);
+
+    /**
+     * 是否缓存 null 值
+     * 开启后 {@link MultiCacheLoader} 未加载到的 key 也会被缓存,避免缓存穿透
+     */
+    private boolean cacheNullValues = false;
+
+    /**
+     * null 值的缓存时间,一般应小于正常的缓存时间,配置了 expiryPolicy 时不生效
+     */
+    private Duration nullValueTimeToLive = Duration.ofMinutes(1);
+
+    /**
+     * key 过滤器,被过滤的 key 不会访问 redis,也不会调用 {@link MultiCacheLoader} 加载数据
+     * <p>
+     * {@link LocalBloomFilter} 只记录当前进程写入的 key,仅在单节点部署时结果正确;
+     * 多节点部署(包括使用 {@link NearCache} 的场景)需要使用 {@link RedisBloomFilter}
+     *
+     * @see LocalBloomFilter
+     * @see RedisBloomFilter
+     */
+    private CacheKeyFilter keyFilter;
+
+    /**
+     * 缓存剩余的过期时间小于该值时,读取操作仍然返回缓存中的值,同时异步刷新缓存
+     * 为 null 时不开启异步刷新
+     */
+    private Duration refreshAheadTime;
+
+    /**
+     * 执行异步刷新的线程池,建议使用有界队列,队列满时放弃本次刷新
+     */
+    private Executor refreshExecutor;
+
+    /**
+     * evictAll 的实现策略,不为 null 时忽略构造方法中的 maintainKnownKeys 参数
+     */
+    private EvictAllStrategy evictAllStrategy;
+
+    /**
+     * value 的编解码方式,为 null 时使用 RedisTemplate 的 valueSerializer
+     * 使用非 JDK 序列化的 valueCodec 时,value 不需要实现 {@link java.io.Serializable}
+     *
+     * @see com.github.shenjianeng.easycache.core.codec.KryoValueCodec
+     * @see com.github.shenjianeng.easycache.core.codec.VersionedValueCodec
+     */
+    private ValueCodec<?> valueCodec;
+
+    /**
+     * 监控指标,为 null 时不记录
+     *
+     * @see MicrometerCacheMetrics
+     */
+    private CacheMetrics metrics;
+
+    /**
+     * 是否开启 write-behind,开启后 put 和加载结果都先进入队列,由后台线程批量写入 redis
+     * 当前节点读取时队列中的值优先于 redis 中的值;写入失败的批次放回队列重试,连续失败 3 次后丢弃,
+     * 开启熔断时熔断器打开期间的写入同样视为失败。
+     * 关闭 RedisCache 时写入队列中剩余的数据,之后的 put 抛出 IllegalStateException
+     */
+    private boolean writeBehindEnabled = false;
+
+    /**
+     * write-behind 队列中最多等待写入的 key 数量
+     */
+    private int writeBehindQueueCapacity = 10000;
+
+    /**
+     * 后台线程每次最多写入的 key 数量
+     */
+    private int writeBehindBatchSize = 500;
+
+    /**
+     * 队列中的 key 不足 writeBehindBatchSize 时,最长等待多久后写入
+     */
+    private Duration writeBehindFlushInterval = Duration.ofMillis(100);
+
+    /**
+     * write-behind 队列已满时的处理方式
+     */
+    private WriteBehindOverflowPolicy writeBehindOverflowPolicy = WriteBehindOverflowPolicy.CALLER_RUNS;
+
+    /**
+     * 使用 redis cluster 时设置,批量读写、删除和加载锁按 hash slot 分组后直接发送到所属节点
+     * <p>
+     * 使用 spring 的 LettuceConnectionFactory 时,可以通过
+     * {@code ((RedisAdvancedClusterAsyncCommands<byte[], byte[]>) factory.getClusterConnection().getNativeConnection()).getStatefulConnection()}
+     * 获取;建议在 ClusterClientOptions 中开启拓扑刷新
+     *
+     * @see RedisCache.HashTagRedisKeyGenerator
+     */
+    private StatefulRedisClusterConnection<byte[], byte[]> clusterConnection;
+
+    /**
+     * 计算每个缓存项的过期时间,为 null 时使用 {@link DefaultExpiryPolicy}
+     *
+     * @see AdaptiveExpiryPolicy
+     */
+    private ExpiryPolicy<?, ?> expiryPolicy;
+
+    /**
+     * 统计 key 访问次数时,Count-Min Sketch 每一行的计数器数量
+     */
+    private int frequencySketchWidth = 4096;
+
+    /**
+     * 是否开启热点 key 检测,开启后访问次数达到 hotKeyThreshold 的 key 在本地保存一份短时间的副本,
+     * 读取时不再访问 redis,避免单个 redis 节点被热点 key 打满
+     * <p>
+     * 当前节点的 put / evict 在写入 redis 前后都会清除本地副本,其他节点的修改最多延迟 hotKeyLocalTimeToLive 后可见
+     *
+     * @see RedisCache#hotKeys()
+     */
+    private boolean hotKeyDetectionEnabled = false;
+
+    /**
+     * 访问次数的估计值达到该值时视为热点 key,计数器每经过 frequencySketchWidth * 10 次访问减半
+     */
+    private int hotKeyThreshold = 64;
+
+    /**
+     * 本地最多保存的热点 key 数量
+     */
+    private int hotKeyCapacity = 100;
+
+    /**
+     * 热点 key 本地副本的保存时间
+     */
+    private Duration hotKeyLocalTimeToLive = Duration.ofSeconds(1);
+
+    /**
+     * 是否开启熔断,开启后 redis 连续失败或响应过慢时不再访问 redis,进入降级模式:
+     * 读取操作使用本地的降级缓存,未命中时直接调用 {@link MultiCacheLoader},写入操作只写入降级缓存,
+     * evict 和 evictAll 抛出 {@link org.springframework.data.redis.RedisConnectionFailureException}。
+     * 加载锁、异步刷新、预热和按窗口读取同样经过熔断器;{@link RedisAsyncCache} 的 put 和 evict 经过熔断器,读取不受熔断器保护
+     * <p>
+     * 单次调用的超时时间由 redis 客户端控制,例如 lettuce 的 commandTimeout,应设置为略大于 circuitBreakerSlowCallThreshold
+     */
+    private boolean circuitBreakerEnabled = false;
+
+    /**
+     * 连续失败多少次后打开熔断器
+     */
+    private int circuitBreakerFailureThreshold = 5;
+
+    /**
+     * 访问 redis 的耗时超过该值时视为一次失败
+     */
+    private Duration circuitBreakerSlowCallThreshold = Duration.ofMillis(500);
+
+    /**
+     * 熔断器打开后,后台探测 redis 是否恢复的间隔
+     */
+    private Duration circuitBreakerProbeInterval = Duration.ofSeconds(1);
+
+    /**
+     * 降级缓存最多保存的 key 数量,开启熔断后正常读写的数据也会写入降级缓存
+     */
+    private int fallbackCacheCapacity = 10000;
+
+    /**
+     * 降级缓存的保存时间
+     */
+    private Duration fallbackTimeToLive = Duration.ofMinutes(1);
+
+    /**
+     * 降级模式下同时调用 {@link MultiCacheLoader} 的最大线程数
+     */
+    private int fallbackLoadConcurrency = 16;
+
+    /**
+     * 降级模式下等待调用 {@link MultiCacheLoader} 的最长时间,超时后抛出 {@link org.springframework.data.redis.RedisConnectionFailureException}
+     */
+    private Duration fallbackLoadTimeout = Duration.ofSeconds(1);
+
+    /**
+     * 是否通过 lua 脚本(EVALSHA)执行写入和删除,value、过期时间和 {@link KnownKeysEvictAllStrategy} 的 zset 在同一个脚本中原子地更新
+     * <p>
+     * 开启后 evict 不再直接删除 key,而是写入一个短时间的删除标记,读取时视为缓存中不存在;
+     * evict 之前开始的加载不会写入结果,即使删除标记已经被 evict 之后的加载结果覆盖,避免并发的 evict 被旧数据覆盖。
+     * 不支持 redis cluster,{@link RedisAsyncCache} 通过异步连接执行相同的脚本
+     */
+    private boolean luaScriptsEnabled = false;
+
+    /**
+     * 删除标记的保存时间,应大于 {@link MultiCacheLoader#loadCache(java.util.Collection)} 的最大耗时;
+     * 加载耗时超过该时间时无法判断期间是否执行过 evict,放弃写入加载结果
+     */
+    private Duration evictTombstoneTimeToLive = Duration.ofSeconds(10);
+
+    /**
+     * 每次调用 {@link MultiCacheLoader#loadCache(java.util.Collection)} 的最大 key 数量,小于等于 0 时不拆分
+     */
+    private int loaderBatchSize = 0;
+
+    /**
+     * 调用 {@link MultiCacheLoader} 的线程池,为 null 时在调用线程中依次加载各个批次
+     * <p>
+     * 每次调用都会提交一个任务,可以使用虚拟线程等不限数量的线程池,并发数量由 loaderParallelism 限制
+     */
+    private Executor loaderExecutor;
+
+    /**
+     * 设置 loaderExecutor 时,当前 RedisCache 同时调用 {@link MultiCacheLoader} 的最大数量
+     */
+    private int loaderParallelism = 4;
+
+    /**
+     * 设置 loaderExecutor 时,每次调用 {@link MultiCacheLoader} 的超时时间(包括等待并发许可的时间),
+     * 超时后中断正在执行的 {@link MultiCacheLoader} 并抛出 {@link org.springframework.dao.QueryTimeoutException},
+     * loader 返回后才释放并发许可;为 null 时一直等待
+     */
+    private Duration loaderTimeout;
+
+    /**
+     * 拆分后的某个批次加载失败时,是否返回其他批次的加载结果,失败的 key 视为本次未加载到,并且不会缓存 null 值;
+     * 为 false 时抛出第一个失败批次的异常
+     */
+    private boolean loaderPartialResultsEnabled = false;
+
+}
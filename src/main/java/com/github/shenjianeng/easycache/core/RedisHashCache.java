@@ -0,0 +1,516 @@
+package com.github.shenjianeng.easycache.core;
+
+import com.github.shenjianeng.easycache.core.codec.RedisSerializerValueCodec;
+import com.github.shenjianeng.easycache.core.codec.ValueCodec;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+import com.google.common.hash.HashFunction;
+import com.google.common.hash.Hashing;
+import com.google.common.primitives.Bytes;
+import com.google.common.primitives.Longs;
+import org.checkerframework.checker.nullness.qual.NonNull;
+import org.checkerframework.checker.nullness.qual.Nullable;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.serializer.RedisSerializer;
+
+import java.io.Serializable;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * 将缓存项按 key 的 hash 值分散保存到固定数量的 redis hash(bucket)中
+ * <p>
+ * 与 {@link RedisCache} 每个缓存项一个 redis key 相比,省去了每个 key 的元数据开销,bucket 较小时 redis 使用紧凑的编码方式,
+ * 适合数量很多、value 很小的缓存;批量读写时每个 bucket 一条 HMGET / HMSET 命令,通过 pipeline 发送
+ * <p>
+ * 由于 redis hash 的 field 不能单独设置过期时间,过期方式见 {@link BucketExpiryMode}
+ *
+ * @author shenjianeng
+ * @date 2026/10/18
+ */
+@SuppressWarnings("unchecked")
+public class RedisHashCache<K extends Serializable, V> implements Cache<K, V> {
+
+    private static final String BUCKET_SEPARATOR = ":$$bucket$$:";
+    private static final int EVICT_ALL_BATCH_SIZE = 1000;
+    private static final HashFunction HASH_FUNCTION = Hashing.murmur3_32();
+
+    /**
+     * 设置 expectedEntryCount 时每个 bucket 预期的 field 数量,低于 hash-max-listpack-entries 的默认值 128
+     */
+    private static final int FIELDS_PER_BUCKET = 100;
+
+    /**
+     * {@link BucketExpiryMode#FIELD} 时写入 bucket 并删除其中已过期的 field,bucket 的过期时间设置为未过期的 field 中最晚的过期时间
+     * <p>
+     * ARGV[1] 为当前时间(毫秒),之后依次为每个 field 和 value;value 的前 8 个字节为过期时间戳
+     */
+    private static final LuaScript WRITE_FIELDS_SCRIPT = new LuaScript("local now = tonumber(ARGV[1]) "
+            + "for i = 2, #ARGV, 1000 do "
+            + "redis.call('hmset', KEYS[1], unpack(ARGV, i, math.min(i + 999, #ARGV))) "
+            + "end "
+            + "local entries = redis.call('hgetall', KEYS[1]) "
+            + "local expired = {} "
+            + "local expireAt = 0 "
+            + "for i = 1, #entries, 2 do "
+            + "local value = entries[i + 1] "
+            + "local t = 0 "
+            + "if #value > 8 then t = struct.unpack('>i8', value) end "
+            + "if t <= now then expired[#expired + 1] = entries[i] elseif t > expireAt then expireAt = t end "
+            + "end "
+            + "for i = 1, #expired, 1000 do "
+            + "redis.call('hdel', KEYS[1], unpack(expired, i, math.min(i + 999, #expired))) "
+            + "end "
+            + "if expireAt > 0 then redis.call('pexpireat', KEYS[1], string.format('%d', expireAt)) end "
+            + "return #expired");
+
+    /**
+     * 缓存 null 值时在 field 中保存的内容
+     */
+    private static final byte[] NULL_VALUE_BYTES = new byte[]{0};
+
+    /**
+     * 从 redis 中读取到 null 值时的占位对象
+     */
+    private static final Object NULL_VALUE = new Object();
+
+    /**
+     * 读取到已过期的 field 时的占位对象
+     */
+    private static final Object EXPIRED = new Object();
+
+    private final RedisTemplate<String, Serializable> redisTemplate;
+
+    private final String keyPrefix;
+
+    private final Duration timeToLive;
+
+    private final MultiCacheLoader<K, V> multiCacheLoader;
+
+    private final RedisCache.RedisKeyGenerator<K> keyGenerator;
+
+    private final RedisHashCacheConfig config;
+
+    private final ValueCodec<V> valueCodec;
+
+    private final CacheMetrics metrics;
+
+    private final RedisSerializer<String> keySerializer;
+
+    private final SingleFlight<K, V> singleFlight = new SingleFlight<>();
+
+    private final int bucketCount;
+
+
+    public RedisHashCache(String keyPrefix, RedisTemplate<String, Serializable> redisTemplate,
+                          Duration timeToLive, MultiCacheLoader<K, V> multiCacheLoader) {
+
+        this(keyPrefix, redisTemplate, timeToLive, multiCacheLoader, RedisCache.DefaultRedisKeyGenerator.INSTANCE,
+                new RedisHashCacheConfig());
+    }
+
+    public RedisHashCache(String keyPrefix, RedisTemplate<String, Serializable> redisTemplate,
+                          Duration timeToLive, MultiCacheLoader<K, V> multiCacheLoader,
+                          RedisCache.RedisKeyGenerator<K> keyGenerator, RedisHashCacheConfig config) {
+
+        this.redisTemplate = Objects.requireNonNull(redisTemplate);
+        this.keyPrefix = Objects.requireNonNull(keyPrefix);
+        this.timeToLive = Objects.requireNonNull(timeToLive);
+        this.multiCacheLoader = Objects.requireNonNull(multiCacheLoader);
+        this.keyGenerator = Objects.requireNonNull(keyGenerator);
+        this.config = Objects.requireNonNull(config);
+        this.valueCodec = config.getValueCodec() != null ? (ValueCodec<V>) config.getValueCodec()
+                : new RedisSerializerValueCodec<>(redisTemplate.getValueSerializer());
+        this.metrics = config.getMetrics() != null ? config.getMetrics() : CacheMetrics.NOOP;
+        this.keySerializer = (RedisSerializer<String>) redisTemplate.getKeySerializer();
+
+        if (config.getExpectedEntryCount() < 0) {
+            throw new IllegalArgumentException("expectedEntryCount 不能小于 0");
+        }
+        if (config.getExpectedEntryCount() > 0) {
+            long count = (config.getExpectedEntryCount() + FIELDS_PER_BUCKET - 1) / FIELDS_PER_BUCKET;
+            if (count > Integer.MAX_VALUE) {
+                throw new IllegalArgumentException("expectedEntryCount 过大");
+            }
+            this.bucketCount = (int) count;
+        } else {
+            if (config.getBucketCount() <= 0) {
+                throw new IllegalArgumentException("bucketCount 必须大于 0");
+            }
+            this.bucketCount = config.getBucketCount();
+        }
+    }
+
+
+    @Override
+    @NonNull
+    public Map<K, V> getIfPresent(@NonNull Iterable<K> keys) {
+        return doGetOrLoadIfAbsent(keys, false);
+    }
+
+    @Override
+    @Nullable
+    public V getIfPresent(@NonNull K key) {
+        return doGetOrLoadIfAbsent(Collections.singletonList(key), false).get(key);
+    }
+
+    @Override
+    @Nullable
+    public ValueWrapper<V> getWrapperIfPresent(@NonNull K key) {
+        return getWrapperIfPresent(Collections.singletonList(key)).get(key);
+    }
+
+    @Override
+    @NonNull
+    public Map<K, ValueWrapper<V>> getWrapperIfPresent(@NonNull Iterable<K> keys) {
+        List<K> keysList = Lists.newArrayList(keys);
+        Map<K, Object> values = read(keysList);
+        metrics.recordGets(values.size(), keysList.size() - values.size());
+
+        Map<K, ValueWrapper<V>> map = Maps.newHashMapWithExpectedSize(values.size());
+        values.forEach((k, v) -> map.put(k, ValueWrapper.of(v == NULL_VALUE ? null : (V) v)));
+        return map;
+    }
+
+    @Override
+    @NonNull
+    public Map<K, V> getOrLoadIfAbsent(@NonNull Iterable<K> keys) {
+        return doGetOrLoadIfAbsent(keys, true);
+    }
+
+    @Override
+    @Nullable
+    public V getOrLoadIfAbsent(@NonNull K key) {
+        return doGetOrLoadIfAbsent(Collections.singletonList(key), true).get(key);
+    }
+
+    @Override
+    public void put(@NonNull K key, @Nullable V value) {
+        if (value != null || config.isCacheNullValues()) {
+            put(Collections.singletonMap(key, value));
+        }
+    }
+
+    @Override
+    public void put(@NonNull Map<K, V> map) {
+        metrics.recordBatchSize("put", map.size());
+        Map<K, V> entries = Maps.newHashMapWithExpectedSize(map.size());
+        map.forEach((k, v) -> {
+            if (k != null && (v != null || config.isCacheNullValues())) {
+                entries.put(k, v);
+            }
+        });
+        write(entries);
+    }
+
+    @Override
+    public void evict(@NonNull K key) {
+        evict(Collections.singletonList(key));
+    }
+
+    @Override
+    public void evict(@NonNull Iterable<K> keys) {
+        List<K> keysList = Lists.newArrayList(keys);
+        if (keysList.isEmpty()) {
+            return;
+        }
+
+        metrics.recordBatchSize("evict", keysList.size());
+        Collection<Bucket<K>> buckets = group(keysList);
+        long start = System.nanoTime();
+        redisTemplate.executePipelined(new RedisCallback<Object>() {
+            @Override
+            public Object doInRedis(RedisConnection connection) throws DataAccessException {
+                for (Bucket<K> bucket : buckets) {
+                    connection.hDel(rawBucketKey(bucket.index), bucket.fields.toArray(new byte[0][]));
+                }
+                return null;
+            }
+        });
+        metrics.recordCommand("hdel", System.nanoTime() - start);
+        metrics.recordEvictions(keysList.size());
+    }
+
+    /**
+     * 删除所有 bucket,不需要额外维护已知的 key
+     */
+    @Override
+    public void evictAll() {
+        redisTemplate.executePipelined(new RedisCallback<Object>() {
+            @Override
+            public Object doInRedis(RedisConnection connection) throws DataAccessException {
+                for (int from = 0; from < bucketCount; from += EVICT_ALL_BATCH_SIZE) {
+                    int to = Math.min(from + EVICT_ALL_BATCH_SIZE, bucketCount);
+                    byte[][] rawKeys = new byte[to - from][];
+                    for (int i = from; i < to; i++) {
+                        rawKeys[i - from] = rawBucketKey(i);
+                    }
+                    connection.del(rawKeys);
+                }
+                return null;
+            }
+        });
+        metrics.recordEvictAll();
+    }
+
+    private Map<K, V> doGetOrLoadIfAbsent(Iterable<K> keys, boolean loadIfAbsent) {
+        List<K> keysList = keys instanceof List ? (List<K>) keys : Lists.newArrayList(keys);
+        metrics.recordBatchSize("get", keysList.size());
+        Map<K, Object> values = read(keysList);
+        metrics.recordGets(values.size(), keysList.size() - values.size());
+
+        Map<K, V> map = Maps.newHashMapWithExpectedSize(keysList.size());
+        Set<K> missedKeys = null;
+        for (K k : keysList) {
+            Object v = values.get(k);
+            if (v == null) {
+                if (loadIfAbsent) {
+                    if (missedKeys == null) {
+                        missedKeys = Sets.newLinkedHashSet();
+                    }
+                    missedKeys.add(k);
+                }
+            } else if (v != NULL_VALUE) {
+                map.put(k, (V) v);
+            }
+        }
+
+        if (missedKeys != null) {
+            map.putAll(singleFlight.load(missedKeys, this::loadAndPut));
+        }
+        return map;
+    }
+
+    private Map<K, V> loadAndPut(Set<K> keys) {
+        Map<K, V> missValueMap = metrics.recordLoad(keys.size(), () -> multiCacheLoader.loadCache(keys));
+
+        Map<K, V> map = missValueMap;
+        if (config.isCacheNullValues() && missValueMap.size() < keys.size()) {
+            map = Maps.newHashMapWithExpectedSize(keys.size());
+            for (K k : keys) {
+                map.put(k, missValueMap.get(k));
+            }
+        }
+        write(map);
+        return missValueMap;
+    }
+
+    /**
+     * @return 只包含缓存中存在的 key,缓存了 null 值的 key 对应的值为 {@link #NULL_VALUE}
+     */
+    private Map<K, Object> read(List<K> keys) {
+        if (keys.isEmpty()) {
+            return Collections.emptyMap();
+        }
+
+        Collection<Bucket<K>> buckets = group(keys);
+        long start = System.nanoTime();
+        List<Object> results = redisTemplate.executePipelined(new RedisCallback<Object>() {
+            @Override
+            public Object doInRedis(RedisConnection connection) throws DataAccessException {
+                for (Bucket<K> bucket : buckets) {
+                    connection.hMGet(rawBucketKey(bucket.index), bucket.fields.toArray(new byte[0][]));
+                }
+                return null;
+            }
+        }, null);
+        metrics.recordCommand("hmget", System.nanoTime() - start);
+
+        long now = System.currentTimeMillis();
+        Map<K, Object> values = Maps.newHashMapWithExpectedSize(keys.size());
+        List<Bucket<K>> expiredBuckets = null;
+        int i = 0;
+        for (Bucket<K> bucket : buckets) {
+            List<byte[]> rawValues = (List<byte[]>) results.get(i++);
+            Bucket<K> expired = null;
+            for (int j = 0; j < rawValues.size(); j++) {
+                Object value = deserializeValue(rawValues.get(j), now);
+                if (value == EXPIRED) {
+                    if (expired == null) {
+                        expired = new Bucket<>(bucket.index);
+                    }
+                    expired.fields.add(bucket.fields.get(j));
+                } else if (value != null) {
+                    values.put(bucket.keys.get(j), value);
+                }
+            }
+            if (expired != null) {
+                if (expiredBuckets == null) {
+                    expiredBuckets = Lists.newArrayList();
+                }
+                expiredBuckets.add(expired);
+            }
+        }
+
+        if (expiredBuckets != null) {
+            deleteExpired(expiredBuckets);
+        }
+        return values;
+    }
+
+    private void write(Map<K, V> map) {
+        if (map.isEmpty()) {
+            return;
+        }
+
+        Map<Integer, Map<byte[], byte[]>> buckets = Maps.newLinkedHashMap();
+        long now = System.currentTimeMillis();
+        map.forEach((k, v) -> {
+            byte[] field = field(k);
+            buckets.computeIfAbsent(bucketIndex(field), index -> Maps.newLinkedHashMap()).put(field, serializeValue(v, now));
+        });
+
+        long start = System.nanoTime();
+        if (config.getExpiryMode() == BucketExpiryMode.FIELD) {
+            writeFields(buckets, now);
+            metrics.recordCommand("hmset", System.nanoTime() - start);
+            return;
+        }
+
+        long bucketTtlMillis = timeToLive.toMillis();
+        redisTemplate.executePipelined(new RedisCallback<Object>() {
+            @Override
+            public Object doInRedis(RedisConnection connection) throws DataAccessException {
+                buckets.forEach((index, fields) -> {
+                    byte[] rawBucketKey = rawBucketKey(index);
+                    connection.hMSet(rawBucketKey, fields);
+                    connection.pExpire(rawBucketKey, bucketTtlMillis);
+                });
+                return null;
+            }
+        });
+        metrics.recordCommand("hmset", System.nanoTime() - start);
+    }
+
+    /**
+     * 删除读取时发现已过期的 field
+     */
+    private void deleteExpired(List<Bucket<K>> buckets) {
+        redisTemplate.executePipelined(new RedisCallback<Object>() {
+            @Override
+            public Object doInRedis(RedisConnection connection) throws DataAccessException {
+                for (Bucket<K> bucket : buckets) {
+                    connection.hDel(rawBucketKey(bucket.index), bucket.fields.toArray(new byte[0][]));
+                }
+                return null;
+            }
+        });
+    }
+
+    /**
+     * 每个 bucket 一次脚本调用,通过 pipeline 发送,脚本缓存中不存在时加载后重试一次
+     */
+    private void writeFields(Map<Integer, Map<byte[], byte[]>> buckets, long now) {
+        byte[] rawNow = String.valueOf(now).getBytes(StandardCharsets.US_ASCII);
+        RedisCallback<Object> callback = connection -> {
+            buckets.forEach((index, fields) -> {
+                byte[][] keysAndArgs = new byte[2 + fields.size() * 2][];
+                keysAndArgs[0] = rawBucketKey(index);
+                keysAndArgs[1] = rawNow;
+                int i = 2;
+                for (Map.Entry<byte[], byte[]> field : fields.entrySet()) {
+                    keysAndArgs[i++] = field.getKey();
+                    keysAndArgs[i++] = field.getValue();
+                }
+                WRITE_FIELDS_SCRIPT.evalSha(connection, 1, keysAndArgs);
+            });
+            return null;
+        };
+        try {
+            redisTemplate.executePipelined(callback);
+        } catch (RuntimeException e) {
+            if (!LuaScript.isNoScript(e)) {
+                throw e;
+            }
+            redisTemplate.execute((RedisCallback<Object>) connection -> {
+                WRITE_FIELDS_SCRIPT.load(connection);
+                return null;
+            });
+            redisTemplate.executePipelined(callback);
+        }
+    }
+
+    /**
+     * {@link BucketExpiryMode#FIELD} 时在 value 之前保存 8 个字节的过期时间戳(毫秒)
+     */
+    private byte[] serializeValue(V value, long now) {
+        byte[] rawValue = value == null ? NULL_VALUE_BYTES : valueCodec.encode(value);
+        if (config.getExpiryMode() == BucketExpiryMode.BUCKET) {
+            return rawValue;
+        }
+        long expireAt = now + (value == null ? config.getNullValueTimeToLive() : timeToLive).toMillis();
+        return Bytes.concat(Longs.toByteArray(expireAt), rawValue);
+    }
+
+    /**
+     * @return 不存在或者无法识别时返回 null,已过期时返回 {@link #EXPIRED}
+     */
+    private Object deserializeValue(byte[] rawValue, long now) {
+        if (rawValue == null) {
+            return null;
+        }
+        if (config.getExpiryMode() == BucketExpiryMode.FIELD) {
+            if (rawValue.length <= Long.BYTES) {
+                return null;
+            }
+            if (Longs.fromByteArray(rawValue) <= now) {
+                return EXPIRED;
+            }
+            rawValue = Arrays.copyOfRange(rawValue, Long.BYTES, rawValue.length);
+        }
+        if (Arrays.equals(rawValue, NULL_VALUE_BYTES)) {
+            return NULL_VALUE;
+        }
+        return valueCodec.decode(rawValue);
+    }
+
+    /**
+     * 按 bucket 分组,保持每个 bucket 中 key 的顺序
+     */
+    private Collection<Bucket<K>> group(List<K> keys) {
+        Map<Integer, Bucket<K>> buckets = Maps.newLinkedHashMap();
+        for (K key : keys) {
+            byte[] field = field(key);
+            Bucket<K> bucket = buckets.computeIfAbsent(bucketIndex(field), Bucket::new);
+            bucket.keys.add(key);
+            bucket.fields.add(field);
+        }
+        return buckets.values();
+    }
+
+    private byte[] field(K key) {
+        return keyGenerator.generate(key).getBytes(StandardCharsets.UTF_8);
+    }
+
+    private int bucketIndex(byte[] field) {
+        return Math.floorMod(HASH_FUNCTION.hashBytes(field).asInt(), bucketCount);
+    }
+
+    private byte[] rawBucketKey(int index) {
+        return keySerializer.serialize(keyPrefix + BUCKET_SEPARATOR + index);
+    }
+
+    private static class Bucket<K> {
+
+        private final int index;
+
+        private final List<K> keys = Lists.newArrayList();
+
+        private final List<byte[]> fields = Lists.newArrayList();
+
+        private Bucket(int index) {
+            this.index = index;
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package com.github.shenjianeng.easycache.core;
+
+import com.github.shenjianeng.easycache.core.codec.ValueCodec;
+import lombok.Data;
+
+import java.time.Duration;
+
+/**
+ * {@link RedisHashCache} 的可选配置
+ *
+ * @author shenjianeng
+ * @date 2026/10/18
+ */
+@Data
+public class RedisHashCacheConfig {
+
+    /**
+     * bucket 的数量,创建后不能修改,修改后需要先 evictAll
+     * <p>
+     * 建议每个 bucket 中的 field 数量不超过 redis 的 hash-max-listpack-entries(旧版本为 hash-max-ziplist-entries,默认 128),
+     * 并且 value 不超过 hash-max-listpack-value(默认 64 字节),这样 bucket 使用紧凑的编码方式
+     */
+    private int bucketCount = 1024;
+
+    /**
+     * 预期的缓存项数量,大于 0 时忽略 bucketCount,按每个 bucket 约 100 个 field 计算 bucket 的数量;
+     * 与 bucketCount 一样创建后不能修改,修改后需要先 evictAll
+     */
+    private long expectedEntryCount = 0;
+
+    private BucketExpiryMode expiryMode = BucketExpiryMode.FIELD;
+
+    /**
+     * 是否缓存 null 值
+     */
+    private boolean cacheNullValues = false;
+
+    /**
+     * null 值的缓存时间,只在 expiryMode 为 {@link BucketExpiryMode#FIELD} 时生效
+     */
+    private Duration nullValueTimeToLive = Duration.ofMinutes(1);
+
+    /**
+     * value 的编解码方式,为 null 时使用 RedisTemplate 的 valueSerializer
+     */
+    private ValueCodec<?> valueCodec;
+
+    /**
+     * 监控指标,为 null 时不记录
+     */
+    private CacheMetrics metrics;
+
+}
@@ -0,0 +1,199 @@
+package com.github.shenjianeng.easycache.core;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Sets;
+import org.checkerframework.checker.nullness.qual.NonNull;
+import org.springframework.data.redis.connection.ReturnType;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.serializer.RedisSerializer;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * 通过 redis stream 的消费者组读取变更事件
+ * <p>
+ * 事件的 field 为 {@link #PREFIX_FIELD}、{@link #KEY_FIELD} 和可选的 {@link #ACTION_FIELD}(evict 或 reload,默认 evict),
+ * 可以由其他服务直接 XADD,也可以通过 {@link #publish(String, String, ChangeEvent.Action)} 写入。
+ * 消费者组不存在时从创建之后的新事件开始消费;启动后先读取之前投递给同名消费者但未确认的事件,因此 consumer 应当在重启后保持不变
+ * <p>
+ * 存在未确认的事件时,每次 poll 重新投递的事件最多占 maxEvents 的一半(向上取整),其余读取新事件,
+ * 个别 keyPrefix 的事件反复失败时不会阻塞其他 keyPrefix 的新事件
+ * <p>
+ * 当前使用的客户端不支持 stream 命令,XREADGROUP、XACK 等命令通过 lua 脚本执行;脚本中不能阻塞读取,没有事件时立即返回
+ *
+ * @author shenjianeng
+ * @date 2026/10/18
+ */
+public class RedisStreamChangeEventSource implements ChangeEventSource {
+
+    public static final String PREFIX_FIELD = "prefix";
+
+    public static final String KEY_FIELD = "key";
+
+    public static final String ACTION_FIELD = "action";
+
+    /**
+     * publish 时 stream 保留的大约最大长度
+     */
+    private static final String MAX_LENGTH = "100000";
+
+    /**
+     * ARGV: group
+     */
+    private static final LuaScript CREATE_GROUP_SCRIPT = new LuaScript(
+            "local result = redis.pcall('XGROUP', 'CREATE', KEYS[1], ARGV[1], '$', 'MKSTREAM') "
+                    + "if type(result) == 'table' and result.err and not string.find(result.err, 'BUSYGROUP') then "
+                    + "return redis.error_reply(result.err) end "
+                    + "return 1");
+
+    /**
+     * ARGV: group, consumer, count, id,返回平铺的 id、prefix、key、action
+     */
+    private static final LuaScript READ_SCRIPT = new LuaScript(
+            "local result = redis.call('XREADGROUP', 'GROUP', ARGV[1], ARGV[2], 'COUNT', ARGV[3], 'STREAMS', KEYS[1], ARGV[4]) "
+                    + "local events = {} "
+                    + "if not result then return events end "
+                    + "for _, entry in ipairs(result[1][2]) do "
+                    + "local prefix, key, action = '', '', '' "
+                    + "if entry[2] then "
+                    + "for i = 1, #entry[2], 2 do "
+                    + "local field, value = entry[2][i], entry[2][i + 1] "
+                    + "if field == '" + PREFIX_FIELD + "' then prefix = value "
+                    + "elseif field == '" + KEY_FIELD + "' then key = value "
+                    + "elseif field == '" + ACTION_FIELD + "' then action = value end "
+                    + "end "
+                    + "end "
+                    + "table.insert(events, entry[1]) table.insert(events, prefix) "
+                    + "table.insert(events, key) table.insert(events, action) "
+                    + "end "
+                    + "return events");
+
+    /**
+     * ARGV: group, id...
+     */
+    private static final LuaScript ACK_SCRIPT = new LuaScript(
+            "return redis.call('XACK', KEYS[1], ARGV[1], unpack(ARGV, 2))");
+
+    /**
+     * ARGV: maxLength, prefix, key, action
+     */
+    private static final LuaScript PUBLISH_SCRIPT = new LuaScript(
+            "return redis.call('XADD', KEYS[1], 'MAXLEN', '~', ARGV[1], '*', "
+                    + "'" + PREFIX_FIELD + "', ARGV[2], '" + KEY_FIELD + "', ARGV[3], '" + ACTION_FIELD + "', ARGV[4])");
+
+    private final RedisTemplate<String, ?> redisTemplate;
+
+    private final byte[] rawStreamKey;
+
+    private final byte[] rawGroup;
+
+    private final byte[] rawConsumer;
+
+    private boolean groupCreated;
+
+    /**
+     * 为 true 时同时读取已经投递给当前消费者但未确认的事件
+     */
+    private boolean readPending = true;
+
+    /**
+     * 上一次 poll 返回的事件中还没有确认的事件 id,只确认部分事件时其余事件在下一次 poll 时重新投递
+     */
+    private final Set<String> unacknowledgedIds = Sets.newHashSet();
+
+
+    @SuppressWarnings("unchecked")
+    public RedisStreamChangeEventSource(RedisTemplate<String, ?> redisTemplate, String streamKey, String group, String consumer) {
+        this.redisTemplate = Objects.requireNonNull(redisTemplate);
+        this.rawStreamKey = ((RedisSerializer<String>) redisTemplate.getKeySerializer()).serialize(Objects.requireNonNull(streamKey));
+        this.rawGroup = group.getBytes(StandardCharsets.UTF_8);
+        this.rawConsumer = consumer.getBytes(StandardCharsets.UTF_8);
+    }
+
+
+    @Override
+    @NonNull
+    public List<ChangeEvent> poll(int maxEvents) {
+        if (!groupCreated) {
+            redisTemplate.execute((RedisCallback<Object>) connection ->
+                    CREATE_GROUP_SCRIPT.execute(connection, ReturnType.INTEGER, 1, rawStreamKey, rawGroup));
+            groupCreated = true;
+        }
+        // 未确认的事件重新投递
+        if (!unacknowledgedIds.isEmpty()) {
+            readPending = true;
+        }
+
+        List<ChangeEvent> events = Lists.newArrayList();
+        if (readPending) {
+            events.addAll(read("0", maxEvents - maxEvents / 2));
+            readPending = !events.isEmpty();
+        }
+        if (events.size() < maxEvents) {
+            events.addAll(read(">", maxEvents - events.size()));
+        }
+        unacknowledgedIds.clear();
+        events.forEach(event -> unacknowledgedIds.add(event.getId()));
+        return events;
+    }
+
+    @Override
+    public void acknowledge(@NonNull List<ChangeEvent> events) {
+        if (events.isEmpty()) {
+            return;
+        }
+
+        byte[][] args = new byte[events.size() + 2][];
+        args[0] = rawStreamKey;
+        args[1] = rawGroup;
+        for (int i = 0; i < events.size(); i++) {
+            args[i + 2] = events.get(i).getId().getBytes(StandardCharsets.UTF_8);
+        }
+        redisTemplate.execute((RedisCallback<Object>) connection ->
+                ACK_SCRIPT.execute(connection, ReturnType.INTEGER, 1, args));
+        events.forEach(event -> unacknowledgedIds.remove(event.getId()));
+    }
+
+    /**
+     * 写入一个变更事件
+     *
+     * @return 事件的 id
+     */
+    public String publish(String keyPrefix, String key, ChangeEvent.Action action) {
+        byte[] id = redisTemplate.execute((RedisCallback<byte[]>) connection ->
+                PUBLISH_SCRIPT.execute(connection, ReturnType.VALUE, 1, rawStreamKey, utf8(MAX_LENGTH),
+                        utf8(keyPrefix), utf8(key), utf8(action.name().toLowerCase())));
+        return new String(Objects.requireNonNull(id), StandardCharsets.UTF_8);
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<ChangeEvent> read(String id, int maxEvents) {
+        List<Object> result = redisTemplate.execute((RedisCallback<List<Object>>) connection ->
+                READ_SCRIPT.execute(connection, ReturnType.MULTI, 1, rawStreamKey, rawGroup, rawConsumer,
+                        utf8(String.valueOf(maxEvents)), utf8(id)));
+        if (result == null || result.isEmpty()) {
+            return Collections.emptyList();
+        }
+
+        List<ChangeEvent> events = Lists.newArrayListWithExpectedSize(result.size() / 4);
+        for (int i = 0; i + 3 < result.size(); i += 4) {
+            String action = string(result.get(i + 3));
+            events.add(new ChangeEvent(string(result.get(i)), string(result.get(i + 1)), string(result.get(i + 2)),
+                    "reload".equalsIgnoreCase(action) ? ChangeEvent.Action.RELOAD : ChangeEvent.Action.EVICT));
+        }
+        return events;
+    }
+
+    private static String string(Object value) {
+        return value instanceof byte[] ? new String((byte[]) value, StandardCharsets.UTF_8) : String.valueOf(value);
+    }
+
+    private static byte[] utf8(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+}
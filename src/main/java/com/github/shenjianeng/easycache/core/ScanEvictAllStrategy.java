@@ -0,0 +1,203 @@
+package com.github.shenjianeng.easycache.core;
+
+import com.google.common.collect.Lists;
+import org.springframework.data.redis.RedisSystemException;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.connection.ReturnType;
+import org.springframework.data.redis.core.Cursor;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.ScanOptions;
+
+import java.io.IOException;
+import java.io.Serializable;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * 通过 scan 命令分批查找 keyPrefix 下的所有 key,并通过 unlink 异步删除
+ * <p>
+ * 不需要在写入时维护额外的数据,evictAll 的耗时与 redis 中 key 的总数量相关
+ * <p>
+ * keyPrefix 下可能还有其他缓存,例如 user 和 user:dao:map。默认认为生成的 key 中不包含 ":",
+ * keyPrefix: 之后还包含 ":" 的 key 属于其他缓存,不会被删除;生成的 key 中包含 ":" 时需要通过 nestedKeyPrefixes 指定需要跳过的其他缓存。
+ * 未指定 nestedKeyPrefixes 时,{@link RedisCache} 拒绝使用 {@link RedisCache.HashTagRedisKeyGenerator},
+ * 写入包含 ":" 的 key 时抛出 {@link IllegalArgumentException},避免 evictAll 静默地跳过这些 key
+ *
+ * @author shenjianeng
+ * @date 2026/10/18
+ */
+public class ScanEvictAllStrategy implements EvictAllStrategy {
+
+    private static final String SEPARATOR = ":";
+
+    private static final byte SEPARATOR_BYTE = ':';
+
+    /**
+     * 当前使用的客户端不支持 unlink 命令,通过 lua 脚本执行;unpack 的参数数量有限制,每次最多 unlink 1000 个 key
+     */
+    private static final LuaScript UNLINK_SCRIPT = new LuaScript(
+            "for i = 1, #KEYS, 1000 do redis.call('unlink', unpack(KEYS, i, math.min(i + 999, #KEYS))) end "
+                    + "return #KEYS");
+
+    private final RedisTemplate<String, Serializable> redisTemplate;
+
+    private final String pattern;
+
+    /**
+     * keyPrefix: 按 UTF-8 编码后的长度
+     */
+    private final int prefixLength;
+
+    /**
+     * 为 null 时跳过 keyPrefix: 之后包含 ":" 的 key
+     */
+    private final List<byte[]> rawNestedKeyPrefixes;
+
+    private final int batchSize;
+
+    /**
+     * redis 4.0 之前的版本不支持 unlink,此时使用 del
+     */
+    private volatile boolean unlinkSupported = true;
+
+    public ScanEvictAllStrategy(String keyPrefix, RedisTemplate<String, Serializable> redisTemplate) {
+        this(keyPrefix, redisTemplate, 1000);
+    }
+
+    /**
+     * @param batchSize 每次 scan 的 count 以及每次删除的 key 数量
+     */
+    public ScanEvictAllStrategy(String keyPrefix, RedisTemplate<String, Serializable> redisTemplate, int batchSize) {
+        this(keyPrefix, redisTemplate, batchSize, null);
+    }
+
+    /**
+     * @param nestedKeyPrefixes keyPrefix 下其他缓存的 keyPrefix,这些缓存的 key 不会被删除;
+     *                          为 null 时跳过 keyPrefix: 之后包含 ":" 的 key
+     */
+    public ScanEvictAllStrategy(String keyPrefix, RedisTemplate<String, Serializable> redisTemplate, int batchSize,
+                                Collection<String> nestedKeyPrefixes) {
+        if (batchSize <= 0) {
+            throw new IllegalArgumentException("batchSize 必须大于 0");
+        }
+        this.redisTemplate = Objects.requireNonNull(redisTemplate);
+        this.pattern = escape(Objects.requireNonNull(keyPrefix)) + SEPARATOR + "*";
+        this.prefixLength = (keyPrefix + SEPARATOR).getBytes(StandardCharsets.UTF_8).length;
+        this.batchSize = batchSize;
+        if (nestedKeyPrefixes == null) {
+            this.rawNestedKeyPrefixes = null;
+        } else {
+            this.rawNestedKeyPrefixes = Lists.newArrayListWithExpectedSize(nestedKeyPrefixes.size());
+            for (String nestedKeyPrefix : nestedKeyPrefixes) {
+                if (!nestedKeyPrefix.startsWith(keyPrefix + SEPARATOR)) {
+                    throw new IllegalArgumentException("nestedKeyPrefix 必须以 " + keyPrefix + SEPARATOR + " 开头: " + nestedKeyPrefix);
+                }
+                rawNestedKeyPrefixes.add((nestedKeyPrefix + SEPARATOR).getBytes(StandardCharsets.UTF_8));
+            }
+        }
+    }
+
+    @Override
+    public void evictAll() {
+        ScanOptions options = ScanOptions.scanOptions().match(pattern).count(batchSize).build();
+
+        redisTemplate.execute((RedisCallback<Object>) connection -> {
+            try (Cursor<byte[]> cursor = connection.scan(options)) {
+                List<byte[]> rawKeys = Lists.newArrayListWithExpectedSize(batchSize);
+                while (cursor.hasNext()) {
+                    byte[] rawKey = cursor.next();
+                    if (isNested(rawKey)) {
+                        continue;
+                    }
+                    rawKeys.add(rawKey);
+                    if (rawKeys.size() >= batchSize) {
+                        unlink(connection, rawKeys);
+                        rawKeys.clear();
+                    }
+                }
+                unlink(connection, rawKeys);
+            } catch (IOException e) {
+                throw new RedisSystemException("close scan cursor failed", e);
+            }
+            return null;
+        });
+    }
+
+    /**
+     * @return 是否跳过 keyPrefix: 之后包含 ":" 的 key,此时生成的 key 中不能包含 ":"
+     */
+    boolean isSeparatorNested() {
+        return rawNestedKeyPrefixes == null;
+    }
+
+    /**
+     * @return key 是否属于 keyPrefix 下的其他缓存
+     */
+    private boolean isNested(byte[] rawKey) {
+        if (rawNestedKeyPrefixes == null) {
+            for (int i = prefixLength; i < rawKey.length; i++) {
+                if (rawKey[i] == SEPARATOR_BYTE) {
+                    return true;
+                }
+            }
+            return false;
+        }
+        for (byte[] rawNestedKeyPrefix : rawNestedKeyPrefixes) {
+            if (rawKey.length >= rawNestedKeyPrefix.length
+                    && Arrays.equals(Arrays.copyOf(rawKey, rawNestedKeyPrefix.length), rawNestedKeyPrefix)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void unlink(RedisConnection connection, List<byte[]> rawKeys) {
+        if (rawKeys.isEmpty()) {
+            return;
+        }
+        byte[][] keys = rawKeys.toArray(new byte[0][]);
+        if (unlinkSupported) {
+            try {
+                UNLINK_SCRIPT.execute(connection, ReturnType.INTEGER, keys.length, keys);
+                return;
+            } catch (RuntimeException e) {
+                // 只有 redis 不支持 unlink 时才改用 del,其他错误直接抛出
+                if (!isUnknownCommand(e)) {
+                    throw e;
+                }
+                unlinkSupported = false;
+            }
+        }
+        connection.del(keys);
+    }
+
+    /**
+     * lua 脚本中调用不存在的命令时返回 Unknown Redis command called from Lua script
+     */
+    private static boolean isUnknownCommand(RuntimeException e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause.getMessage() != null && cause.getMessage().toLowerCase().contains("unknown redis command")) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 转义 glob 风格的特殊字符
+     */
+    private static String escape(String keyPrefix) {
+        StringBuilder sb = new StringBuilder(keyPrefix.length());
+        for (char c : keyPrefix.toCharArray()) {
+            if (c == '*' || c == '?' || c == '[' || c == ']' || c == '\\') {
+                sb.append('\\');
+            }
+            sb.append(c);
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,144 @@
+package com.github.shenjianeng.easycache.core;
+
+import com.google.common.collect.Maps;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Function;
+
+/**
+ * 合并同一个 JVM 内对相同 key 的并发加载
+ * <p>
+ * 每个 key 同一时刻只有一个线程调用 loader,其他线程等待并共享该结果
+ *
+ * @author shenjianeng
+ * @date 2026/10/18
+ */
+class SingleFlight<K, V> {
+
+    private final ConcurrentMap<K, CompletableFuture<V>> inFlightLoads = new ConcurrentHashMap<>();
+
+    /**
+     * @param keys   需要加载的 key
+     * @param loader 加载当前线程负责的 key,返回的 map 中不存在的 key 视为 null
+     * @return 加载结果,不包含值为 null 的 key
+     */
+    Map<K, V> load(Collection<K> keys, Function<Set<K>, Map<K, V>> loader) {
+        Map<K, CompletableFuture<V>> ownedLoads = Maps.newLinkedHashMap();
+        Map<K, CompletableFuture<V>> sharedLoads = Maps.newLinkedHashMap();
+
+        for (K key : keys) {
+            if (ownedLoads.containsKey(key) || sharedLoads.containsKey(key)) {
+                continue;
+            }
+            CompletableFuture<V> future = new CompletableFuture<>();
+            CompletableFuture<V> existing = inFlightLoads.putIfAbsent(key, future);
+            if (existing == null) {
+                ownedLoads.put(key, future);
+            } else {
+                sharedLoads.put(key, existing);
+            }
+        }
+
+        Map<K, V> map = Maps.newHashMapWithExpectedSize(ownedLoads.size() + sharedLoads.size());
+
+        // 先完成自己负责的 key,再等待其他线程,避免相互等待
+        if (!ownedLoads.isEmpty()) {
+            try {
+                Map<K, V> loaded = loader.apply(ownedLoads.keySet());
+                ownedLoads.forEach((k, future) -> {
+                    V v = loaded.get(k);
+                    if (v != null) {
+                        map.put(k, v);
+                    }
+                    future.complete(v);
+                });
+            } catch (RuntimeException | Error e) {
+                ownedLoads.values().forEach(future -> future.completeExceptionally(e));
+                throw e;
+            } finally {
+                ownedLoads.forEach(inFlightLoads::remove);
+            }
+        }
+
+        sharedLoads.forEach((k, future) -> {
+            V v = join(future);
+            if (v != null) {
+                map.put(k, v);
+            }
+        });
+
+        return map;
+    }
+
+    /**
+     * {@link #load(Collection, Function)} 的异步版本
+     */
+    CompletableFuture<Map<K, V>> loadAsync(Collection<K> keys, Function<Set<K>, CompletableFuture<Map<K, V>>> loader) {
+        Map<K, CompletableFuture<V>> ownedLoads = Maps.newLinkedHashMap();
+        Map<K, CompletableFuture<V>> allLoads = Maps.newLinkedHashMap();
+
+        for (K key : keys) {
+            if (allLoads.containsKey(key)) {
+                continue;
+            }
+            CompletableFuture<V> future = new CompletableFuture<>();
+            CompletableFuture<V> existing = inFlightLoads.putIfAbsent(key, future);
+            if (existing == null) {
+                ownedLoads.put(key, future);
+                allLoads.put(key, future);
+            } else {
+                allLoads.put(key, existing);
+            }
+        }
+
+        if (!ownedLoads.isEmpty()) {
+            CompletableFuture<Map<K, V>> loading;
+            try {
+                loading = loader.apply(ownedLoads.keySet());
+            } catch (RuntimeException | Error e) {
+                loading = new CompletableFuture<>();
+                loading.completeExceptionally(e);
+            }
+            loading.whenComplete((loaded, e) -> ownedLoads.forEach((k, future) -> {
+                if (e != null) {
+                    future.completeExceptionally(e);
+                } else {
+                    future.complete(loaded.get(k));
+                }
+                inFlightLoads.remove(k, future);
+            }));
+        }
+
+        return CompletableFuture.allOf(allLoads.values().toArray(new CompletableFuture[0]))
+                .thenApply(ignored -> {
+                    Map<K, V> map = Maps.newHashMapWithExpectedSize(allLoads.size());
+                    allLoads.forEach((k, future) -> {
+                        V v = future.join();
+                        if (v != null) {
+                            map.put(k, v);
+                        }
+                    });
+                    return map;
+                });
+    }
+
+    private V join(CompletableFuture<V> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            if (e.getCause() instanceof Error) {
+                throw (Error) e.getCause();
+            }
+            throw e;
+        }
+    }
+}
@@ -0,0 +1,31 @@
+package com.github.shenjianeng.easycache.core;
+
+import lombok.Data;
+
+import java.util.concurrent.Executor;
+
+/**
+ * {@link RedisCache#getOrLoadIfAbsent(java.util.Iterator, StreamingLoadConfig, java.util.function.BiConsumer)} 的配置
+ *
+ * @author shenjianeng
+ * @date 2026/10/18
+ */
+@Data
+public class StreamingLoadConfig {
+
+    /**
+     * 每个窗口包含的 key 数量,同一时间最多持有两个窗口的 key 和 value
+     */
+    private int windowSize = 1000;
+
+    /**
+     * 每次调用 {@link MultiCacheLoader#loadCache(java.util.Collection)} 加载的最大 key 数量
+     */
+    private int loaderBatchSize = 200;
+
+    /**
+     * 预读下一个窗口的线程池,设置后在加载当前窗口的同时从 redis 读取下一个窗口;为 null 时在调用线程中依次读取
+     */
+    private Executor prefetchExecutor;
+
+}
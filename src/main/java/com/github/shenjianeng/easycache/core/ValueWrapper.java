@@ -0,0 +1,56 @@
+package com.github.shenjianeng.easycache.core;
+
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+import java.util.Objects;
+
+/**
+ * 缓存值的包装,用于区分 "缓存了 null 值" 和 "缓存中不存在"
+ *
+ * @author shenjianeng
+ * @date 2026/10/18
+ */
+public final class ValueWrapper<V> {
+
+    private static final ValueWrapper<?> NULL_VALUE = new ValueWrapper<>(null);
+
+    private final V value;
+
+    private ValueWrapper(V value) {
+        this.value = value;
+    }
+
+    @SuppressWarnings("unchecked")
+    public static <V> ValueWrapper<V> of(@Nullable V value) {
+        return value == null ? (ValueWrapper<V>) NULL_VALUE : new ValueWrapper<>(value);
+    }
+
+    /**
+     * 缓存的值,缓存了 null 值时返回 null
+     */
+    @Nullable
+    public V get() {
+        return value;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        return Objects.equals(value, ((ValueWrapper<?>) o).value);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hashCode(value);
+    }
+
+    @Override
+    public String toString() {
+        return "ValueWrapper(" + value + ")";
+    }
+}
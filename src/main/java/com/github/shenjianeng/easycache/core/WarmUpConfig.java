@@ -0,0 +1,46 @@
+package com.github.shenjianeng.easycache.core;
+
+import lombok.Data;
+
+import java.util.concurrent.Executor;
+
+/**
+ * {@link RedisCache#warmUp(java.util.Iterator, WarmUpConfig)} 的配置
+ *
+ * @author shenjianeng
+ * @date 2026/10/18
+ */
+@Data
+public class WarmUpConfig {
+
+    /**
+     * 每次调用 {@link MultiCacheLoader#loadCache(java.util.Collection)} 加载的 key 数量
+     */
+    private int batchSize = 500;
+
+    /**
+     * 同时加载的批次数量,为 1 时在预热线程中依次加载
+     */
+    private int parallelism = 1;
+
+    /**
+     * 执行加载的线程池,parallelism 大于 1 时必须设置
+     */
+    private Executor executor;
+
+    /**
+     * 每秒最多加载的 key 数量,小于等于 0 时不限速
+     */
+    private double keysPerSecond = 0;
+
+    /**
+     * 是否跳过 redis 中已经存在的 key,开启后每个批次加载前先批量检查 key 是否存在
+     */
+    private boolean skipExisting = true;
+
+    /**
+     * 预计的 key 数量,用于计算进度和剩余时间,小于等于 0 时表示未知
+     */
+    private long expectedKeyCount = 0;
+
+}
@@ -0,0 +1,202 @@
+package com.github.shenjianeng.easycache.core;
+
+import com.google.common.collect.Iterators;
+import com.google.common.util.concurrent.RateLimiter;
+import lombok.extern.slf4j.Slf4j;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.ToIntFunction;
+
+/**
+ * 缓存预热任务,由 {@link RedisCache#warmUp(Iterator, WarmUpConfig)} 创建
+ * <p>
+ * 预热线程按 batchSize 从 key 的来源中读取 key,限速后交给线程池加载,同时加载的批次不超过 parallelism;
+ * 加载失败的批次只记录日志和数量,不会中止预热
+ *
+ * @author shenjianeng
+ * @date 2026/10/18
+ */
+@Slf4j
+public class WarmUpTask {
+
+    private final String name;
+
+    private final WarmUpConfig config;
+
+    private final RateLimiter rateLimiter;
+
+    private final Semaphore permits;
+
+    private final CompletableFuture<WarmUpTask> future = new CompletableFuture<>();
+
+    private final AtomicLong processedKeys = new AtomicLong();
+
+    private final AtomicLong skippedKeys = new AtomicLong();
+
+    private final AtomicLong failedKeys = new AtomicLong();
+
+    private final long startNanos = System.nanoTime();
+
+    private volatile long endNanos;
+
+    private volatile boolean cancelled;
+
+    /**
+     * @param batchLoader 加载一个批次,返回跳过的 key 数量
+     */
+    <K> WarmUpTask(String name, Iterator<K> keys, WarmUpConfig config, ToIntFunction<List<K>> batchLoader) {
+        this.name = name;
+        this.config = Objects.requireNonNull(config);
+        this.rateLimiter = config.getKeysPerSecond() > 0 ? RateLimiter.create(config.getKeysPerSecond()) : null;
+        this.permits = new Semaphore(config.getParallelism());
+
+        Thread thread = new Thread(() -> run(keys, batchLoader), "easy-cache-warm-up-" + name);
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * @return 已处理的 key 数量,包含跳过和加载失败的 key
+     */
+    public long getProcessedKeys() {
+        return processedKeys.get();
+    }
+
+    /**
+     * @return redis 中已经存在而跳过加载的 key 数量
+     */
+    public long getSkippedKeys() {
+        return skippedKeys.get();
+    }
+
+    public long getFailedKeys() {
+        return failedKeys.get();
+    }
+
+    public Duration getElapsed() {
+        long end = isDone() ? endNanos : System.nanoTime();
+        return Duration.ofNanos(end - startNanos);
+    }
+
+    /**
+     * @return 0 到 1 之间的进度,未设置 expectedKeyCount 时返回 -1
+     */
+    public double getProgress() {
+        if (isDone()) {
+            return 1;
+        }
+        if (config.getExpectedKeyCount() <= 0) {
+            return -1;
+        }
+        return Math.min(1, (double) processedKeys.get() / config.getExpectedKeyCount());
+    }
+
+    /**
+     * 按目前的平均速度估算剩余时间
+     *
+     * @return 未设置 expectedKeyCount 或者尚未处理任何 key 时返回 null
+     */
+    @Nullable
+    public Duration getEta() {
+        if (isDone()) {
+            return Duration.ZERO;
+        }
+        long processed = processedKeys.get();
+        if (config.getExpectedKeyCount() <= 0 || processed == 0) {
+            return null;
+        }
+        long remaining = Math.max(0, config.getExpectedKeyCount() - processed);
+        return Duration.ofNanos((long) ((double) (System.nanoTime() - startNanos) / processed * remaining));
+    }
+
+    public boolean isDone() {
+        return future.isDone();
+    }
+
+    /**
+     * 停止读取新的 key,已经开始加载的批次会继续完成
+     */
+    public void cancel() {
+        cancelled = true;
+    }
+
+    /**
+     * @return 所有批次完成后结束,key 的来源抛出异常时异常结束
+     */
+    public CompletableFuture<WarmUpTask> toCompletableFuture() {
+        return future;
+    }
+
+    @Override
+    public String toString() {
+        return "WarmUpTask{name=" + name + ", processed=" + processedKeys.get() + ", skipped=" + skippedKeys.get()
+                + ", failed=" + failedKeys.get() + ", elapsed=" + getElapsed() + ", eta=" + getEta() + "}";
+    }
+
+    private <K> void run(Iterator<K> keys, ToIntFunction<List<K>> batchLoader) {
+        try {
+            Iterator<List<K>> batches = Iterators.partition(keys, config.getBatchSize());
+            while (!cancelled && batches.hasNext()) {
+                List<K> batch = batches.next();
+                if (rateLimiter != null) {
+                    rateLimiter.acquire(batch.size());
+                }
+                permits.acquire();
+                if (config.getParallelism() == 1) {
+                    loadBatch(batch, batchLoader);
+                } else {
+                    submit(batch, batchLoader);
+                }
+            }
+            // 等待所有批次完成
+            permits.acquire(config.getParallelism());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            complete(e);
+            return;
+        } catch (RuntimeException | Error e) {
+            log.error("warm up failed to read keys, name: {}", name, e);
+            complete(e);
+            return;
+        }
+        complete(null);
+    }
+
+    private <K> void submit(List<K> batch, ToIntFunction<List<K>> batchLoader) {
+        try {
+            config.getExecutor().execute(() -> loadBatch(batch, batchLoader));
+        } catch (RejectedExecutionException e) {
+            loadBatch(batch, batchLoader);
+        }
+    }
+
+    private <K> void loadBatch(List<K> batch, ToIntFunction<List<K>> batchLoader) {
+        try {
+            skippedKeys.addAndGet(batchLoader.applyAsInt(batch));
+        } catch (RuntimeException | Error e) {
+            log.warn("warm up batch failed, name: {}, size: {}", name, batch.size(), e);
+            failedKeys.addAndGet(batch.size());
+        } finally {
+            processedKeys.addAndGet(batch.size());
+            permits.release();
+        }
+    }
+
+    private void complete(@Nullable Throwable e) {
+        endNanos = System.nanoTime();
+        if (e == null) {
+            log.info("warm up finished, {}", this);
+            future.complete(this);
+        } else {
+            future.completeExceptionally(e);
+        }
+    }
+}
@@ -0,0 +1,25 @@
+package com.github.shenjianeng.easycache.core;
+
+/**
+ * write-behind 队列已满时的处理方式
+ *
+ * @author shenjianeng
+ * @date 2026/10/18
+ */
+public enum WriteBehindOverflowPolicy {
+
+    /**
+     * 阻塞调用线程,直到队列中有空闲位置
+     */
+    BLOCK,
+
+    /**
+     * 由调用线程直接写入 redis
+     */
+    CALLER_RUNS,
+
+    /**
+     * 放弃本次写入,下次读取时重新加载
+     */
+    DISCARD
+}
@@ -0,0 +1,348 @@
+package com.github.shenjianeng.easycache.core;
+
+import com.google.common.collect.Maps;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.Closeable;
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+
+/**
+ * 异步合并写入 redis 的队列
+ * <p>
+ * 同一个 key 在写入前的多次 put 只保留最后一次;后台线程在积累 batchSize 个 key 或者等待 flushInterval 后批量写入。
+ * 写入失败的批次重新放回队列(此时可能短暂超过 capacity),连续失败 {@link #MAX_ATTEMPTS} 次后丢弃并记录错误日志;
+ * 写入期间被再次 put 或者 evict 的 key 不会放回队列。关闭之后不再接受新的数据
+ *
+ * @author shenjianeng
+ * @date 2026/10/18
+ */
+@Slf4j
+class WriteBehindQueue<K, V> implements Closeable {
+
+    static final int MAX_ATTEMPTS = 3;
+
+    /**
+     * 保证 evict 与正在写入的批次不会交错执行,避免删除后又被写入旧值
+     */
+    private final ReentrantLock writeLock = new ReentrantLock();
+
+    private final ReentrantLock lock = new ReentrantLock();
+
+    private final Condition notEmpty = lock.newCondition();
+
+    private final Condition notFull = lock.newCondition();
+
+    /**
+     * 按进入队列的顺序保存等待写入的数据,需要持有 lock
+     */
+    private final LinkedHashMap<K, Entry<V>> pending = new LinkedHashMap<>();
+
+    /**
+     * 等待写入和正在写入的数据,写入 redis 成功之后才移除;{@link #get(Object)} 不需要加锁
+     */
+    private final ConcurrentHashMap<K, Entry<V>> unwritten = new ConcurrentHashMap<>();
+
+    private final String name;
+
+    private final Consumer<Map<K, V>> writer;
+
+    private final int capacity;
+
+    private final int batchSize;
+
+    private final long flushIntervalNanos;
+
+    private final WriteBehindOverflowPolicy overflowPolicy;
+
+    private final Thread flusher;
+
+    private volatile boolean closed;
+
+    /**
+     * @param writer 将一批数据写入 redis
+     */
+    WriteBehindQueue(String name, Consumer<Map<K, V>> writer, int capacity, int batchSize,
+                     Duration flushInterval, WriteBehindOverflowPolicy overflowPolicy) {
+
+        this.name = Objects.requireNonNull(name);
+        this.writer = Objects.requireNonNull(writer);
+        this.capacity = capacity;
+        this.batchSize = batchSize;
+        this.flushIntervalNanos = flushInterval.toNanos();
+        this.overflowPolicy = Objects.requireNonNull(overflowPolicy);
+
+        this.flusher = new Thread(this::flushLoop, "easy-cache-write-behind-" + name);
+        this.flusher.setDaemon(true);
+        this.flusher.start();
+    }
+
+    /**
+     * 添加到队列中,队列已满时按照 overflowPolicy 处理
+     *
+     * @throws IllegalStateException 队列已经关闭
+     */
+    void offer(Map<K, V> map) {
+        Map<K, V> overflow = null;
+
+        lock.lock();
+        try {
+            if (closed) {
+                throw new IllegalStateException("write-behind 队列已关闭,name: " + name);
+            }
+            for (Map.Entry<K, V> entry : map.entrySet()) {
+                K key = entry.getKey();
+                if (!pending.containsKey(key) && !awaitNotFull()) {
+                    if (overflowPolicy == WriteBehindOverflowPolicy.CALLER_RUNS) {
+                        if (overflow == null) {
+                            overflow = Maps.newHashMap();
+                        }
+                        overflow.put(key, entry.getValue());
+                    }
+                    continue;
+                }
+                Entry<V> queued = new Entry<>(entry.getValue());
+                pending.put(key, queued);
+                unwritten.put(key, queued);
+            }
+            if (pending.size() >= batchSize) {
+                notEmpty.signal();
+            }
+        } finally {
+            lock.unlock();
+        }
+
+        if (overflow != null) {
+            writeLock.lock();
+            try {
+                writer.accept(overflow);
+            } finally {
+                writeLock.unlock();
+            }
+        }
+    }
+
+    /**
+     * 数据写入 redis 成功之后才从队列中移除,因此先调用该方法再读取 redis 不会同时错过二者
+     *
+     * @return 队列中等待写入或者正在写入的值,不存在时返回 null
+     */
+    ValueWrapper<V> get(K key) {
+        Entry<V> entry = unwritten.get(key);
+        return entry == null ? null : ValueWrapper.of(entry.value);
+    }
+
+    private void removePending(Iterable<K> keys) {
+        lock.lock();
+        try {
+            for (K key : keys) {
+                pending.remove(key);
+                unwritten.remove(key);
+            }
+            notFull.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 从队列中移除 keys,并在不与其他写入交错的情况下执行 action
+     */
+    void evict(Iterable<K> keys, Runnable action) {
+        writeLock.lock();
+        try {
+            removePending(keys);
+            action.run();
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * 清空队列,并在不与其他写入交错的情况下执行 action
+     */
+    void evictAll(Runnable action) {
+        writeLock.lock();
+        try {
+            lock.lock();
+            try {
+                pending.clear();
+                unwritten.clear();
+                notFull.signalAll();
+            } finally {
+                lock.unlock();
+            }
+            action.run();
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * 在当前线程中写入队列中的所有数据
+     *
+     * @throws RuntimeException 写入失败,失败的批次已经放回队列
+     */
+    void flush() {
+        while (writeBatch()) {
+            // 直到队列为空
+        }
+    }
+
+    /**
+     * 停止后台线程,并写入队列中剩余的数据
+     *
+     * @throws RuntimeException 剩余的数据写入失败
+     */
+    @Override
+    public void close() {
+        lock.lock();
+        try {
+            closed = true;
+            notEmpty.signalAll();
+            notFull.signalAll();
+        } finally {
+            lock.unlock();
+        }
+
+        try {
+            flusher.join(TimeUnit.NANOSECONDS.toMillis(flushIntervalNanos) + 1000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        flush();
+    }
+
+    /**
+     * 需要持有 lock
+     *
+     * @return 队列中是否有空闲位置
+     */
+    private boolean awaitNotFull() {
+        while (pending.size() >= capacity) {
+            if (overflowPolicy != WriteBehindOverflowPolicy.BLOCK || closed) {
+                return false;
+            }
+            notEmpty.signal();
+            notFull.awaitUninterruptibly();
+        }
+        return true;
+    }
+
+    private void flushLoop() {
+        while (!closed) {
+            lock.lock();
+            try {
+                long deadline = System.nanoTime() + flushIntervalNanos;
+                long remaining = flushIntervalNanos;
+                while (pending.size() < batchSize && remaining > 0 && !closed) {
+                    remaining = notEmpty.awaitNanos(remaining);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } finally {
+                lock.unlock();
+            }
+
+            try {
+                writeBatch();
+            } catch (RuntimeException e) {
+                log.warn("write behind failed, name: {}", name, e);
+                // 失败的批次已经放回队列,等待 flushInterval 后重试,避免 redis 不可用时持续重试
+                LockSupport.parkNanos(flushIntervalNanos);
+            }
+        }
+    }
+
+    /**
+     * 写入最早进入队列的 batchSize 个 key
+     *
+     * @return 是否写入了数据
+     */
+    private boolean writeBatch() {
+        writeLock.lock();
+        try {
+            Map<K, Entry<V>> batch;
+            lock.lock();
+            try {
+                if (pending.isEmpty()) {
+                    return false;
+                }
+                batch = Maps.newLinkedHashMapWithExpectedSize(Math.min(batchSize, pending.size()));
+                Iterator<Map.Entry<K, Entry<V>>> iterator = pending.entrySet().iterator();
+                while (iterator.hasNext() && batch.size() < batchSize) {
+                    Map.Entry<K, Entry<V>> entry = iterator.next();
+                    batch.put(entry.getKey(), entry.getValue());
+                    iterator.remove();
+                }
+                notFull.signalAll();
+            } finally {
+                lock.unlock();
+            }
+
+            Map<K, V> values = Maps.newHashMapWithExpectedSize(batch.size());
+            batch.forEach((k, entry) -> values.put(k, entry.value));
+            try {
+                writer.accept(values);
+            } catch (RuntimeException e) {
+                requeue(batch);
+                throw e;
+            }
+            batch.forEach(unwritten::remove);
+            return true;
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * 将写入失败的批次放回队列,写入期间已经被再次 put 的 key 以新值为准
+     */
+    private void requeue(Map<K, Entry<V>> batch) {
+        int discarded = 0;
+        lock.lock();
+        try {
+            for (Map.Entry<K, Entry<V>> entry : batch.entrySet()) {
+                Entry<V> queued = entry.getValue();
+                if (unwritten.get(entry.getKey()) != queued) {
+                    continue;
+                }
+                if (++queued.attempts >= MAX_ATTEMPTS) {
+                    unwritten.remove(entry.getKey(), queued);
+                    discarded++;
+                } else {
+                    pending.put(entry.getKey(), queued);
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+        if (discarded > 0) {
+            log.error("write behind discarded after {} attempts, name: {}, size: {}", MAX_ATTEMPTS, name, discarded);
+        }
+    }
+
+    private static final class Entry<V> {
+
+        private final V value;
+
+        /**
+         * 写入失败的次数,需要持有 lock
+         */
+        private int attempts;
+
+        private Entry(V value) {
+            this.value = value;
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package com.github.shenjianeng.easycache.core.codec;
+
+import com.esotericsoftware.kryo.Kryo;
+import com.esotericsoftware.kryo.io.Input;
+import com.esotericsoftware.kryo.io.Output;
+import com.esotericsoftware.kryo.pool.KryoPool;
+import lombok.extern.slf4j.Slf4j;
+import org.checkerframework.checker.nullness.qual.NonNull;
+import org.checkerframework.checker.nullness.qual.Nullable;
+import org.objenesis.strategy.StdInstantiatorStrategy;
+
+import java.util.function.Consumer;
+
+/**
+ * 基于 kryo 的二进制编解码,不要求 value 实现 {@link java.io.Serializable}
+ * <p>
+ * 默认不需要注册类型,注册类型后编码结果中使用类型 id 代替类名,体积更小
+ *
+ * @author shenjianeng
+ * @date 2026/10/18
+ */
+@Slf4j
+@SuppressWarnings("unchecked")
+public class KryoValueCodec<V> implements ValueCodec<V> {
+
+    private static final int BUFFER_SIZE = 256;
+
+    private final KryoPool kryoPool;
+
+    public KryoValueCodec() {
+        this(kryo -> {
+        });
+    }
+
+    /**
+     * @param customizer 用于注册类型、自定义 Serializer 等
+     */
+    public KryoValueCodec(Consumer<Kryo> customizer) {
+        this.kryoPool = new KryoPool.Builder(() -> {
+            Kryo kryo = new Kryo();
+            kryo.setRegistrationRequired(false);
+            // 优先使用无参构造方法,不存在时跳过构造方法直接创建对象
+            kryo.setInstantiatorStrategy(new Kryo.DefaultInstantiatorStrategy(new StdInstantiatorStrategy()));
+            customizer.accept(kryo);
+            return kryo;
+        }).softReferences().build();
+    }
+
+    @Override
+    @NonNull
+    public byte[] encode(@NonNull V value) {
+        Kryo kryo = kryoPool.borrow();
+        try {
+            Output output = new Output(BUFFER_SIZE, -1);
+            kryo.writeClassAndObject(output, value);
+            return output.toBytes();
+        } finally {
+            kryoPool.release(kryo);
+        }
+    }
+
+    /**
+     * 数据损坏或者类已经不存在时,kryo 可能抛出 {@link com.esotericsoftware.kryo.KryoException} 以外的异常,统一视为无法识别
+     */
+    @Override
+    @Nullable
+    public V decode(@NonNull byte[] bytes) {
+        Kryo kryo = kryoPool.borrow();
+        try {
+            return (V) kryo.readClassAndObject(new Input(bytes));
+        } catch (RuntimeException e) {
+            log.warn("kryo decode failed, length: {}, cause: {}", bytes.length, e.toString());
+            return null;
+        } finally {
+            kryoPool.release(kryo);
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package com.github.shenjianeng.easycache.core.codec;
+
+import lombok.extern.slf4j.Slf4j;
+import org.checkerframework.checker.nullness.qual.NonNull;
+import org.checkerframework.checker.nullness.qual.Nullable;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.data.redis.serializer.SerializationException;
+
+import java.util.Objects;
+
+/**
+ * 使用 {@link RedisSerializer} 编解码,RedisCache 未配置 valueCodec 时默认使用 RedisTemplate 的 valueSerializer
+ *
+ * @author shenjianeng
+ * @date 2026/10/18
+ */
+@Slf4j
+@SuppressWarnings("unchecked")
+public class RedisSerializerValueCodec<V> implements ValueCodec<V> {
+
+    private final RedisSerializer<Object> serializer;
+
+    public RedisSerializerValueCodec(RedisSerializer<?> serializer) {
+        this.serializer = (RedisSerializer<Object>) Objects.requireNonNull(serializer);
+    }
+
+    @Override
+    @NonNull
+    public byte[] encode(@NonNull V value) {
+        return serializer.serialize(value);
+    }
+
+    @Override
+    @Nullable
+    public V decode(@NonNull byte[] bytes) {
+        try {
+            return (V) serializer.deserialize(bytes);
+        } catch (SerializationException e) {
+            log.warn("deserialize value failed, length: {}, cause: {}", bytes.length, e.toString());
+            return null;
+        }
+    }
+}
@@ -0,0 +1,22 @@
+package com.github.shenjianeng.easycache.core.codec;
+
+import org.checkerframework.checker.nullness.qual.NonNull;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+/**
+ * 缓存值的编解码
+ *
+ * @author shenjianeng
+ * @date 2026/10/18
+ */
+public interface ValueCodec<V> {
+
+    @NonNull
+    byte[] encode(@NonNull V value);
+
+    /**
+     * @return 无法识别的数据返回 null,视为缓存中不存在
+     */
+    @Nullable
+    V decode(@NonNull byte[] bytes);
+}
@@ -0,0 +1,148 @@
+package com.github.shenjianeng.easycache.core.codec;
+
+import lombok.extern.slf4j.Slf4j;
+import net.jpountz.lz4.LZ4Compressor;
+import net.jpountz.lz4.LZ4Exception;
+import net.jpountz.lz4.LZ4Factory;
+import net.jpountz.lz4.LZ4FastDecompressor;
+import org.checkerframework.checker.nullness.qual.NonNull;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+import java.util.Objects;
+
+/**
+ * 在编码结果前加入头信息,超过阈值时使用 lz4 压缩
+ * <p>
+ * 头信息格式: magic(1 byte) + version(1 byte) + flags(1 byte) [+ 压缩前的长度(4 bytes)]
+ * <p>
+ * 滚动升级时,不同 version 的节点读取到对方写入的数据都视为缓存中不存在;
+ * 不包含头信息的旧数据交给 legacyCodec 解码
+ *
+ * @author shenjianeng
+ * @date 2026/10/18
+ */
+@Slf4j
+public class VersionedValueCodec<V> implements ValueCodec<V> {
+
+    private static final byte MAGIC = (byte) 0xEC;
+    private static final byte FLAG_LZ4 = 1;
+    private static final int HEADER_LENGTH = 3;
+    private static final int LENGTH_FIELD_LENGTH = 4;
+
+    /**
+     * lz4 每个字节的压缩数据最多解压出 255 个字节,头信息中的长度超过该比例说明数据已损坏
+     */
+    private static final int MAX_COMPRESSION_RATIO = 255;
+
+    private static final LZ4Compressor COMPRESSOR = LZ4Factory.fastestInstance().fastCompressor();
+    private static final LZ4FastDecompressor DECOMPRESSOR = LZ4Factory.fastestInstance().fastDecompressor();
+
+    private final ValueCodec<V> delegate;
+
+    private final byte version;
+
+    private final int compressionThreshold;
+
+    private final ValueCodec<V> legacyCodec;
+
+    /**
+     * 默认超过 1KB 时压缩
+     */
+    public VersionedValueCodec(ValueCodec<V> delegate, int version) {
+        this(delegate, version, 1024, null);
+    }
+
+    /**
+     * @param version              数据格式的版本号,value 结构发生不兼容的变化时需要修改,取值范围 [0, 255]
+     * @param compressionThreshold 编码结果超过该长度时压缩,小于 0 时不压缩
+     * @param legacyCodec          解码不包含头信息的旧数据,为 null 时视为缓存中不存在
+     */
+    public VersionedValueCodec(ValueCodec<V> delegate, int version, int compressionThreshold, @Nullable ValueCodec<V> legacyCodec) {
+        if (version < 0 || version > 255) {
+            throw new IllegalArgumentException("version 的取值范围为 [0, 255]");
+        }
+        this.delegate = Objects.requireNonNull(delegate);
+        this.version = (byte) version;
+        this.compressionThreshold = compressionThreshold;
+        this.legacyCodec = legacyCodec;
+    }
+
+    @Override
+    @NonNull
+    public byte[] encode(@NonNull V value) {
+        byte[] payload = delegate.encode(value);
+
+        if (compressionThreshold < 0 || payload.length <= compressionThreshold) {
+            byte[] bytes = new byte[HEADER_LENGTH + payload.length];
+            writeHeader(bytes, (byte) 0);
+            System.arraycopy(payload, 0, bytes, HEADER_LENGTH, payload.length);
+            return bytes;
+        }
+
+        int offset = HEADER_LENGTH + LENGTH_FIELD_LENGTH;
+        byte[] compressed = new byte[offset + COMPRESSOR.maxCompressedLength(payload.length)];
+        int compressedLength = COMPRESSOR.compress(payload, 0, payload.length, compressed, offset);
+        writeHeader(compressed, FLAG_LZ4);
+        writeInt(compressed, HEADER_LENGTH, payload.length);
+
+        byte[] bytes = new byte[offset + compressedLength];
+        System.arraycopy(compressed, 0, bytes, 0, bytes.length);
+        return bytes;
+    }
+
+    @Override
+    @Nullable
+    public V decode(@NonNull byte[] bytes) {
+        if (bytes.length < HEADER_LENGTH || bytes[0] != MAGIC) {
+            return legacyCodec == null ? null : legacyCodec.decode(bytes);
+        }
+        if (bytes[1] != version) {
+            return null;
+        }
+
+        if ((bytes[2] & FLAG_LZ4) == 0) {
+            byte[] payload = new byte[bytes.length - HEADER_LENGTH];
+            System.arraycopy(bytes, HEADER_LENGTH, payload, 0, payload.length);
+            return delegate.decode(payload);
+        }
+
+        if (bytes.length < HEADER_LENGTH + LENGTH_FIELD_LENGTH) {
+            return null;
+        }
+        int length = readInt(bytes, HEADER_LENGTH);
+        int compressedLength = bytes.length - HEADER_LENGTH - LENGTH_FIELD_LENGTH;
+        if (length < 0 || length > (long) compressedLength * MAX_COMPRESSION_RATIO) {
+            // 不按照损坏的长度分配内存
+            log.warn("invalid lz4 decompressed length: {}, compressed length: {}", length, compressedLength);
+            return null;
+        }
+        byte[] payload;
+        try {
+            payload = DECOMPRESSOR.decompress(bytes, HEADER_LENGTH + LENGTH_FIELD_LENGTH, length);
+        } catch (LZ4Exception e) {
+            log.warn("lz4 decompress failed, length: {}, cause: {}", bytes.length, e.toString());
+            return null;
+        }
+        return delegate.decode(payload);
+    }
+
+    private void writeHeader(byte[] bytes, byte flags) {
+        bytes[0] = MAGIC;
+        bytes[1] = version;
+        bytes[2] = flags;
+    }
+
+    private static void writeInt(byte[] bytes, int offset, int value) {
+        bytes[offset] = (byte) (value >>> 24);
+        bytes[offset + 1] = (byte) (value >>> 16);
+        bytes[offset + 2] = (byte) (value >>> 8);
+        bytes[offset + 3] = (byte) value;
+    }
+
+    private static int readInt(byte[] bytes, int offset) {
+        return (bytes[offset] & 0xFF) << 24
+                | (bytes[offset + 1] & 0xFF) << 16
+                | (bytes[offset + 2] & 0xFF) << 8
+                | (bytes[offset + 3] & 0xFF);
+    }
+}
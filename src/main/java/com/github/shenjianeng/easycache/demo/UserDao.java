@@ -0,0 +1,47 @@
+package com.github.shenjianeng.easycache.demo;
+
+import com.github.shenjianeng.easycache.spring.EasyCacheable;
+import com.google.common.collect.Lists;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * 通过 {@link EasyCacheable} 缓存批量查询的结果
+ *
+ * @author shenjianeng
+ * @date 2026/10/18
+ */
+@Repository
+public class UserDao {
+
+    /**
+     * 实际查询的 id,模拟数据库查询
+     */
+    private final List<Integer> queriedIds = Lists.newCopyOnWriteArrayList();
+
+    public List<Integer> getQueriedIds() {
+        return queriedIds;
+    }
+
+    @EasyCacheable(value = "user:dao:map")
+    public Map<Integer, UserService.User> getUsers(Collection<Integer> ids) {
+        return listUsers(Lists.newArrayList(ids)).stream()
+                .collect(Collectors.toMap(UserService.User::getId, Function.identity()));
+    }
+
+    @EasyCacheable(value = "user:dao:list", key = "id")
+    public List<UserService.User> listUsers(List<Integer> ids) {
+        queriedIds.addAll(ids);
+        return ids.stream().map(id -> {
+            UserService.User user = new UserService.User();
+            user.setId(id);
+            user.setName("user:" + id);
+            return user;
+        }).collect(Collectors.toList());
+    }
+}
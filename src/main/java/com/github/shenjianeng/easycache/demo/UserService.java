@@ -1,7 +1,10 @@
 package com.github.shenjianeng.easycache.demo;
 
 import com.github.shenjianeng.easycache.core.Cache;
+import com.github.shenjianeng.easycache.core.MicrometerCacheMetrics;
 import com.github.shenjianeng.easycache.core.RedisCache;
+import com.github.shenjianeng.easycache.core.RedisCacheConfig;
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.Data;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.redis.core.RedisTemplate;
@@ -23,9 +26,13 @@ public class UserService {
     public Cache<Integer, User> userCache;
     @Autowired
     private RedisTemplate<String, Serializable> redisTemplate;
+    @Autowired
+    private MeterRegistry meterRegistry;
 
     @PostConstruct
     public void init() {
+        RedisCacheConfig config = new RedisCacheConfig();
+        config.setMetrics(new MicrometerCacheMetrics(meterRegistry, "user"));
         userCache =
                 new RedisCache<>("user", redisTemplate, Duration.ofMinutes(5),
                         keys -> keys.stream().map(k -> {
@@ -33,7 +40,8 @@ public class UserService {
                             user.setId(k);
                             user.setName("user:" + k);
                             return user;
-                        }).collect(Collectors.toMap(User::getId, Function.identity())));
+                        }).collect(Collectors.toMap(User::getId, Function.identity())),
+                        Object::toString, true, config);
     }
 
     @Data
@@ -0,0 +1,77 @@
+package com.github.shenjianeng.easycache.spring;
+
+import com.github.shenjianeng.easycache.core.CacheMetrics;
+import com.github.shenjianeng.easycache.core.MicrometerCacheMetrics;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.AutoConfigureAfter;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.autoconfigure.data.redis.RedisAutoConfiguration;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.serializer.JdkSerializationRedisSerializer;
+import org.springframework.data.redis.serializer.StringRedisSerializer;
+
+import java.io.Serializable;
+
+/**
+ * 注册 {@link EasyCacheableAspect}
+ * <p>
+ * 优先使用容器中唯一的 RedisTemplate&lt;String, Serializable&gt;,不存在时根据 RedisConnectionFactory 创建;
+ * 引入 micrometer 且容器中存在 MeterRegistry 时记录监控指标,actuator 和 aop 都是可选依赖,需要使用方自行引入
+ *
+ * @author shenjianeng
+ * @date 2026/10/18
+ */
+@Configuration
+@ConditionalOnClass({RedisTemplate.class, Aspect.class})
+@ConditionalOnBean(RedisConnectionFactory.class)
+@AutoConfigureAfter(RedisAutoConfiguration.class)
+@EnableConfigurationProperties(EasyCacheProperties.class)
+public class EasyCacheAutoConfiguration {
+
+    @Bean
+    @ConditionalOnMissingBean
+    public EasyCacheableAspect easyCacheableAspect(RedisConnectionFactory redisConnectionFactory,
+                                                   ObjectProvider<RedisTemplate<String, Serializable>> redisTemplate,
+                                                   ObjectProvider<EasyCacheableAspect.CacheMetricsFactory> metricsFactory,
+                                                   EasyCacheProperties properties) {
+
+        RedisTemplate<String, Serializable> template = redisTemplate.getIfUnique();
+        if (template == null) {
+            template = new RedisTemplate<>();
+            template.setConnectionFactory(redisConnectionFactory);
+            template.setKeySerializer(new StringRedisSerializer());
+            template.setValueSerializer(new JdkSerializationRedisSerializer());
+            template.afterPropertiesSet();
+        }
+
+        return new EasyCacheableAspect(template, properties, metricsFactory.getIfAvailable());
+    }
+
+    /**
+     * 单独的配置类,classpath 中没有 micrometer 时不会加载 {@link MeterRegistry}
+     */
+    @Configuration
+    @ConditionalOnClass(MeterRegistry.class)
+    static class MicrometerMetricsConfiguration {
+
+        /**
+         * MeterRegistry 在创建缓存时才获取,不依赖 actuator 自动配置的加载顺序
+         */
+        @Bean
+        @ConditionalOnMissingBean
+        public EasyCacheableAspect.CacheMetricsFactory easyCacheMetricsFactory(ObjectProvider<MeterRegistry> meterRegistry) {
+            return keyPrefix -> {
+                MeterRegistry registry = meterRegistry.getIfUnique();
+                return registry == null ? CacheMetrics.NOOP : new MicrometerCacheMetrics(registry, keyPrefix);
+            };
+        }
+    }
+}
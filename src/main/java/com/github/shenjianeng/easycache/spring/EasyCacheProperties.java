@@ -0,0 +1,37 @@
+package com.github.shenjianeng.easycache.spring;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * {@link EasyCacheable} 创建的缓存的默认配置
+ *
+ * @author shenjianeng
+ * @date 2026/10/18
+ */
+@Data
+@ConfigurationProperties(prefix = "easy-cache")
+public class EasyCacheProperties {
+
+    /**
+     * 默认的缓存时间
+     */
+    private Duration timeToLive = Duration.ofMinutes(5);
+
+    /**
+     * 单条 mget 命令最多获取的 key 数量
+     */
+    private int batchSize = 20;
+
+    /**
+     * 是否缓存 null 值
+     */
+    private boolean cacheNullValues = false;
+
+    /**
+     * 是否支持 evictAll
+     */
+    private boolean maintainKnownKeys = true;
+}
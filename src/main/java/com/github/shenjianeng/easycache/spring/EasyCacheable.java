@@ -0,0 +1,46 @@
+package com.github.shenjianeng.easycache.spring;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 将批量查询方法作为 {@link com.github.shenjianeng.easycache.core.MultiCacheLoader},
+ * 调用时先从缓存中获取,只有缓存中不存在的 key 才会传给方法
+ * <p>
+ * 方法只能有一个 Collection / List / Set 类型的参数,返回值为 Map&lt;K, V&gt; 或者 List&lt;V&gt;;
+ * 返回 List 时需要通过 {@link #key()} 指定如何从 V 中获取 K,返回的 List 按照参数中 key 的顺序排列
+ * <pre>
+ * &#064;EasyCacheable(value = "user", key = "id")
+ * public List&lt;User&gt; listUsers(Collection&lt;Integer&gt; ids)
+ * </pre>
+ * 所在的 bean 必须是单例
+ *
+ * @author shenjianeng
+ * @date 2026/10/18
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface EasyCacheable {
+
+    /**
+     * 缓存的 keyPrefix
+     */
+    String value();
+
+    /**
+     * 缓存时间,小于等于 0 时使用 easy-cache.time-to-live
+     */
+    long timeToLive() default 0;
+
+    TimeUnit timeUnit() default TimeUnit.SECONDS;
+
+    /**
+     * 返回 List 时,从 V 中获取 K 的 SpEL 表达式,以 V 作为 root object,例如 "id"
+     */
+    String key() default "";
+}
@@ -0,0 +1,197 @@
+package com.github.shenjianeng.easycache.spring;
+
+import com.github.shenjianeng.easycache.core.CacheMetrics;
+import com.github.shenjianeng.easycache.core.MultiCacheLoader;
+import com.github.shenjianeng.easycache.core.RedisCache;
+import com.github.shenjianeng.easycache.core.RedisCacheConfig;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.expression.Expression;
+import org.springframework.expression.spel.standard.SpelExpressionParser;
+import org.springframework.util.ReflectionUtils;
+
+import java.io.Serializable;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * 处理 {@link EasyCacheable},每个方法对应一个 {@link RedisCache}
+ *
+ * @author shenjianeng
+ * @date 2026/10/18
+ */
+@Aspect
+@SuppressWarnings("unchecked")
+public class EasyCacheableAspect {
+
+    private static final SpelExpressionParser PARSER = new SpelExpressionParser();
+
+    private final RedisTemplate<String, Serializable> redisTemplate;
+
+    private final EasyCacheProperties properties;
+
+    private final CacheMetricsFactory metricsFactory;
+
+    private final ConcurrentMap<Method, CachedMethod> cachedMethods = new ConcurrentHashMap<>();
+
+    /**
+     * @param metricsFactory 为 null 时不记录监控指标
+     */
+    public EasyCacheableAspect(RedisTemplate<String, Serializable> redisTemplate, EasyCacheProperties properties,
+                               CacheMetricsFactory metricsFactory) {
+        this.redisTemplate = Objects.requireNonNull(redisTemplate);
+        this.properties = Objects.requireNonNull(properties);
+        this.metricsFactory = metricsFactory;
+    }
+
+    @Around("@annotation(easyCacheable)")
+    public Object around(ProceedingJoinPoint joinPoint, EasyCacheable easyCacheable) throws Throwable {
+        Method method = ((MethodSignature) joinPoint.getSignature()).getMethod();
+        Collection<Object> keys = (Collection<Object>) joinPoint.getArgs()[0];
+        if (keys == null) {
+            return joinPoint.proceed();
+        }
+
+        CachedMethod cachedMethod = cachedMethods.get(method);
+        if (cachedMethod == null) {
+            cachedMethod = cachedMethods.computeIfAbsent(method,
+                    m -> new CachedMethod(m, joinPoint.getTarget(), easyCacheable));
+        }
+        return cachedMethod.invoke(keys);
+    }
+
+    /**
+     * 根据 keyPrefix 创建 {@link CacheMetrics}
+     */
+    @FunctionalInterface
+    public interface CacheMetricsFactory {
+
+        CacheMetrics create(String keyPrefix);
+    }
+
+    private class CachedMethod {
+
+        private final Method method;
+
+        private final Object target;
+
+        private final boolean returnsMap;
+
+        /**
+         * 返回 List 时,从 V 中获取 K
+         */
+        private final Expression keyExpression;
+
+        private final RedisCache<Serializable, Object> cache;
+
+        private CachedMethod(Method method, Object target, EasyCacheable easyCacheable) {
+            Class<?>[] parameterTypes = method.getParameterTypes();
+            if (parameterTypes.length != 1 || !parameterTypes[0].isAssignableFrom(List.class)
+                    && !parameterTypes[0].isAssignableFrom(LinkedHashSet.class)) {
+                throw new IllegalStateException("@EasyCacheable 方法只能有一个 Collection / List / Set 类型的参数: " + method);
+            }
+            this.returnsMap = Map.class.isAssignableFrom(method.getReturnType());
+            if (!returnsMap && !method.getReturnType().isAssignableFrom(List.class)) {
+                throw new IllegalStateException("@EasyCacheable 方法的返回值必须是 Map 或者 List: " + method);
+            }
+            if (!returnsMap && easyCacheable.key().isEmpty()) {
+                throw new IllegalStateException("@EasyCacheable 方法返回 List 时必须指定 key: " + method);
+            }
+
+            this.method = method;
+            this.target = target;
+            this.keyExpression = returnsMap ? null : PARSER.parseExpression(easyCacheable.key());
+            ReflectionUtils.makeAccessible(method);
+
+            RedisCacheConfig config = new RedisCacheConfig();
+            config.setBatchSize(properties.getBatchSize());
+            config.setCacheNullValues(properties.isCacheNullValues());
+            if (metricsFactory != null) {
+                config.setMetrics(metricsFactory.create(easyCacheable.value()));
+            }
+            Duration timeToLive = easyCacheable.timeToLive() > 0
+                    ? Duration.ofMillis(easyCacheable.timeUnit().toMillis(easyCacheable.timeToLive()))
+                    : properties.getTimeToLive();
+
+            this.cache = new RedisCache<>(easyCacheable.value(), redisTemplate, timeToLive, this::load,
+                    Object::toString, properties.isMaintainKnownKeys(), config);
+        }
+
+        private Object invoke(Collection<Object> keys) {
+            List<Serializable> keyList = Lists.newArrayListWithExpectedSize(keys.size());
+            for (Object key : keys) {
+                if (key != null) {
+                    keyList.add((Serializable) key);
+                }
+            }
+
+            Map<Serializable, Object> values = cache.getOrLoadIfAbsent(keyList);
+            if (returnsMap) {
+                Map<Serializable, Object> map = Maps.newLinkedHashMapWithExpectedSize(values.size());
+                keyList.forEach(k -> {
+                    Object v = values.get(k);
+                    if (v != null) {
+                        map.put(k, v);
+                    }
+                });
+                return map;
+            }
+
+            List<Object> list = Lists.newArrayListWithExpectedSize(values.size());
+            keyList.forEach(k -> {
+                Object v = values.get(k);
+                if (v != null) {
+                    list.add(v);
+                }
+            });
+            return list;
+        }
+
+        /**
+         * 直接调用目标对象的方法,不经过代理
+         */
+        private Map<Serializable, Object> load(Collection<Serializable> keys) {
+            Class<?> parameterType = method.getParameterTypes()[0];
+            Collection<Serializable> argument = parameterType.isAssignableFrom(List.class)
+                    ? Lists.newArrayList(keys) : Sets.newLinkedHashSet(keys);
+
+            Object result;
+            try {
+                result = method.invoke(target, argument);
+            } catch (InvocationTargetException e) {
+                ReflectionUtils.rethrowRuntimeException(e.getTargetException());
+                throw new IllegalStateException(e);
+            } catch (IllegalAccessException e) {
+                throw new IllegalStateException(e);
+            }
+            if (result == null) {
+                return Maps.newHashMap();
+            }
+            if (returnsMap) {
+                return (Map<Serializable, Object>) result;
+            }
+
+            Map<Serializable, Object> map = Maps.newHashMapWithExpectedSize(keys.size());
+            for (Object value : (List<Object>) result) {
+                if (value != null) {
+                    map.put((Serializable) keyExpression.getValue(value), value);
+                }
+            }
+            return map;
+        }
+    }
+}
@@ -0,0 +1,171 @@
+package com.github.shenjianeng.easycache.core;
+
+import com.github.shenjianeng.easycache.EasyCacheApplication;
+import com.google.common.collect.ImmutableMap;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.data.redis.connection.RedisStandaloneConfiguration;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.serializer.StringRedisSerializer;
+
+import java.io.Serializable;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * @author shenjianeng
+ * @date 2026/10/18
+ */
+public class CacheInvalidatorTest {
+
+    private static final String STREAM_KEY = "test:invalidator:events";
+
+    private AnnotationConfigApplicationContext context;
+
+    private RedisTemplate<String, Serializable> redisTemplate;
+
+    @Before
+    @SuppressWarnings("unchecked")
+    public void setUp() {
+        context = new AnnotationConfigApplicationContext(EasyCacheApplication.class);
+        redisTemplate = context.getBean("redisTemplate", RedisTemplate.class);
+        redisTemplate.delete(STREAM_KEY);
+    }
+
+    @After
+    public void tearDown() {
+        redisTemplate.delete(STREAM_KEY);
+        context.close();
+    }
+
+    @Test
+    public void testInvalidate() throws InterruptedException {
+        RedisCache<Integer, String> cache = new RedisCache<>("test:invalidator", redisTemplate, Duration.ofMinutes(5),
+                keys -> keys.stream().collect(Collectors.toMap(Function.identity(), String::valueOf)),
+                Object::toString, true, new RedisCacheConfig());
+        cache.evictAll();
+        cache.put(ImmutableMap.of(1, "old", 2, "old", 3, "old"));
+
+        RedisStreamChangeEventSource source = new RedisStreamChangeEventSource(redisTemplate, STREAM_KEY, "test", "consumer-1");
+        CacheInvalidatorConfig config = new CacheInvalidatorConfig();
+        config.setPollInterval(Duration.ofMillis(10));
+        CacheInvalidator invalidator = new CacheInvalidator("test", source, config)
+                .register("test:invalidator", cache, Integer::valueOf);
+        // 创建消费者组,之后写入的事件才会被消费
+        Assert.assertTrue(source.poll(10).isEmpty());
+        invalidator.start();
+
+        try {
+            source.publish("test:invalidator", "1", ChangeEvent.Action.EVICT);
+            source.publish("test:invalidator", "2", ChangeEvent.Action.RELOAD);
+            source.publish("test:other", "3", ChangeEvent.Action.EVICT);
+            source.publish("test:invalidator", "not a number", ChangeEvent.Action.EVICT);
+
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+            while (invalidator.getProcessedEvents() < 4 && System.nanoTime() < deadline) {
+                TimeUnit.MILLISECONDS.sleep(10);
+            }
+            Assert.assertEquals(4, invalidator.getProcessedEvents());
+            Assert.assertNull(cache.getIfPresent(1));
+            Assert.assertEquals("2", cache.getIfPresent(2));
+            Assert.assertEquals("old", cache.getIfPresent(3));
+        } finally {
+            invalidator.close();
+            cache.evictAll();
+        }
+    }
+
+    @Test
+    public void testDiscardPoisonEvents() throws InterruptedException {
+        RedisCache<Integer, String> cache = new RedisCache<>("test:invalidator", redisTemplate, Duration.ofMinutes(5),
+                keys -> keys.stream().collect(Collectors.toMap(Function.identity(), String::valueOf)),
+                Object::toString, true, new RedisCacheConfig());
+        cache.evictAll();
+        cache.put(ImmutableMap.of(1, "old", 2, "old"));
+
+        // 没有 redis 监听的端口,evict 一直失败
+        LettuceConnectionFactory factory = new LettuceConnectionFactory(new RedisStandaloneConfiguration("127.0.0.1", 1));
+        factory.afterPropertiesSet();
+        RedisTemplate<String, Serializable> unavailableTemplate = new RedisTemplate<>();
+        unavailableTemplate.setConnectionFactory(factory);
+        unavailableTemplate.setKeySerializer(new StringRedisSerializer());
+        unavailableTemplate.afterPropertiesSet();
+        RedisCache<Integer, String> unavailableCache = new RedisCache<>("test:unavailable", unavailableTemplate, Duration.ofMinutes(5),
+                keys -> keys.stream().collect(Collectors.toMap(Function.identity(), String::valueOf)),
+                Object::toString, false, new RedisCacheConfig());
+
+        RedisStreamChangeEventSource source = new RedisStreamChangeEventSource(redisTemplate, STREAM_KEY, "test", "consumer-1");
+        CacheInvalidatorConfig config = new CacheInvalidatorConfig();
+        config.setPollInterval(Duration.ofMillis(10));
+        config.setRetryInterval(Duration.ofMillis(10));
+        config.setMaxAttempts(3);
+        CacheInvalidator invalidator = new CacheInvalidator("test", source, config)
+                .register("test:invalidator", cache, Integer::valueOf)
+                .register("test:unavailable", unavailableCache, Integer::valueOf);
+        Assert.assertTrue(source.poll(10).isEmpty());
+        invalidator.start();
+
+        try {
+            source.publish("test:unavailable", "1", ChangeEvent.Action.EVICT);
+            source.publish("test:invalidator", "1", ChangeEvent.Action.EVICT);
+
+            // 其他 keyPrefix 的事件不受影响,失败的事件重试 maxAttempts 次后被丢弃
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+            while (invalidator.getProcessedEvents() < 2 && System.nanoTime() < deadline) {
+                TimeUnit.MILLISECONDS.sleep(10);
+            }
+            Assert.assertEquals(2, invalidator.getProcessedEvents());
+            Assert.assertEquals(1, invalidator.getDiscardedEvents());
+            Assert.assertNull(cache.getIfPresent(1));
+
+            source.publish("test:invalidator", "2", ChangeEvent.Action.EVICT);
+            deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+            while (invalidator.getProcessedEvents() < 3 && System.nanoTime() < deadline) {
+                TimeUnit.MILLISECONDS.sleep(10);
+            }
+            Assert.assertNull(cache.getIfPresent(2));
+        } finally {
+            invalidator.close();
+            unavailableCache.close();
+            factory.destroy();
+            cache.evictAll();
+        }
+    }
+
+    @Test
+    public void testRedeliverUnacknowledged() {
+        RedisStreamChangeEventSource source = new RedisStreamChangeEventSource(redisTemplate, STREAM_KEY, "test", "consumer-1");
+        Assert.assertTrue(source.poll(10).isEmpty());
+        String id = source.publish("test:invalidator", "1", ChangeEvent.Action.EVICT);
+
+        List<ChangeEvent> events = source.poll(10);
+        Assert.assertEquals(1, events.size());
+        Assert.assertEquals(id, events.get(0).getId());
+        Assert.assertEquals("1", events.get(0).getKey());
+
+        // 未确认的事件在下一次 poll 或者重启后重新返回
+        Assert.assertEquals(id, source.poll(10).get(0).getId());
+        RedisStreamChangeEventSource restarted = new RedisStreamChangeEventSource(redisTemplate, STREAM_KEY, "test", "consumer-1");
+        events = restarted.poll(10);
+        Assert.assertEquals(1, events.size());
+        Assert.assertEquals(id, events.get(0).getId());
+
+        // 重新投递未确认的事件时同时读取新事件
+        String newId = source.publish("test:invalidator", "2", ChangeEvent.Action.EVICT);
+        events = restarted.poll(10);
+        Assert.assertEquals(2, events.size());
+        Assert.assertEquals(id, events.get(0).getId());
+        Assert.assertEquals(newId, events.get(1).getId());
+
+        restarted.acknowledge(events);
+        Assert.assertTrue(restarted.poll(10).isEmpty());
+        Assert.assertTrue(new RedisStreamChangeEventSource(redisTemplate, STREAM_KEY, "test", "consumer-1").poll(10).isEmpty());
+    }
+}
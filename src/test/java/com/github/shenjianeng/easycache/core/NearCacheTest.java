@@ -0,0 +1,124 @@
+package com.github.shenjianeng.easycache.core;
+
+import com.github.shenjianeng.easycache.EasyCacheApplication;
+import com.google.common.collect.Lists;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+
+import java.io.Serializable;
+import java.lang.reflect.Proxy;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * @author shenjianeng
+ * @date 2026/10/18
+ */
+public class NearCacheTest {
+
+    private AnnotationConfigApplicationContext context;
+
+    private RedisTemplate<String, Serializable> redisTemplate;
+
+    private RedisMessageListenerContainer listenerContainer;
+
+    @Before
+    @SuppressWarnings("unchecked")
+    public void setUp() {
+        context = new AnnotationConfigApplicationContext(EasyCacheApplication.class);
+        redisTemplate = context.getBean("redisTemplate", RedisTemplate.class);
+
+        listenerContainer = new RedisMessageListenerContainer();
+        listenerContainer.setConnectionFactory(context.getBean(RedisConnectionFactory.class));
+        listenerContainer.afterPropertiesSet();
+        listenerContainer.start();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        listenerContainer.destroy();
+        context.close();
+    }
+
+    @Test
+    public void testInvalidation() throws Exception {
+        RedisCache<Integer, String> remoteCache = new RedisCache<>("test:near", redisTemplate, Duration.ofMinutes(5),
+                keys -> keys.stream().collect(Collectors.toMap(Function.identity(), String::valueOf)));
+        remoteCache.evictAll();
+
+        // 模拟两个节点
+        NearCache<Integer, String> node1 = new NearCache<>("test:near", remoteCache, redisTemplate, listenerContainer, 100, Duration.ofMinutes(1));
+        NearCache<Integer, String> node2 = new NearCache<>("test:near", remoteCache, redisTemplate, listenerContainer, 100, Duration.ofMinutes(1));
+        // 等待订阅生效
+        Thread.sleep(500);
+
+        Assert.assertEquals("1", node1.getOrLoadIfAbsent(1));
+        Assert.assertEquals("1", node2.getIfPresent(1));
+
+        node1.put(1, "one");
+        Thread.sleep(500);
+        Assert.assertEquals("one", node2.getIfPresent(1));
+
+        Map<Integer, String> map = node2.getOrLoadIfAbsent(Lists.newArrayList(1, 2));
+        Assert.assertEquals("one", map.get(1));
+        Assert.assertEquals("2", map.get(2));
+
+        node1.evictAll();
+        Thread.sleep(500);
+        Assert.assertTrue(node2.getIfPresent(Lists.newArrayList(1, 2)).isEmpty());
+
+        // 格式错误的消息被忽略,不影响之后的失效消息
+        byte[] malformed = {0, 1, 'x', 0, 0, 0, 1, 0x7f, -1, -1, -1};
+        redisTemplate.execute((RedisCallback<Long>) connection ->
+                connection.publish("test:near$$invalidation$$".getBytes(StandardCharsets.UTF_8), malformed));
+        Assert.assertEquals("2", node2.getOrLoadIfAbsent(2));
+        node1.put(2, "two");
+        Thread.sleep(500);
+        Assert.assertEquals("two", node2.getIfPresent(2));
+
+        node1.close();
+        node2.close();
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testInvalidationDuringRemoteRead() throws Exception {
+        RedisCache<Integer, String> remoteCache = new RedisCache<>("test:near:race", redisTemplate, Duration.ofMinutes(5),
+                keys -> keys.stream().collect(Collectors.toMap(Function.identity(), String::valueOf)));
+        remoteCache.evictAll();
+        remoteCache.put(1, "old");
+
+        NearCache<Integer, String> node2 = new NearCache<>("test:near:race", remoteCache, redisTemplate, listenerContainer, 100, Duration.ofMinutes(1));
+        AtomicBoolean raced = new AtomicBoolean();
+        // node1 从远程缓存读取到旧值之后、写入本地缓存之前,node2 修改了该 key
+        Cache<Integer, String> slowRemoteCache = (Cache<Integer, String>) Proxy.newProxyInstance(getClass().getClassLoader(),
+                new Class[]{Cache.class}, (proxy, method, args) -> {
+                    Object result = method.invoke(remoteCache, args);
+                    if (method.getName().equals("getIfPresent") && raced.compareAndSet(false, true)) {
+                        node2.put(1, "new");
+                        Thread.sleep(500);
+                    }
+                    return result;
+                });
+        NearCache<Integer, String> node1 = new NearCache<>("test:near:race", slowRemoteCache, redisTemplate, listenerContainer, 100, Duration.ofMinutes(1));
+        Thread.sleep(500);
+
+        Assert.assertEquals("old", node1.getIfPresent(1));
+        Assert.assertEquals("new", node1.getIfPresent(1));
+
+        node1.close();
+        node2.close();
+        remoteCache.evictAll();
+    }
+}
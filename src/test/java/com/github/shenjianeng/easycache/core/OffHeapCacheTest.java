@@ -0,0 +1,160 @@
+package com.github.shenjianeng.easycache.core;
+
+import com.google.common.base.Strings;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * @author shenjianeng
+ * @date 2026/10/18
+ */
+public class OffHeapCacheTest {
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Test
+    public void testGetAndPut() {
+        AtomicInteger loadCount = new AtomicInteger();
+        OffHeapCacheConfig config = new OffHeapCacheConfig();
+        config.setMaxBytes(1024 * 1024);
+        config.setCacheNullValues(true);
+        OffHeapCache<Integer, String> cache = newCache(Duration.ofMinutes(5), loadCount, config);
+
+        List<Integer> keys = IntStream.range(0, 100).boxed().collect(Collectors.toList());
+        cache.put(keys.stream().filter(k -> k % 2 == 0).collect(Collectors.toMap(Function.identity(), String::valueOf)));
+        Map<Integer, String> map = cache.getIfPresent(keys);
+        Assert.assertEquals(50, map.size());
+        map.forEach((k, v) -> Assert.assertEquals(String.valueOf(k), v));
+
+        map = cache.getOrLoadIfAbsent(keys);
+        Assert.assertEquals(100, map.size());
+        Assert.assertEquals(50, loadCount.get());
+
+        // 未加载到的 key 缓存 null 值
+        Assert.assertNull(cache.getOrLoadIfAbsent(-1));
+        Assert.assertNull(cache.getOrLoadIfAbsent(-1));
+        Assert.assertEquals(51, loadCount.get());
+        ValueWrapper<String> wrapper = cache.getWrapperIfPresent(-1);
+        Assert.assertNotNull(wrapper);
+        Assert.assertNull(wrapper.get());
+
+        cache.put(0, "new");
+        Assert.assertEquals("new", cache.getIfPresent(0));
+        cache.evict(0);
+        Assert.assertNull(cache.getIfPresent(0));
+        cache.evictAll();
+        Assert.assertTrue(cache.getIfPresent(keys).isEmpty());
+        Assert.assertEquals(0, cache.size());
+    }
+
+    @Test
+    public void testExpiryAndEviction() throws InterruptedException {
+        OffHeapCacheConfig config = new OffHeapCacheConfig();
+        config.setMaxBytes(8 * 1024);
+        config.setSegmentCount(1);
+        OffHeapCache<Integer, String> cache = newCache(Duration.ofMillis(200), new AtomicInteger(), config);
+
+        cache.put(1, "1");
+        Assert.assertEquals("1", cache.getIfPresent(1));
+        Thread.sleep(300);
+        Assert.assertNull(cache.getIfPresent(1));
+
+        // 容量满后淘汰最早写入的缓存项
+        String value = Strings.repeat("x", 100);
+        cache = newCache(Duration.ofMinutes(5), new AtomicInteger(), config);
+        for (int i = 0; i < 1000; i++) {
+            cache.put(i, value + i);
+        }
+        Assert.assertTrue(cache.size() < 100);
+        Assert.assertNull(cache.getIfPresent(0));
+        Assert.assertEquals(value + 999, cache.getIfPresent(999));
+
+        // 超过分段容量的 value 不会被缓存
+        cache.put(-1, Strings.repeat("x", 8 * 1024));
+        Assert.assertNull(cache.getIfPresent(-1));
+
+        // null 值同样占用缓冲区,缓存项的数量受 maxBytes 限制
+        config.setMaxBytes(1024);
+        config.setCacheNullValues(true);
+        cache = newCache(Duration.ofMinutes(5), new AtomicInteger(), config);
+        for (int i = 1; i <= 200000; i++) {
+            Assert.assertNull(cache.getOrLoadIfAbsent(-i));
+        }
+        Assert.assertTrue(cache.size() <= 1024 / OffHeapSegment.MIN_RECORD_LENGTH);
+        Assert.assertNotNull(cache.getWrapperIfPresent(-200000));
+    }
+
+    @Test
+    public void testConcurrentReadWrite() throws Exception {
+        OffHeapCacheConfig config = new OffHeapCacheConfig();
+        config.setMaxBytes(64 * 1024);
+        config.setSegmentCount(4);
+        OffHeapCache<Integer, String> cache = newCache(Duration.ofMinutes(5), new AtomicInteger(), config);
+
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<?>> futures = IntStream.range(0, 8).mapToObj(t -> executor.submit(() -> {
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                for (int i = 0; i < 20000; i++) {
+                    int key = random.nextInt(2000);
+                    if (t % 2 == 0) {
+                        cache.put(key, Strings.repeat(String.valueOf(key), random.nextInt(1, 20)));
+                    } else {
+                        String v = cache.getIfPresent(key);
+                        Assert.assertTrue(v == null || v.equals(Strings.repeat(String.valueOf(key), v.length() / String.valueOf(key).length())));
+                    }
+                }
+            })).collect(Collectors.toList());
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void testPersistence() throws Exception {
+        Path file = temporaryFolder.getRoot().toPath().resolve("off-heap.cache");
+        OffHeapCacheConfig config = new OffHeapCacheConfig();
+        config.setMaxBytes(1024 * 1024);
+        config.setCacheNullValues(true);
+        config.setPersistenceFile(file);
+
+        OffHeapCache<Integer, String> cache = newCache(Duration.ofMinutes(5), new AtomicInteger(), config);
+        cache.put(IntStream.range(0, 100).boxed().collect(Collectors.toMap(Function.identity(), String::valueOf)));
+        cache.put(-1, null);
+        cache.close();
+
+        AtomicInteger loadCount = new AtomicInteger();
+        OffHeapCache<Integer, String> restored = newCache(Duration.ofMinutes(5), loadCount, config);
+        Assert.assertEquals(101, restored.size());
+        Assert.assertEquals(100, restored.getOrLoadIfAbsent(IntStream.range(0, 100).boxed().collect(Collectors.toList())).size());
+        Assert.assertNotNull(restored.getWrapperIfPresent(-1));
+        Assert.assertEquals(0, loadCount.get());
+    }
+
+    private OffHeapCache<Integer, String> newCache(Duration timeToLive, AtomicInteger loadCount, OffHeapCacheConfig config) {
+        return new OffHeapCache<>(timeToLive,
+                keys -> {
+                    loadCount.addAndGet(keys.size());
+                    return keys.stream().filter(k -> k >= 0).collect(Collectors.toMap(Function.identity(), String::valueOf));
+                }, config);
+    }
+}
@@ -0,0 +1,951 @@
+package com.github.shenjianeng.easycache.core;
+
+import com.github.shenjianeng.easycache.EasyCacheApplication;
+import com.github.shenjianeng.easycache.core.codec.KryoValueCodec;
+import com.github.shenjianeng.easycache.core.codec.RedisSerializerValueCodec;
+import com.github.shenjianeng.easycache.core.codec.VersionedValueCodec;
+import com.google.common.base.Strings;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.util.concurrent.Uninterruptibles;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.data.redis.RedisConnectionFailureException;
+import org.springframework.data.redis.connection.RedisStandaloneConfiguration;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.serializer.JdkSerializationRedisSerializer;
+import org.springframework.data.redis.serializer.StringRedisSerializer;
+
+import java.io.Serializable;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.LongStream;
+
+/**
+ * @author shenjianeng
+ * @date 2026/10/18
+ */
+public class RedisCacheTest {
+
+    private AnnotationConfigApplicationContext context;
+
+    private RedisTemplate<String, Serializable> redisTemplate;
+
+    @Before
+    @SuppressWarnings("unchecked")
+    public void setUp() {
+        context = new AnnotationConfigApplicationContext(EasyCacheApplication.class);
+        redisTemplate = context.getBean("redisTemplate", RedisTemplate.class);
+    }
+
+    @After
+    public void tearDown() {
+        context.close();
+    }
+
+    @Test
+    public void testPipelinedMultiGet() {
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            RedisCacheConfig config = new RedisCacheConfig();
+            config.setBatchSize(7);
+            config.setPipelineParallelism(4);
+            config.setPipelineExecutor(executor);
+
+            RedisCache<Integer, String> cache = newCache("test:pipeline", config);
+            cache.evictAll();
+
+            List<Integer> keys = IntStream.range(0, 100).boxed().collect(Collectors.toList());
+            cache.put(keys.stream().filter(k -> k % 2 == 0).collect(Collectors.toMap(Function.identity(), String::valueOf)));
+
+            Map<Integer, String> map = cache.getIfPresent(keys);
+            Assert.assertEquals(50, map.size());
+            map.forEach((k, v) -> Assert.assertEquals(String.valueOf(k), v));
+
+            map = cache.getOrLoadIfAbsent(keys);
+            Assert.assertEquals(100, map.size());
+            map.forEach((k, v) -> Assert.assertEquals(String.valueOf(k), v));
+
+            cache.evictAll();
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void testSingleFlightLoad() throws Exception {
+        AtomicInteger loadCount = new AtomicInteger();
+        MultiCacheLoader<Integer, String> slowLoader = keys -> {
+            loadCount.incrementAndGet();
+            sleep(200);
+            return keys.stream().collect(Collectors.toMap(Function.identity(), String::valueOf));
+        };
+
+        RedisCacheConfig config = new RedisCacheConfig();
+        config.setLoadLockEnabled(true);
+        // 模拟两个节点
+        RedisCache<Integer, String> node1 = new RedisCache<>("test:singleFlight", redisTemplate, Duration.ofMinutes(5),
+                slowLoader, Object::toString, true, config);
+        RedisCache<Integer, String> node2 = new RedisCache<>("test:singleFlight", redisTemplate, Duration.ofMinutes(5),
+                slowLoader, Object::toString, true, config);
+        node1.evictAll();
+
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<String>> futures = Lists.newArrayList();
+            for (int i = 0; i < 8; i++) {
+                RedisCache<Integer, String> cache = i % 2 == 0 ? node1 : node2;
+                futures.add(executor.submit(() -> cache.getOrLoadIfAbsent(1)));
+            }
+            for (Future<String> future : futures) {
+                Assert.assertEquals("1", future.get());
+            }
+            Assert.assertEquals(1, loadCount.get());
+        } finally {
+            executor.shutdown();
+            node1.evictAll();
+        }
+    }
+
+    @Test
+    public void testCacheNullValues() {
+        AtomicInteger loadCount = new AtomicInteger();
+        RedisCacheConfig config = new RedisCacheConfig();
+        config.setCacheNullValues(true);
+        config.setNullValueTimeToLive(Duration.ofSeconds(30));
+
+        RedisCache<Integer, String> cache = new RedisCache<>("test:nullValue", redisTemplate, Duration.ofMinutes(5),
+                keys -> {
+                    loadCount.incrementAndGet();
+                    return keys.stream().filter(k -> k > 0).collect(Collectors.toMap(Function.identity(), String::valueOf));
+                }, Object::toString, true, config);
+        cache.evictAll();
+
+        Assert.assertNull(cache.getWrapperIfPresent(-1));
+        Assert.assertNull(cache.getOrLoadIfAbsent(-1));
+        Assert.assertEquals(1, loadCount.get());
+
+        ValueWrapper<String> wrapper = cache.getWrapperIfPresent(-1);
+        Assert.assertNotNull(wrapper);
+        Assert.assertNull(wrapper.get());
+        Assert.assertNull(cache.getOrLoadIfAbsent(-1));
+        Assert.assertEquals(1, loadCount.get());
+
+        Map<Integer, String> map = cache.getOrLoadIfAbsent(Lists.newArrayList(-1, -2, 1));
+        Assert.assertEquals(1, map.size());
+        Assert.assertEquals("1", map.get(1));
+        Assert.assertEquals(2, loadCount.get());
+
+        map = cache.getOrLoadIfAbsent(Lists.newArrayList(-1, -2, 1));
+        Assert.assertEquals(1, map.size());
+        Assert.assertEquals(2, loadCount.get());
+
+        Map<Integer, ValueWrapper<String>> wrappers = cache.getWrapperIfPresent(Lists.newArrayList(-2, 1, 2));
+        Assert.assertEquals(2, wrappers.size());
+        Assert.assertNull(wrappers.get(-2).get());
+        Assert.assertEquals("1", wrappers.get(1).get());
+
+        cache.put(1, null);
+        Assert.assertNull(cache.getIfPresent(1));
+        Assert.assertNotNull(cache.getWrapperIfPresent(1));
+
+        cache.evictAll();
+        Assert.assertNull(cache.getWrapperIfPresent(-1));
+    }
+
+    @Test
+    public void testKeyFilter() {
+        AtomicInteger loadCount = new AtomicInteger();
+        RedisCacheConfig config = new RedisCacheConfig();
+        config.setKeyFilter(new RedisBloomFilter("test:keyFilter$$bloom$$", redisTemplate, 1000, 0.001));
+
+        RedisCache<Integer, String> cache = new RedisCache<>("test:keyFilter", redisTemplate, Duration.ofMinutes(5),
+                keys -> {
+                    loadCount.addAndGet(keys.size());
+                    return keys.stream().collect(Collectors.toMap(Function.identity(), String::valueOf));
+                }, Object::toString, true, config);
+        cache.evictAll();
+        cache.rebuildKeyFilter(IntStream.range(0, 10).iterator());
+
+        Assert.assertEquals("1", cache.getOrLoadIfAbsent(1));
+        Assert.assertNull(cache.getOrLoadIfAbsent(100));
+        Assert.assertEquals(1, loadCount.get());
+
+        Map<Integer, String> map = cache.getOrLoadIfAbsent(Lists.newArrayList(1, 2, 3, 100, 101));
+        Assert.assertEquals(3, map.size());
+        Assert.assertEquals(3, loadCount.get());
+
+        // put 的 key 会写入过滤器
+        cache.put(100, "100");
+        Assert.assertEquals("100", cache.getIfPresent(100));
+
+        cache.rebuildKeyFilter(IntStream.range(0, 5).iterator());
+        Assert.assertNull(cache.getIfPresent(100));
+        cache.evictAll();
+    }
+
+    @Test
+    public void testKeyFilterPutDuringRebuild() {
+        for (CacheKeyFilter filter : Arrays.asList(new LocalBloomFilter(1000, 0.001),
+                new RedisBloomFilter("test:keyFilter$$bloom$$", redisTemplate, 1000, 0.001))) {
+            filter.rebuild(Arrays.asList("1", "2").iterator());
+            // 重建期间写入的 key 在重建完成后仍然存在
+            filter.rebuild(IntStream.range(0, 5).mapToObj(i -> {
+                if (i == 2) {
+                    filter.put(Collections.singletonList("100"));
+                }
+                return String.valueOf(i);
+            }).iterator());
+            Assert.assertTrue(filter.mightContain("100"));
+            Assert.assertTrue(filter.mightContain("4"));
+        }
+        redisTemplate.delete("test:keyFilter$$bloom$$");
+    }
+
+    @Test
+    public void testRefreshAhead() {
+        AtomicInteger version = new AtomicInteger();
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            RedisCacheConfig config = new RedisCacheConfig();
+            // 大于 timeToLive + 随机时间,每次读取都会触发刷新
+            config.setRefreshAheadTime(Duration.ofMinutes(5));
+            config.setRefreshExecutor(executor);
+
+            RedisCache<Integer, String> cache = new RedisCache<>("test:refreshAhead", redisTemplate, Duration.ofMinutes(1),
+                    keys -> {
+                        int v = version.incrementAndGet();
+                        return keys.stream().collect(Collectors.toMap(Function.identity(), k -> k + ":" + v));
+                    }, Object::toString, true, config);
+            cache.evictAll();
+
+            Assert.assertEquals("1:1", cache.getOrLoadIfAbsent(1));
+            // 返回旧值,同时异步刷新
+            Assert.assertEquals("1:1", cache.getIfPresent(Lists.newArrayList(1)).get(1));
+            sleep(500);
+            Assert.assertEquals("1:2", cache.getIfPresent(1));
+            cache.evictAll();
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void testAsyncCache() throws Exception {
+        RedisCacheConfig config = new RedisCacheConfig();
+        config.setBatchSize(3);
+        RedisCache<Integer, String> cache = newCache("test:async", config);
+        cache.evictAll();
+
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try (RedisAsyncCache<Integer, String> asyncCache = new RedisAsyncCache<>(cache, context.getBean(LettuceConnectionFactory.class),
+                AsyncMultiCacheLoader.from(keys -> keys.stream().collect(Collectors.toMap(Function.identity(), String::valueOf)), executor))) {
+
+            Assert.assertNull(asyncCache.getIfPresent(1).get());
+            Assert.assertEquals("1", asyncCache.getOrLoadIfAbsent(1).get());
+            Assert.assertEquals("1", cache.getIfPresent(1));
+
+            List<Integer> keys = IntStream.range(0, 10).boxed().collect(Collectors.toList());
+            Map<Integer, String> map = asyncCache.getOrLoadIfAbsent(keys).get();
+            Assert.assertEquals(10, map.size());
+            Assert.assertEquals(10, cache.getIfPresent(keys).size());
+
+            asyncCache.put(1, "one").get();
+            Assert.assertEquals("one", cache.getIfPresent(1));
+
+            asyncCache.evict(keys).get();
+            Assert.assertTrue(asyncCache.getIfPresent(keys).get().isEmpty());
+            Assert.assertTrue(cache.getIfPresent(keys).isEmpty());
+        } finally {
+            cache.evictAll();
+        }
+
+        // put 和 evict 与同步接口经过相同的 keyFilter、删除标记和 write-behind 处理
+        RedisCacheConfig scriptedConfig = new RedisCacheConfig();
+        scriptedConfig.setLuaScriptsEnabled(true);
+        scriptedConfig.setKeyFilter(new LocalBloomFilter(1000, 0.001));
+        scriptedConfig.setWriteBehindEnabled(true);
+        scriptedConfig.setWriteBehindFlushInterval(Duration.ofMinutes(1));
+        RedisCache<Integer, String> scriptedCache = newCache("test:async", scriptedConfig);
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch evicted = new CountDownLatch(1);
+        try (RedisAsyncCache<Integer, String> asyncCache = new RedisAsyncCache<>(scriptedCache, context.getBean(LettuceConnectionFactory.class),
+                AsyncMultiCacheLoader.from(ks -> {
+                    loading.countDown();
+                    Uninterruptibles.awaitUninterruptibly(evicted);
+                    return ks.stream().collect(Collectors.toMap(Function.identity(), k -> "stale"));
+                }, executor))) {
+
+            asyncCache.put(100, "100").get();
+            Assert.assertFalse(redisTemplate.hasKey("test:async:100"));
+            scriptedCache.flush();
+            Assert.assertEquals("100", scriptedCache.getIfPresent(100));
+
+            asyncCache.evict(100).get();
+            Assert.assertNull(scriptedCache.getIfPresent(100));
+
+            CompletableFuture<String> staleLoad = asyncCache.getOrLoadIfAbsent(100);
+            loading.await();
+            asyncCache.evict(100).get();
+            evicted.countDown();
+            Assert.assertEquals("stale", staleLoad.get());
+            scriptedCache.flush();
+            Assert.assertNull(scriptedCache.getIfPresent(100));
+        } finally {
+            executor.shutdown();
+            scriptedCache.evictAll();
+            scriptedCache.close();
+        }
+    }
+
+    @Test
+    public void testEvictAllStrategy() {
+        List<Integer> keys = IntStream.range(0, 50).boxed().collect(Collectors.toList());
+        List<EvictAllStrategy> strategies = Lists.newArrayList(
+                new GenerationEvictAllStrategy("test:generation", redisTemplate),
+                new ScanEvictAllStrategy("test:scan", redisTemplate, 7));
+        List<String> keyPrefixes = Lists.newArrayList("test:generation", "test:scan");
+
+        for (int i = 0; i < strategies.size(); i++) {
+            RedisCacheConfig config = new RedisCacheConfig();
+            config.setEvictAllStrategy(strategies.get(i));
+            RedisCache<Integer, String> cache = new RedisCache<>(keyPrefixes.get(i), redisTemplate, Duration.ofMinutes(5),
+                    ks -> ks.stream().collect(Collectors.toMap(Function.identity(), String::valueOf)), Object::toString, false, config);
+
+            Assert.assertEquals(50, cache.getOrLoadIfAbsent(keys).size());
+            Assert.assertEquals(50, cache.getIfPresent(keys).size());
+
+            cache.evictAll();
+            Assert.assertTrue(cache.getIfPresent(keys).isEmpty());
+        }
+    }
+
+    @Test
+    public void testScanEvictAllSkipsNestedCache() {
+        redisTemplate.opsForValue().set("test:scan:dao:1", "nested");
+        redisTemplate.opsForValue().set("test:scan:1", "1");
+        try {
+            new ScanEvictAllStrategy("test:scan", redisTemplate).evictAll();
+            Assert.assertFalse(redisTemplate.hasKey("test:scan:1"));
+            Assert.assertTrue(redisTemplate.hasKey("test:scan:dao:1"));
+
+            // 生成的 key 中包含 ":" 时指定其他缓存的 keyPrefix
+            redisTemplate.opsForValue().set("test:scan:a:1", "1");
+            new ScanEvictAllStrategy("test:scan", redisTemplate, 7, Collections.singletonList("test:scan:dao")).evictAll();
+            Assert.assertFalse(redisTemplate.hasKey("test:scan:a:1"));
+            Assert.assertTrue(redisTemplate.hasKey("test:scan:dao:1"));
+        } finally {
+            redisTemplate.delete(Arrays.asList("test:scan:dao:1", "test:scan:1", "test:scan:a:1"));
+        }
+
+        // 未指定 nestedKeyPrefixes 时拒绝生成包含 ":" 的 key,而不是在 evictAll 时静默跳过
+        RedisCacheConfig config = new RedisCacheConfig();
+        config.setEvictAllStrategy(new ScanEvictAllStrategy("test:scan", redisTemplate));
+        try {
+            new RedisCache<Integer, String>("test:scan", redisTemplate, Duration.ofMinutes(5), ks -> Collections.emptyMap(),
+                    new RedisCache.HashTagRedisKeyGenerator<>(k -> "tag", Object::toString), false, config);
+            Assert.fail();
+        } catch (IllegalArgumentException expected) {
+            // 需要指定 nestedKeyPrefixes
+        }
+        RedisCache<String, String> stringCache = new RedisCache<>("test:scan", redisTemplate, Duration.ofMinutes(5),
+                ks -> ks.stream().collect(Collectors.toMap(Function.identity(), Function.identity())), Object::toString, false, config);
+        stringCache.put("b", "b");
+        try {
+            stringCache.put("a:b", "a:b");
+            Assert.fail();
+        } catch (IllegalArgumentException expected) {
+            Assert.assertFalse(redisTemplate.hasKey("test:scan:a:b"));
+        }
+        stringCache.evictAll();
+        Assert.assertFalse(redisTemplate.hasKey("test:scan:b"));
+    }
+
+    @Test
+    public void testValueCodec() {
+        RedisCacheConfig config = new RedisCacheConfig();
+        config.setValueCodec(new VersionedValueCodec<>(new KryoValueCodec<Item>(), 1, 64, null));
+        RedisCache<Integer, Item> cache = new RedisCache<>("test:codec", redisTemplate, Duration.ofMinutes(5),
+                ks -> ks.stream().collect(Collectors.toMap(Function.identity(), k -> new Item(k, Strings.repeat("v", k)))),
+                Object::toString, true, config);
+        cache.evictAll();
+
+        // 小于阈值时不压缩,大于阈值时压缩
+        List<Integer> keys = Lists.newArrayList(1, 1000);
+        Map<Integer, Item> map = cache.getOrLoadIfAbsent(keys);
+        Assert.assertEquals(2, map.size());
+        map = cache.getIfPresent(keys);
+        Assert.assertEquals(1000, map.get(1000).name.length());
+        Assert.assertEquals(1, map.get(1).id);
+
+        // 版本号不同的数据视为缓存中不存在
+        config.setValueCodec(new VersionedValueCodec<>(new KryoValueCodec<Item>(), 2));
+        RedisCache<Integer, Item> upgraded = new RedisCache<>("test:codec", redisTemplate, Duration.ofMinutes(5),
+                ks -> Collections.emptyMap(), Object::toString, true, config);
+        Assert.assertTrue(upgraded.getIfPresent(keys).isEmpty());
+
+        // 无法识别的数据返回 null
+        Assert.assertNull(new KryoValueCodec<Item>().decode(new byte[]{0x7F, 1, 2}));
+        Assert.assertNull(new RedisSerializerValueCodec<Item>(new JdkSerializationRedisSerializer()).decode(new byte[]{1, 2, 3}));
+        Assert.assertNull(new VersionedValueCodec<>(new KryoValueCodec<Item>(), 1)
+                .decode(new byte[]{(byte) 0xEC, 1, 1, 0, 0, 0, 100, 1, 2, 3}));
+        Assert.assertNull(new VersionedValueCodec<>(new KryoValueCodec<Item>(), 1)
+                .decode(new byte[]{(byte) 0xEC, 1, 1, 0x7F, -1, -1, -1, 1, 2, 3}));
+
+        cache.evictAll();
+    }
+
+    @Test
+    public void testRawKeyGenerator() {
+        RedisCache<Long, String> cache = new RedisCache<>("test:rawKey", redisTemplate, Duration.ofMinutes(5),
+                ks -> ks.stream().collect(Collectors.toMap(Function.identity(), String::valueOf)),
+                RedisCache.LongRedisKeyGenerator.LONG, true, new RedisCacheConfig());
+        RedisCache<Long, String> defaultCache = new RedisCache<>("test:rawKey", redisTemplate, Duration.ofMinutes(5),
+                ks -> Collections.emptyMap(), Object::toString, true, new RedisCacheConfig());
+
+        for (long key : new long[]{0, 7, -7, 1234567890123L, Long.MAX_VALUE, Long.MIN_VALUE}) {
+            Assert.assertArrayEquals(defaultCache.rawCacheKey(key), cache.rawCacheKey(key));
+        }
+        RedisCache<Integer, String> intCache = new RedisCache<>("test:rawKey", redisTemplate, Duration.ofMinutes(5),
+                ks -> Collections.emptyMap(), RedisCache.LongRedisKeyGenerator.INTEGER, true, new RedisCacheConfig());
+        Assert.assertArrayEquals(defaultCache.rawCacheKey((long) Integer.MIN_VALUE), intCache.rawCacheKey(Integer.MIN_VALUE));
+
+        List<Long> keys = LongStream.range(-50, 50).boxed().collect(Collectors.toList());
+        cache.evictAll();
+        Assert.assertEquals(100, cache.getOrLoadIfAbsent(keys).size());
+        Assert.assertEquals(100, defaultCache.getIfPresent(keys).size());
+        cache.evictAll();
+    }
+
+    @Test
+    public void testMetrics() {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        RedisCacheConfig config = new RedisCacheConfig();
+        config.setMetrics(new MicrometerCacheMetrics(registry, "test:metrics"));
+        RedisCache<Integer, String> cache = newCache("test:metrics", config);
+        cache.evictAll();
+
+        List<Integer> keys = IntStream.range(0, 10).boxed().collect(Collectors.toList());
+        cache.getOrLoadIfAbsent(keys);
+        cache.getIfPresent(keys);
+        cache.evict(keys.subList(0, 3));
+
+        Assert.assertEquals(10, registry.get("easycache.gets").tag("result", "hit").counter().count(), 0);
+        Assert.assertEquals(10, registry.get("easycache.gets").tag("result", "miss").counter().count(), 0);
+        Assert.assertEquals(1, registry.get("easycache.loads").tag("result", "success").timer().count());
+        Assert.assertEquals(3, registry.get("easycache.evictions").tag("cache", "test:metrics").counter().count(), 0);
+        Assert.assertEquals(2, registry.get("easycache.batch.size").tag("operation", "get").summary().count());
+        Assert.assertTrue(registry.get("easycache.batch.size").tag("operation", "get").summary().takeSnapshot().histogramCounts().length > 0);
+        Assert.assertEquals(2, registry.get("easycache.redis.commands").tag("command", "mget").timer().count());
+
+        cache.evictAll();
+    }
+
+    @Test
+    public void testWriteBehind() {
+        RedisCacheConfig config = new RedisCacheConfig();
+        config.setWriteBehindEnabled(true);
+        config.setWriteBehindBatchSize(1000);
+        config.setWriteBehindFlushInterval(Duration.ofMinutes(1));
+        RedisCache<Integer, String> cache = newCache("test:writeBehind", config);
+        RedisCache<Integer, String> reader = newCache("test:writeBehind", new RedisCacheConfig());
+        cache.evictAll();
+
+        List<Integer> keys = IntStream.range(0, 10).boxed().collect(Collectors.toList());
+        Assert.assertEquals(10, cache.getOrLoadIfAbsent(keys).size());
+        cache.put(1, "one");
+
+        // 写入 redis 之前,当前节点可以读取到队列中的值
+        Assert.assertEquals("one", cache.getIfPresent(1));
+        Assert.assertTrue(reader.getIfPresent(keys).isEmpty());
+
+        cache.evict(2);
+        Assert.assertNull(cache.getIfPresent(2));
+
+        // redis 中已经存在旧值时,仍然读取到队列中的新值
+        cache.flush();
+        cache.put(3, "three");
+        Assert.assertEquals("three", cache.getIfPresent(3));
+        Assert.assertEquals("three", cache.getOrLoadIfAbsent(Lists.newArrayList(3)).get(3));
+        Assert.assertEquals("3", reader.getIfPresent(3));
+
+        cache.close();
+        Map<Integer, String> map = reader.getIfPresent(keys);
+        Assert.assertEquals(9, map.size());
+        Assert.assertEquals("one", map.get(1));
+        Assert.assertEquals("three", map.get(3));
+
+        try {
+            cache.put(1, "closed");
+            Assert.fail();
+        } catch (IllegalStateException e) {
+            Assert.assertEquals("one", reader.getIfPresent(1));
+        }
+
+        reader.evictAll();
+    }
+
+    @Test
+    public void testExpiryPolicy() {
+        AdaptiveExpiryPolicy<Integer, String> expiryPolicy = new AdaptiveExpiryPolicy<>(Duration.ofSeconds(100));
+        expiryPolicy.setHotFrequency(3);
+        RedisCacheConfig config = new RedisCacheConfig();
+        config.setExpiryPolicy(expiryPolicy);
+        RedisCache<Integer, String> cache = newCache("test:expiry", config);
+        cache.evictAll();
+
+        for (int i = 0; i < 3; i++) {
+            cache.getIfPresent(1);
+        }
+        cache.getIfPresent(2);
+        cache.put(ImmutableMap.of(1, "hot", 2, "normal", 3, "cold"));
+
+        long hot = redisTemplate.getExpire("test:expiry:1", TimeUnit.SECONDS);
+        long normal = redisTemplate.getExpire("test:expiry:2", TimeUnit.SECONDS);
+        long cold = redisTemplate.getExpire("test:expiry:3", TimeUnit.SECONDS);
+        Assert.assertTrue(String.valueOf(hot), hot >= 199 && hot <= 220);
+        Assert.assertTrue(String.valueOf(normal), normal >= 99 && normal <= 110);
+        Assert.assertTrue(String.valueOf(cold), cold >= 49 && cold <= 55);
+
+        cache.evictAll();
+    }
+
+    @Test
+    public void testHotKey() {
+        RedisCacheConfig config = new RedisCacheConfig();
+        config.setHotKeyDetectionEnabled(true);
+        config.setHotKeyThreshold(3);
+        config.setHotKeyLocalTimeToLive(Duration.ofMinutes(1));
+        RedisCache<Integer, String> cache = newCache("test:hot", config);
+        cache.evictAll();
+        cache.put(ImmutableMap.of(1, "1", 2, "2"));
+
+        for (int i = 0; i < 3; i++) {
+            Assert.assertEquals("1", cache.getIfPresent(1));
+        }
+        cache.getIfPresent(Arrays.asList(1, 2));
+        Assert.assertEquals(1, cache.hotKeys().size());
+        Assert.assertEquals(Integer.valueOf(1), cache.hotKeys().get(0).getKey());
+        Assert.assertTrue(cache.hotKeys().get(0).getFrequency() >= 3);
+
+        // 其他节点的修改在本地副本过期前不可见
+        redisTemplate.delete("test:hot:1");
+        Assert.assertEquals("1", cache.getIfPresent(1));
+        Assert.assertEquals(ImmutableMap.of(1, "1", 2, "2"), cache.getIfPresent(Arrays.asList(1, 2)));
+
+        // 当前节点的修改立即可见
+        cache.put(1, "one");
+        Assert.assertEquals("one", cache.getIfPresent(1));
+        cache.evict(1);
+        Assert.assertNull(cache.getIfPresent(1));
+
+        cache.evictAll();
+        Assert.assertTrue(cache.hotKeys().isEmpty());
+
+        // put 之前开始的读取在 put 完成之后不能保存读到的旧值
+        HotKeyCache<Integer> hotKeyCache = new HotKeyCache<>(new FrequencySketch(1024), 0, 100, Duration.ofMinutes(1));
+        long stamp = hotKeyCache.stamp(1);
+        hotKeyCache.invalidate(Collections.singletonList(1));
+        hotKeyCache.offer(1, "1", stamp);
+        Assert.assertNull(hotKeyCache.get(1));
+        hotKeyCache.offer(1, "one", hotKeyCache.stamp(1));
+        Assert.assertEquals("one", hotKeyCache.get(1));
+        stamp = hotKeyCache.stamp(2);
+        hotKeyCache.invalidateAll();
+        hotKeyCache.offer(2, "2", stamp);
+        Assert.assertNull(hotKeyCache.get(2));
+    }
+
+    @Test
+    public void testWarmUp() throws Exception {
+        AtomicInteger loadCount = new AtomicInteger();
+        RedisCache<Integer, String> cache = new RedisCache<>("test:warmUp", redisTemplate, Duration.ofMinutes(5),
+                keys -> {
+                    loadCount.addAndGet(keys.size());
+                    return keys.stream().collect(Collectors.toMap(Function.identity(), String::valueOf));
+                }, Object::toString, true, new RedisCacheConfig());
+        cache.evictAll();
+        cache.put(IntStream.range(0, 100).filter(k -> k % 2 == 0).boxed()
+                .collect(Collectors.toMap(Function.identity(), k -> "old")));
+
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            WarmUpConfig warmUpConfig = new WarmUpConfig();
+            warmUpConfig.setBatchSize(10);
+            warmUpConfig.setParallelism(4);
+            warmUpConfig.setExecutor(executor);
+            warmUpConfig.setKeysPerSecond(1000);
+            warmUpConfig.setExpectedKeyCount(100);
+
+            WarmUpTask task = cache.warmUp(IntStream.range(0, 100).boxed(), warmUpConfig);
+            task.toCompletableFuture().get(10, TimeUnit.SECONDS);
+            Assert.assertEquals(100, task.getProcessedKeys());
+            Assert.assertEquals(50, task.getSkippedKeys());
+            Assert.assertEquals(0, task.getFailedKeys());
+            Assert.assertEquals(1, task.getProgress(), 0);
+            Assert.assertEquals(50, loadCount.get());
+
+            Map<Integer, String> map = cache.getIfPresent(IntStream.range(0, 100).boxed().collect(Collectors.toList()));
+            Assert.assertEquals(100, map.size());
+            map.forEach((k, v) -> Assert.assertEquals(k % 2 == 0 ? "old" : String.valueOf(k), v));
+
+            warmUpConfig.setSkipExisting(false);
+            cache.warmUp(IntStream.range(0, 100).boxed(), warmUpConfig).toCompletableFuture().get(10, TimeUnit.SECONDS);
+            Assert.assertEquals(150, loadCount.get());
+            Assert.assertEquals("0", cache.getIfPresent(0));
+        } finally {
+            executor.shutdown();
+            cache.evictAll();
+        }
+
+        // evict 写入的删除标记视为不存在,预热时重新加载
+        RedisCacheConfig config = new RedisCacheConfig();
+        config.setLuaScriptsEnabled(true);
+        AtomicInteger luaLoadCount = new AtomicInteger();
+        RedisCache<Integer, String> luaCache = new RedisCache<>("test:warmUpLua", redisTemplate, Duration.ofMinutes(5),
+                keys -> {
+                    luaLoadCount.addAndGet(keys.size());
+                    return keys.stream().collect(Collectors.toMap(Function.identity(), String::valueOf));
+                }, Object::toString, true, config);
+        luaCache.evictAll();
+        try {
+            luaCache.put(ImmutableMap.of(1, "old", 2, "old"));
+            luaCache.evict(2);
+            WarmUpTask task = luaCache.warmUp(IntStream.range(0, 3).boxed(), new WarmUpConfig());
+            task.toCompletableFuture().get(10, TimeUnit.SECONDS);
+            Assert.assertEquals(1, task.getSkippedKeys());
+            Assert.assertEquals(2, luaLoadCount.get());
+            Assert.assertEquals("2", luaCache.getIfPresent(2));
+        } finally {
+            luaCache.evictAll();
+        }
+    }
+
+    @Test
+    public void testStreamingGetOrLoad() {
+        List<Integer> batchSizes = Collections.synchronizedList(Lists.newArrayList());
+        RedisCache<Integer, String> cache = new RedisCache<>("test:streaming", redisTemplate, Duration.ofMinutes(5),
+                keys -> {
+                    batchSizes.add(keys.size());
+                    return keys.stream().filter(k -> k % 10 != 1).collect(Collectors.toMap(Function.identity(), String::valueOf));
+                }, Object::toString, true, new RedisCacheConfig());
+        cache.evictAll();
+        cache.put(IntStream.range(0, 1000).filter(k -> k % 2 == 0).boxed()
+                .collect(Collectors.toMap(Function.identity(), k -> "old")));
+
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            StreamingLoadConfig streamingConfig = new StreamingLoadConfig();
+            streamingConfig.setWindowSize(100);
+            streamingConfig.setLoaderBatchSize(20);
+            streamingConfig.setPrefetchExecutor(executor);
+
+            Map<Integer, String> map = Maps.newHashMap();
+            cache.getOrLoadIfAbsent(IntStream.range(0, 1000).boxed().iterator(), streamingConfig, map::put);
+            // 每个窗口 50 个未命中的 key,分 3 批加载,加载不到的 key 不会传给 consumer
+            Assert.assertEquals(1000 - 100, map.size());
+            map.forEach((k, v) -> Assert.assertEquals(k % 2 == 0 ? "old" : String.valueOf(k), v));
+            Assert.assertEquals(30, batchSizes.size());
+            Assert.assertTrue(batchSizes.stream().allMatch(size -> size <= 20));
+
+            streamingConfig.setPrefetchExecutor(null);
+            Assert.assertEquals(2, cache.streamOrLoadIfAbsent(IntStream.range(0, 1000).boxed().iterator(), streamingConfig)
+                    .filter(e -> e.getKey() < 3).count());
+            // 没有缓存 null 值,每个窗口中加载不到的 10 个 key 需要重新加载
+            Assert.assertEquals(40, batchSizes.size());
+        } finally {
+            executor.shutdown();
+            cache.evictAll();
+        }
+    }
+
+    @Test
+    public void testParallelLoader() throws InterruptedException {
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger maxRunning = new AtomicInteger();
+        ExecutorService executor = Executors.newCachedThreadPool();
+        RedisCacheConfig config = new RedisCacheConfig();
+        config.setLoaderBatchSize(10);
+        config.setLoaderExecutor(executor);
+        config.setLoaderParallelism(4);
+        config.setLoaderTimeout(Duration.ofSeconds(1));
+        config.setLoaderPartialResultsEnabled(true);
+        config.setCacheNullValues(true);
+        RedisCache<Integer, String> cache = new RedisCache<>("test:parallelLoader", redisTemplate, Duration.ofMinutes(5),
+                keys -> {
+                    maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+                    try {
+                        TimeUnit.MILLISECONDS.sleep(keys.contains(85) ? 3000 : 200);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    } finally {
+                        running.decrementAndGet();
+                    }
+                    if (keys.contains(45)) {
+                        throw new IllegalStateException("load failed");
+                    }
+                    return keys.stream().collect(Collectors.toMap(Function.identity(), String::valueOf));
+                }, Object::toString, true, config);
+        cache.evictAll();
+
+        try {
+            long start = System.nanoTime();
+            Map<Integer, String> map = cache.getOrLoadIfAbsent(IntStream.range(0, 40).boxed().collect(Collectors.toList()));
+            Assert.assertEquals(40, map.size());
+            Assert.assertEquals(4, maxRunning.get());
+            Assert.assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) < 700);
+
+            // 加载失败和超时的批次不返回,也不缓存 null 值
+            List<Integer> keys = IntStream.range(40, 100).boxed().collect(Collectors.toList());
+            map = cache.getOrLoadIfAbsent(keys);
+            Assert.assertEquals(40, map.size());
+            Assert.assertFalse(map.containsKey(45));
+            Assert.assertFalse(map.containsKey(85));
+            Assert.assertEquals(40, cache.getWrapperIfPresent(keys).size());
+            // 超时的 loader 被中断,不会继续占用并发许可
+            long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(500);
+            while (running.get() > 0 && System.nanoTime() < deadline) {
+                TimeUnit.MILLISECONDS.sleep(10);
+            }
+            Assert.assertEquals(0, running.get());
+
+            config.setLoaderPartialResultsEnabled(false);
+            try {
+                cache.getOrLoadIfAbsent(Arrays.asList(45, 46));
+                Assert.fail();
+            } catch (IllegalStateException e) {
+                Assert.assertEquals("load failed", e.getMessage());
+            }
+            try {
+                cache.getOrLoadIfAbsent(85);
+                Assert.fail();
+            } catch (QueryTimeoutException expected) {
+                // 超时
+            }
+        } finally {
+            executor.shutdownNow();
+            cache.evictAll();
+        }
+    }
+
+    @Test
+    public void testCircuitBreaker() {
+        // 没有 redis 监听的端口
+        LettuceConnectionFactory factory = new LettuceConnectionFactory(new RedisStandaloneConfiguration("127.0.0.1", 1));
+        factory.afterPropertiesSet();
+        RedisTemplate<String, Serializable> unavailableTemplate = new RedisTemplate<>();
+        unavailableTemplate.setConnectionFactory(factory);
+        unavailableTemplate.setKeySerializer(new StringRedisSerializer());
+        unavailableTemplate.afterPropertiesSet();
+
+        AtomicInteger loadCount = new AtomicInteger();
+        RedisCacheConfig config = new RedisCacheConfig();
+        config.setCircuitBreakerEnabled(true);
+        config.setCircuitBreakerFailureThreshold(2);
+        config.setCircuitBreakerProbeInterval(Duration.ofMinutes(1));
+        RedisCache<Integer, String> cache = new RedisCache<>("test:circuitBreaker", unavailableTemplate, Duration.ofMinutes(5),
+                keys -> {
+                    loadCount.addAndGet(keys.size());
+                    return keys.stream().collect(Collectors.toMap(Function.identity(), String::valueOf));
+                }, Object::toString, false, config);
+        try {
+            // 读取和写入各失败一次后打开熔断器
+            Assert.assertEquals("1", cache.getOrLoadIfAbsent(1));
+            Assert.assertTrue(cache.isDegraded());
+
+            Assert.assertEquals("1", cache.getOrLoadIfAbsent(1));
+            Assert.assertEquals(1, loadCount.get());
+            Assert.assertEquals(3, cache.getOrLoadIfAbsent(Arrays.asList(1, 2, 3)).size());
+            Assert.assertEquals(3, loadCount.get());
+
+            cache.put(4, "four");
+            Assert.assertEquals("four", cache.getIfPresent(4));
+
+            try {
+                cache.evict(4);
+                Assert.fail();
+            } catch (RedisConnectionFailureException e) {
+                Assert.assertNull(cache.getIfPresent(4));
+            }
+        } finally {
+            cache.close();
+        }
+
+        // 加载锁同样经过熔断器,获取失败时降级加载
+        RedisCacheConfig lockConfig = new RedisCacheConfig();
+        lockConfig.setCircuitBreakerEnabled(true);
+        lockConfig.setCircuitBreakerFailureThreshold(2);
+        lockConfig.setCircuitBreakerProbeInterval(Duration.ofMinutes(1));
+        lockConfig.setLoadLockEnabled(true);
+        RedisCache<Integer, String> lockedCache = new RedisCache<>("test:circuitBreaker", unavailableTemplate, Duration.ofMinutes(5),
+                keys -> keys.stream().collect(Collectors.toMap(Function.identity(), String::valueOf)),
+                Object::toString, false, lockConfig);
+        try {
+            Assert.assertEquals("1", lockedCache.getOrLoadIfAbsent(1));
+            Assert.assertTrue(lockedCache.isDegraded());
+            Assert.assertEquals("1", lockedCache.getIfPresent(1));
+        } finally {
+            lockedCache.close();
+        }
+
+        // 熔断器打开时 write-behind 的批次放回队列重试,连续失败 3 次后丢弃
+        RedisCacheConfig writeBehindConfig = new RedisCacheConfig();
+        writeBehindConfig.setCircuitBreakerEnabled(true);
+        writeBehindConfig.setCircuitBreakerFailureThreshold(1);
+        writeBehindConfig.setCircuitBreakerProbeInterval(Duration.ofMinutes(1));
+        writeBehindConfig.setWriteBehindEnabled(true);
+        writeBehindConfig.setWriteBehindFlushInterval(Duration.ofMinutes(1));
+        RedisCache<Integer, String> writeBehindCache = new RedisCache<>("test:circuitBreaker", unavailableTemplate, Duration.ofMinutes(5),
+                keys -> keys.stream().collect(Collectors.toMap(Function.identity(), String::valueOf)),
+                Object::toString, false, writeBehindConfig);
+        try {
+            Assert.assertEquals("1", writeBehindCache.getOrLoadIfAbsent(1));
+            Assert.assertTrue(writeBehindCache.isDegraded());
+            writeBehindCache.put(2, "two");
+            for (int i = 0; i < WriteBehindQueue.MAX_ATTEMPTS; i++) {
+                try {
+                    writeBehindCache.flush();
+                    Assert.fail();
+                } catch (RedisConnectionFailureException e) {
+                    Assert.assertEquals("two", writeBehindCache.getIfPresent(2));
+                }
+            }
+            // 已经丢弃,队列为空
+            writeBehindCache.flush();
+        } finally {
+            writeBehindCache.close();
+            factory.destroy();
+        }
+    }
+
+    @Test
+    public void testLuaScripts() throws Exception {
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch evicted = new CountDownLatch(1);
+        AtomicInteger loadCount = new AtomicInteger();
+        RedisCacheConfig config = new RedisCacheConfig();
+        config.setLuaScriptsEnabled(true);
+        RedisCache<Integer, String> cache = new RedisCache<>("test:lua", redisTemplate, Duration.ofMinutes(5),
+                keys -> {
+                    int count = loadCount.incrementAndGet();
+                    if (count == 1) {
+                        loading.countDown();
+                        try {
+                            evicted.await(10, TimeUnit.SECONDS);
+                        } catch (InterruptedException e) {
+                            Thread.currentThread().interrupt();
+                        }
+                    }
+                    return keys.stream().collect(Collectors.toMap(Function.identity(), k -> "v" + count));
+                }, Object::toString, true, config);
+        cache.evictAll();
+        // 脚本缓存被清空后自动重新加载
+        redisTemplate.execute((RedisCallback<Object>) connection -> {
+            connection.scriptFlush();
+            return null;
+        });
+
+        cache.put(1, "1");
+        Assert.assertEquals("1", cache.getIfPresent(1));
+        Assert.assertEquals(Long.valueOf(1), redisTemplate.opsForZSet().zCard("test:lua$$knownKeys$$"));
+        cache.evict(1);
+        Assert.assertNull(cache.getIfPresent(1));
+        Assert.assertEquals(Long.valueOf(0), redisTemplate.opsForZSet().zCard("test:lua$$knownKeys$$"));
+        long tombstoneTtl = redisTemplate.getExpire("test:lua:1", TimeUnit.MILLISECONDS);
+        Assert.assertTrue(String.valueOf(tombstoneTtl), tombstoneTtl > 0 && tombstoneTtl <= 10000);
+
+        // evict 之前开始的加载不会覆盖删除标记
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Future<String> future = executor.submit(() -> cache.getOrLoadIfAbsent(2));
+            Assert.assertTrue(loading.await(10, TimeUnit.SECONDS));
+            cache.evict(2);
+            evicted.countDown();
+            Assert.assertEquals("v1", future.get());
+        } finally {
+            executor.shutdown();
+        }
+        Assert.assertNull(cache.getIfPresent(2));
+        Assert.assertEquals("v2", cache.getOrLoadIfAbsent(2));
+        Assert.assertEquals("v2", cache.getIfPresent(2));
+
+        // evict 之后的加载已经覆盖了删除标记,evict 之前开始的加载仍然不能写入旧数据
+        CountDownLatch staleLoading = new CountDownLatch(1);
+        CountDownLatch reloaded = new CountDownLatch(1);
+        RedisCache<Integer, String> staleLoader = new RedisCache<>("test:lua", redisTemplate, Duration.ofMinutes(5),
+                keys -> {
+                    staleLoading.countDown();
+                    try {
+                        reloaded.await(10, TimeUnit.SECONDS);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                    return keys.stream().collect(Collectors.toMap(Function.identity(), k -> "stale"));
+                }, Object::toString, true, config);
+        executor = Executors.newSingleThreadExecutor();
+        try {
+            Future<String> future = executor.submit(() -> staleLoader.getOrLoadIfAbsent(3));
+            Assert.assertTrue(staleLoading.await(10, TimeUnit.SECONDS));
+            cache.evict(3);
+            Assert.assertEquals("v3", cache.getOrLoadIfAbsent(3));
+            reloaded.countDown();
+            Assert.assertEquals("stale", future.get());
+        } finally {
+            executor.shutdown();
+        }
+        Assert.assertEquals("v3", cache.getIfPresent(3));
+
+        cache.evictAll();
+        Assert.assertNull(cache.getIfPresent(2));
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * 未实现 Serializable
+     */
+    private static class Item {
+
+        private final int id;
+
+        private final String name;
+
+        private Item(int id, String name) {
+            this.id = id;
+            this.name = name;
+        }
+    }
+
+    private RedisCache<Integer, String> newCache(String keyPrefix, RedisCacheConfig config) {
+        return new RedisCache<>(keyPrefix, redisTemplate, Duration.ofMinutes(5),
+                keys -> keys.stream().collect(Collectors.toMap(Function.identity(), String::valueOf)),
+                Object::toString, true, config);
+    }
+}
@@ -0,0 +1,129 @@
+package com.github.shenjianeng.easycache.core;
+
+import com.github.shenjianeng.easycache.EasyCacheApplication;
+import io.lettuce.core.RedisException;
+import io.lettuce.core.cluster.RedisClusterClient;
+import io.lettuce.core.cluster.SlotHash;
+import io.lettuce.core.cluster.api.StatefulRedisClusterConnection;
+import io.lettuce.core.codec.ByteArrayCodec;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.data.redis.connection.RedisClusterConfiguration;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.core.RedisTemplate;
+
+import java.io.Serializable;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * 需要 redis cluster,通过 -Dredis.cluster.node 指定其中一个节点,默认为 127.0.0.1:7000,无法连接时跳过
+ *
+ * @author shenjianeng
+ * @date 2026/10/18
+ */
+public class RedisClusterCacheTest {
+
+    private RedisClusterClient clusterClient;
+
+    private StatefulRedisClusterConnection<byte[], byte[]> clusterConnection;
+
+    private LettuceConnectionFactory connectionFactory;
+
+    private RedisTemplate<String, Serializable> redisTemplate;
+
+    @Before
+    public void setUp() {
+        String node = System.getProperty("redis.cluster.node", "127.0.0.1:7000");
+        clusterClient = RedisClusterClient.create("redis://" + node);
+        try {
+            clusterConnection = clusterClient.connect(ByteArrayCodec.INSTANCE);
+        } catch (RedisException e) {
+            clusterClient.shutdown();
+            Assume.assumeNoException("redis cluster is not available", e);
+        }
+
+        connectionFactory = new LettuceConnectionFactory(new RedisClusterConfiguration(Collections.singletonList(node)));
+        connectionFactory.afterPropertiesSet();
+        redisTemplate = new EasyCacheApplication().redisTemplate(connectionFactory);
+        redisTemplate.afterPropertiesSet();
+    }
+
+    @After
+    public void tearDown() {
+        if (clusterConnection != null) {
+            clusterConnection.close();
+            clusterClient.shutdown();
+            connectionFactory.destroy();
+        }
+    }
+
+    @Test
+    public void testBatchAcrossSlots() {
+        RedisCacheConfig config = new RedisCacheConfig();
+        config.setBatchSize(7);
+        config.setClusterConnection(clusterConnection);
+        RedisCache<Integer, String> cache = new RedisCache<>("test:cluster", redisTemplate, Duration.ofMinutes(5),
+                keys -> keys.stream().collect(Collectors.toMap(Function.identity(), String::valueOf)),
+                Object::toString, false, config);
+
+        List<Integer> keys = IntStream.range(0, 100).boxed().collect(Collectors.toList());
+        cache.evict(keys);
+
+        cache.put(keys.stream().filter(k -> k % 2 == 0).collect(Collectors.toMap(Function.identity(), String::valueOf)));
+        Map<Integer, String> map = cache.getIfPresent(keys);
+        Assert.assertEquals(50, map.size());
+        map.forEach((k, v) -> Assert.assertEquals(String.valueOf(k), v));
+
+        Assert.assertEquals(100, cache.getOrLoadIfAbsent(keys).size());
+        Assert.assertEquals("7", cache.getIfPresent(7));
+
+        cache.evict(keys);
+        Assert.assertTrue(cache.getIfPresent(keys).isEmpty());
+    }
+
+    @Test
+    public void testLoadLock() {
+        RedisCacheConfig config = new RedisCacheConfig();
+        config.setClusterConnection(clusterConnection);
+        config.setLoadLockEnabled(true);
+        RedisCache<Integer, String> cache = new RedisCache<>("test:cluster:loadLock", redisTemplate, Duration.ofMinutes(5),
+                keys -> keys.stream().collect(Collectors.toMap(Function.identity(), String::valueOf)),
+                Object::toString, false, config);
+
+        List<Integer> keys = IntStream.rangeClosed(1, 5).boxed().collect(Collectors.toList());
+        cache.evict(keys);
+        Assert.assertEquals(5, cache.getOrLoadIfAbsent(keys).size());
+        // 加载完成后释放所有的锁
+        keys.forEach(k -> Assert.assertFalse(redisTemplate.hasKey("test:cluster:loadLock:" + k + "$$lock$$")));
+
+        cache.evict(keys);
+    }
+
+    @Test
+    public void testHashTag() {
+        RedisCacheConfig config = new RedisCacheConfig();
+        config.setClusterConnection(clusterConnection);
+        RedisCache<Integer, String> cache = new RedisCache<>("test:cluster:hashTag", redisTemplate, Duration.ofMinutes(5),
+                keys -> keys.stream().collect(Collectors.toMap(Function.identity(), String::valueOf)),
+                new RedisCache.HashTagRedisKeyGenerator<>(k -> String.valueOf(k / 10), Object::toString), false, config);
+
+        List<Integer> keys = IntStream.range(0, 10).boxed().collect(Collectors.toList());
+        Assert.assertEquals(10, cache.getOrLoadIfAbsent(keys).size());
+
+        int slot = SlotHash.getSlot(cache.rawCacheKey(0));
+        keys.forEach(k -> Assert.assertEquals(slot, SlotHash.getSlot(cache.rawCacheKey(k))));
+        Assert.assertEquals("test:cluster:hashTag:{0}:3", new String(cache.rawCacheKey(3), StandardCharsets.UTF_8));
+
+        cache.evict(keys);
+    }
+}
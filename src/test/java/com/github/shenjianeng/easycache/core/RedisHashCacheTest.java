@@ -0,0 +1,154 @@
+package com.github.shenjianeng.easycache.core;
+
+import com.github.shenjianeng.easycache.EasyCacheApplication;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.data.redis.core.RedisTemplate;
+
+import java.io.Serializable;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * @author shenjianeng
+ * @date 2026/10/18
+ */
+public class RedisHashCacheTest {
+
+    private AnnotationConfigApplicationContext context;
+
+    private RedisTemplate<String, Serializable> redisTemplate;
+
+    @Before
+    @SuppressWarnings("unchecked")
+    public void setUp() {
+        context = new AnnotationConfigApplicationContext(EasyCacheApplication.class);
+        redisTemplate = context.getBean("redisTemplate", RedisTemplate.class);
+    }
+
+    @After
+    public void tearDown() {
+        context.close();
+    }
+
+    @Test
+    public void testGetAndPut() {
+        RedisHashCacheConfig config = new RedisHashCacheConfig();
+        config.setBucketCount(8);
+        AtomicInteger loadCount = new AtomicInteger();
+        RedisHashCache<Integer, String> cache = newCache("test:hash", Duration.ofMinutes(5), loadCount, config);
+        cache.evictAll();
+
+        List<Integer> keys = IntStream.range(0, 100).boxed().collect(Collectors.toList());
+        cache.put(keys.stream().filter(k -> k % 2 == 0).collect(Collectors.toMap(Function.identity(), String::valueOf)));
+
+        Map<Integer, String> map = cache.getIfPresent(keys);
+        Assert.assertEquals(50, map.size());
+        map.forEach((k, v) -> Assert.assertEquals(String.valueOf(k), v));
+
+        map = cache.getOrLoadIfAbsent(keys);
+        Assert.assertEquals(100, map.size());
+        Assert.assertEquals(50, loadCount.get());
+        Assert.assertEquals(100, cache.getIfPresent(keys).size());
+
+        // 所有缓存项只保存在 bucketCount 个 hash 中
+        Set<String> bucketKeys = redisTemplate.keys("test:hash:$$bucket$$:*");
+        Assert.assertNotNull(bucketKeys);
+        Assert.assertEquals(8, bucketKeys.size());
+        Assert.assertEquals(100L, bucketKeys.stream().mapToLong(k -> redisTemplate.opsForHash().size(k)).sum());
+
+        cache.evict(Arrays.asList(1, 2));
+        Assert.assertNull(cache.getIfPresent(1));
+        Assert.assertNull(cache.getIfPresent(2));
+        Assert.assertEquals("3", cache.getIfPresent(3));
+
+        cache.evictAll();
+        Assert.assertTrue(cache.getIfPresent(keys).isEmpty());
+        Assert.assertTrue(redisTemplate.keys("test:hash:$$bucket$$:*").isEmpty());
+
+        // 按预期的缓存项数量计算 bucket 的数量
+        config.setExpectedEntryCount(250);
+        cache = newCache("test:hash", Duration.ofMinutes(5), loadCount, config);
+        cache.put(IntStream.range(0, 300).boxed().collect(Collectors.toMap(Function.identity(), String::valueOf)));
+        Assert.assertEquals(3, redisTemplate.keys("test:hash:$$bucket$$:*").size());
+        cache.evictAll();
+    }
+
+    @Test
+    public void testNullValues() {
+        RedisHashCacheConfig config = new RedisHashCacheConfig();
+        config.setCacheNullValues(true);
+        AtomicInteger loadCount = new AtomicInteger();
+        RedisHashCache<Integer, String> cache = newCache("test:hash:null", Duration.ofMinutes(5), loadCount, config);
+        cache.evictAll();
+
+        Assert.assertNull(cache.getOrLoadIfAbsent(-1));
+        Assert.assertNull(cache.getOrLoadIfAbsent(-1));
+        Assert.assertEquals(1, loadCount.get());
+
+        ValueWrapper<String> wrapper = cache.getWrapperIfPresent(-1);
+        Assert.assertNotNull(wrapper);
+        Assert.assertNull(wrapper.get());
+        Assert.assertNull(cache.getWrapperIfPresent(-2));
+        cache.evictAll();
+    }
+
+    @Test
+    public void testExpiryMode() throws InterruptedException {
+        RedisHashCacheConfig config = new RedisHashCacheConfig();
+        config.setBucketCount(1);
+        config.setCacheNullValues(true);
+        config.setNullValueTimeToLive(Duration.ofSeconds(5));
+        RedisHashCache<Integer, String> cache = newCache("test:hash:expiry", Duration.ofMillis(200), new AtomicInteger(), config);
+        cache.evictAll();
+
+        cache.put(1, "1");
+        cache.put(2, null);
+        Long bucketTtl = redisTemplate.getExpire("test:hash:expiry:$$bucket$$:0");
+        Assert.assertTrue(bucketTtl != null && bucketTtl > 1);
+
+        Thread.sleep(300);
+        Assert.assertNull(cache.getIfPresent(1));
+        Assert.assertNotNull(cache.getWrapperIfPresent(2));
+        // 已过期的 field 在读取时被删除
+        Assert.assertEquals(1L, redisTemplate.opsForHash().size("test:hash:expiry:$$bucket$$:0").longValue());
+
+        // 写入时删除没有被读取过的已过期 field,bucket 的过期时间不会超过最晚过期的 field
+        cache.put(3, "3");
+        Thread.sleep(300);
+        cache.put(4, "4");
+        Assert.assertEquals(2L, redisTemplate.opsForHash().size("test:hash:expiry:$$bucket$$:0").longValue());
+        Assert.assertNull(redisTemplate.opsForHash().get("test:hash:expiry:$$bucket$$:0", "3"));
+        bucketTtl = redisTemplate.getExpire("test:hash:expiry:$$bucket$$:0", TimeUnit.MILLISECONDS);
+        Assert.assertTrue(bucketTtl != null && bucketTtl > 0 && bucketTtl <= 5000);
+
+        config.setExpiryMode(BucketExpiryMode.BUCKET);
+        cache = newCache("test:hash:expiry", Duration.ofMillis(200), new AtomicInteger(), config);
+        cache.evictAll();
+        cache.put(1, "1");
+        Assert.assertEquals("1", cache.getIfPresent(1));
+        Thread.sleep(300);
+        Assert.assertNull(cache.getIfPresent(1));
+    }
+
+    private RedisHashCache<Integer, String> newCache(String keyPrefix, Duration timeToLive, AtomicInteger loadCount,
+                                                     RedisHashCacheConfig config) {
+        return new RedisHashCache<>(keyPrefix, redisTemplate, timeToLive,
+                keys -> {
+                    loadCount.addAndGet(keys.size());
+                    return keys.stream().filter(k -> k >= 0).collect(Collectors.toMap(Function.identity(), String::valueOf));
+                },
+                Object::toString, config);
+    }
+}
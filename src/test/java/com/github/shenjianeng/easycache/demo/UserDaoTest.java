@@ -0,0 +1,48 @@
+package com.github.shenjianeng.easycache.demo;
+
+import com.github.shenjianeng.easycache.EasyCacheApplication;
+import com.google.common.collect.Lists;
+import org.junit.Assert;
+import org.junit.Test;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.data.redis.core.RedisTemplate;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * @author shenjianeng
+ * @date 2026/10/18
+ */
+public class UserDaoTest {
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void test() {
+        AnnotationConfigApplicationContext context = new AnnotationConfigApplicationContext(EasyCacheApplication.class);
+        UserDao userDao = context.getBean(UserDao.class);
+        context.getBean("redisTemplate", RedisTemplate.class).delete(Lists.newArrayList("user:dao:list:1", "user:dao:list:2", "user:dao:list:3",
+                        "user:dao:map:1", "user:dao:map:2", "user:dao:map:3"));
+
+        List<UserService.User> users = userDao.listUsers(Lists.newArrayList(1, 2));
+        Assert.assertEquals(2, users.size());
+        Assert.assertEquals(Lists.newArrayList(1, 2), userDao.getQueriedIds());
+
+        // 只有缓存中不存在的 key 才会传给方法
+        userDao.getQueriedIds().clear();
+        users = userDao.listUsers(Lists.newArrayList(3, 2, 1));
+        Assert.assertEquals(3, users.get(0).getId());
+        Assert.assertEquals(1, users.get(2).getId());
+        Assert.assertEquals(Lists.newArrayList(3), userDao.getQueriedIds());
+
+        userDao.getQueriedIds().clear();
+        Map<Integer, UserService.User> map = userDao.getUsers(Lists.newArrayList(1, 2, 3));
+        Assert.assertEquals(3, map.size());
+        Assert.assertEquals(Lists.newArrayList(1, 2, 3), userDao.getQueriedIds());
+        map = userDao.getUsers(Lists.newArrayList(1, 2, 3));
+        Assert.assertEquals(3, map.size());
+        Assert.assertEquals(3, userDao.getQueriedIds().size());
+
+        context.close();
+    }
+}